@@ -17,6 +17,7 @@ package com.bladecoder.engineeditor.model;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.TransformerException;
@@ -30,6 +31,7 @@ import com.bladecoder.engine.actions.Param;
 import com.bladecoder.engine.anim.AnimationDesc;
 import com.bladecoder.engine.anim.AtlasAnimationDesc;
 import com.bladecoder.engine.anim.Tween;
+import com.bladecoder.engine.loader.ChapterBinaryLoader;
 import com.bladecoder.engine.model.ActorRenderer;
 import com.bladecoder.engine.model.AtlasRenderer;
 import com.bladecoder.engine.model.BaseActor;
@@ -42,6 +44,8 @@ import com.bladecoder.engine.model.SpriteActor.DepthType;
 import com.bladecoder.engine.polygonalpathfinder.PolygonalNavGraph;
 import com.bladecoder.engine.spine.SpineRenderer;
 import com.bladecoder.engine.util.EngineLogger;
+import com.bladecoder.engineeditor.utils.ChapterCompiler;
+import com.bladecoder.engineeditor.utils.EditorLogger;
 
 public class ChapterDocument extends BaseDocument {
 
@@ -253,11 +257,37 @@ public class ChapterDocument extends BaseDocument {
 		save();
 	}
 
+	@Override
+	public void save() throws TransformerException, FileNotFoundException {
+		File binFile = new File(getBinaryName());
+		boolean compile = isModified() || !binFile.exists();
+
+		super.save();
+
+		// Generates the precompiled chapter loaded by the engine
+		if (compile) {
+			try {
+				ChapterCompiler.compile(doc, new File(getAbsoluteName()), binFile);
+			} catch (IOException e) {
+				EditorLogger.error("Error compiling chapter " + getFilename(), e);
+			}
+		}
+	}
+
+	public String getBinaryName() {
+		String name = getAbsoluteName();
+
+		return name.substring(0, name.lastIndexOf('.')) + ChapterBinaryLoader.EXT;
+	}
+
 	public void deleteFiles() {
 		File f = new File(getAbsoluteName());
 
 		f.delete();
 
+		f = new File(getBinaryName());
+		f.delete();
+
 		// TODO delete all .properties
 		f = new File(getI18NFilename());
 		f.delete();
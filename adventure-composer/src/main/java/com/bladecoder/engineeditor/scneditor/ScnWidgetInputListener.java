@@ -82,7 +82,7 @@ public class ScnWidgetInputListener extends ClickListener {
 				if (o.contains(p.x, p.y)) {
 					Ctx.project.getSelectedChapter().deleteObstacle(
 							Ctx.project.getSelectedScene(), j);
-					pf.getObstacles().remove(j);
+					pf.removeObstacle(j);
 					return;
 				}
 			}
@@ -103,6 +103,7 @@ public class ScnWidgetInputListener extends ClickListener {
 							CanvasDrawer.CORNER_DIST);
 
 					if (deleted) {
+						scn.getPolygonalNavGraph().invalidateStaticGraph();
 						Ctx.project.getSelectedChapter().setWalkZonePolygon(
 								Ctx.project.getSelectedScene(), poly);
 						return;
@@ -112,6 +113,7 @@ public class ScnWidgetInputListener extends ClickListener {
 							deleted = PolygonUtils.deletePoint(o, p.x, p.y,
 									CanvasDrawer.CORNER_DIST);
 							if (deleted) {
+								scn.getPolygonalNavGraph().invalidateStaticGraph();
 								Ctx.project.getSelectedChapter()
 										.setObstaclePolygon(
 												Ctx.project.getSelectedScene(),
@@ -127,6 +129,7 @@ public class ScnWidgetInputListener extends ClickListener {
 							poly, p.x, p.y, CanvasDrawer.CORNER_DIST);
 
 					if (created) {
+						scn.getPolygonalNavGraph().invalidateStaticGraph();
 						Ctx.project.getSelectedChapter().setWalkZonePolygon(
 								Ctx.project.getSelectedScene(), poly);
 						return;
@@ -136,6 +139,7 @@ public class ScnWidgetInputListener extends ClickListener {
 							created = PolygonUtils.addClampPointIfTolerance(o,
 									p.x, p.y, CanvasDrawer.CORNER_DIST);
 							if (created) {
+								scn.getPolygonalNavGraph().invalidateStaticGraph();
 								Ctx.project.getSelectedChapter()
 										.setObstaclePolygon(
 												Ctx.project.getSelectedScene(),
@@ -312,6 +316,7 @@ public class ScnWidgetInputListener extends ClickListener {
 			if (draggingMode == DraggingModes.DRAGING_ACTOR) {
 				Polygon p = selActor.getBBox();
 				p.translate(d.x, d.y);
+				scn.actorBBoxChanged(selActor);
 				Ctx.project.getSelectedChapter().setPos(
 						Ctx.project.getSelectedActor(),
 						new Vector2(selActor.getX(), selActor.getY()));
@@ -323,6 +328,7 @@ public class ScnWidgetInputListener extends ClickListener {
 				verts[vertIndex] += d.x;
 				verts[vertIndex + 1] += d.y;
 				poly.dirty();
+				scn.actorBBoxChanged(selActor);
 
 				Ctx.project.getSelectedChapter().setBbox(
 						Ctx.project.getSelectedActor(), poly);
@@ -333,6 +339,7 @@ public class ScnWidgetInputListener extends ClickListener {
 				verts[vertIndex] += d.x;
 				verts[vertIndex + 1] += d.y;
 				poly.dirty();
+				scn.getPolygonalNavGraph().invalidateStaticGraph();
 
 				Ctx.project.getSelectedChapter().setWalkZonePolygon(
 						Ctx.project.getSelectedScene(), poly);
@@ -341,18 +348,21 @@ public class ScnWidgetInputListener extends ClickListener {
 				verts[vertIndex] += d.x;
 				verts[vertIndex + 1] += d.y;
 				selPolygon.dirty();
+				scn.getPolygonalNavGraph().invalidateStaticGraph();
 
 				Ctx.project.getSelectedChapter().setObstaclePolygon(
 						Ctx.project.getSelectedScene(), selObstacleIndex,
 						selPolygon);
 			} else if (draggingMode == DraggingModes.DRAGING_OBSTACLE) {
 				selPolygon.translate(d.x, d.y);
+				scn.getPolygonalNavGraph().invalidateStaticGraph();
 				Ctx.project.getSelectedChapter().setObstaclePolygon(
 						Ctx.project.getSelectedScene(), selObstacleIndex,
 						selPolygon);
 			} else if (draggingMode == DraggingModes.DRAGING_WALKZONE) {
 				Polygon poly = scn.getPolygonalNavGraph().getWalkZone();
 				poly.translate(d.x, d.y);
+				scn.getPolygonalNavGraph().invalidateStaticGraph();
 				Ctx.project.getSelectedChapter().setWalkZonePolygon(
 						Ctx.project.getSelectedScene(), poly);
 			}
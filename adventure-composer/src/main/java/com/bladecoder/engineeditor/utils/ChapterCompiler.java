@@ -0,0 +1,243 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engineeditor.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.math.Polygon;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.math.Vector3;
+import com.bladecoder.engine.actions.ActionFactory;
+import com.bladecoder.engine.actions.Param;
+import com.bladecoder.engine.loader.ChapterBinaryLoader;
+
+/**
+ * Compiles a .chapter XML to the binary format loaded by
+ * {@link ChapterBinaryLoader}.
+ *
+ * Polygons and vectors are stored parsed, the action names are resolved to
+ * their classes and all the strings are stored only once.
+ *
+ * @author rgarcia
+ */
+public class ChapterCompiler {
+	private final static String[] POLYGON_ATTRS = { "bbox", "polygon" };
+	private final static String[] VECTOR2_ATTRS = { "pos", "depth_vector", "sprite_size", "inD", "outD" };
+	private final static String[] VECTOR3_ATTRS = { "cam_pos", "cam_rot" };
+
+	private final HashMap<String, Integer> stringIndex = new HashMap<String, Integer>();
+	private final List<String> strings = new ArrayList<String>();
+
+	public static void compile(File xmlFile, File binFile) throws ParserConfigurationException, SAXException,
+			IOException {
+		Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(xmlFile);
+
+		compile(doc, xmlFile, binFile);
+	}
+
+	/**
+	 * @param doc
+	 *            The chapter document
+	 * @param xmlFile
+	 *            The saved XML file. Its size, modification time and
+	 *            checksum are used in runtime to detect if the binary file is
+	 *            stale.
+	 * @param binFile
+	 *            The output file
+	 */
+	public static void compile(Document doc, File xmlFile, File binFile) throws IOException {
+		long sourceChecksum = ChapterBinaryLoader.checksum(new FileHandle(xmlFile));
+
+		new ChapterCompiler().write(doc, xmlFile.length(), xmlFile.lastModified(), sourceChecksum, binFile);
+	}
+
+	private void write(Document doc, long sourceLength, long sourceLastModified, long sourceChecksum, File binFile)
+			throws IOException {
+		// The body is written first to collect the strings table
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		DataOutputStream bodyOut = new DataOutputStream(body);
+
+		writeElement(bodyOut, doc.getDocumentElement(), false);
+		bodyOut.close();
+
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(binFile)));
+
+		try {
+			out.writeInt(ChapterBinaryLoader.MAGIC);
+			out.writeInt(ChapterBinaryLoader.VERSION);
+			out.writeLong(sourceLength);
+			out.writeLong(sourceLastModified);
+			out.writeLong(sourceChecksum);
+
+			writeVarInt(out, strings.size());
+
+			for (String s : strings)
+				out.writeUTF(s);
+
+			body.writeTo(out);
+		} finally {
+			out.close();
+		}
+	}
+
+	private void writeElement(DataOutputStream out, Element e, boolean insideVerb) throws IOException {
+		String tag = e.getTagName();
+		boolean isAction = insideVerb && tag.equals("action");
+
+		writeVarInt(out, intern(tag));
+
+		NamedNodeMap attrs = e.getAttributes();
+		boolean hasClass = isAction && e.hasAttribute("class");
+
+		writeVarInt(out, attrs.getLength());
+
+		for (int i = 0; i < attrs.getLength(); i++) {
+			Attr a = (Attr) attrs.item(i);
+			String name = a.getName();
+			String value = a.getValue();
+
+			if (isAction) {
+				if (name.equals("class")) {
+					writeClass(out, name, value);
+					continue;
+				} else if (name.equals("action_name") && !hasClass) {
+					String className = ActionFactory.getClassName(value);
+
+					if (className != null) {
+						writeClass(out, "class", className);
+						continue;
+					}
+				}
+			} else if (!insideVerb) {
+				float[] f = parseFloats(name, value);
+
+				if (f != null) {
+					writeVarInt(out, intern(name));
+					out.writeByte(ChapterBinaryLoader.TYPE_FLOATS);
+					writeVarInt(out, f.length);
+
+					for (float v : f)
+						out.writeFloat(v);
+
+					continue;
+				}
+			}
+
+			writeVarInt(out, intern(name));
+			out.writeByte(ChapterBinaryLoader.TYPE_STRING);
+			writeVarInt(out, intern(value));
+		}
+
+		NodeList nodes = e.getChildNodes();
+		ArrayList<Element> children = new ArrayList<Element>();
+
+		for (int i = 0; i < nodes.getLength(); i++) {
+			Node n = nodes.item(i);
+
+			if (n.getNodeType() == Node.ELEMENT_NODE)
+				children.add((Element) n);
+		}
+
+		writeVarInt(out, children.size());
+
+		for (Element c : children)
+			writeElement(out, c, insideVerb || tag.equals("verb"));
+	}
+
+	private void writeClass(DataOutputStream out, String name, String className) throws IOException {
+		writeVarInt(out, intern(name));
+		out.writeByte(ChapterBinaryLoader.TYPE_CLASS);
+		writeVarInt(out, intern(className));
+	}
+
+	/**
+	 * Parses the attribute the same way that the XML loader does. Returns null
+	 * if the attribute is not a polygon or vector or if it is malformed. In
+	 * that case it is stored as string and the loader will report the error.
+	 */
+	private static float[] parseFloats(String name, String value) {
+		try {
+			for (String a : POLYGON_ATTRS) {
+				if (a.equals(name)) {
+					Polygon p = Param.parsePolygon(value);
+
+					return p == null ? null : p.getVertices();
+				}
+			}
+
+			for (String a : VECTOR2_ATTRS) {
+				if (a.equals(name)) {
+					Vector2 v = Param.parseVector2(value);
+
+					return v == null ? null : new float[] { v.x, v.y };
+				}
+			}
+
+			for (String a : VECTOR3_ATTRS) {
+				if (a.equals(name)) {
+					Vector3 v = Param.parseVector3(value);
+
+					return v == null ? null : new float[] { v.x, v.y, v.z };
+				}
+			}
+		} catch (RuntimeException e) {
+			return null;
+		}
+
+		return null;
+	}
+
+	private int intern(String s) {
+		Integer i = stringIndex.get(s);
+
+		if (i == null) {
+			i = strings.size();
+			strings.add(s);
+			stringIndex.put(s, i);
+		}
+
+		return i;
+	}
+
+	private static void writeVarInt(DataOutputStream out, int v) throws IOException {
+		while ((v & ~0x7f) != 0) {
+			out.writeByte((v & 0x7f) | 0x80);
+			v >>>= 7;
+		}
+
+		out.writeByte(v);
+	}
+}
@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engineeditor.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.lwjgl.LwjglFiles;
+import com.badlogic.gdx.files.FileHandle;
+import com.bladecoder.engine.loader.ChapterBinaryLoader;
+import com.bladecoder.engine.loader.ChapterXMLLoader;
+
+/**
+ * Compares the time and allocations needed to load a chapter in XML and in
+ * the compiled binary format. Both create the model with ChapterXMLLoader and
+ * the binary load includes the check of the source file.
+ *
+ * Usage: ChapterLoadBenchmark file.chapter [runs]
+ *
+ * @author rgarcia
+ */
+public class ChapterLoadBenchmark {
+	public static void main(String[] args) throws Exception {
+		if (args.length < 1) {
+			System.out.println("Usage: ChapterLoadBenchmark file.chapter [runs]");
+			return;
+		}
+
+		Gdx.files = new LwjglFiles();
+
+		File xml = new File(args[0]);
+		File bin = File.createTempFile("chapter", ChapterBinaryLoader.EXT);
+		bin.deleteOnExit();
+
+		int runs = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+		ChapterCompiler.compile(xml, bin);
+
+		System.out.println("XML: " + xml.length() + " bytes, binary: " + bin.length() + " bytes");
+
+		// warm up
+		run(xml, xml, false, runs);
+		run(bin, xml, true, runs);
+
+		report("XML", xml, xml, false, runs);
+		report("Binary", bin, xml, true, runs);
+	}
+
+	private static void report(String name, File f, File xml, boolean binary, int runs) throws Exception {
+		long bytes = allocatedBytes();
+		long start = System.nanoTime();
+
+		int scenes = run(f, xml, binary, runs);
+
+		long time = System.nanoTime() - start;
+		bytes = allocatedBytes() - bytes;
+
+		System.out.println(name + ": " + (time / runs / 1000) + " us/load, " + (bytes / runs) + " bytes/load, "
+				+ scenes + " scenes");
+	}
+
+	private static int run(File f, File xml, boolean binary, int runs) throws Exception {
+		SAXParserFactory spf = SAXParserFactory.newInstance();
+		spf.setNamespaceAware(true);
+		SAXParser parser = spf.newSAXParser();
+
+		FileHandle xmlFile = new FileHandle(xml);
+		ChapterXMLLoader loader = null;
+
+		for (int i = 0; i < runs; i++) {
+			InputStream is = new FileInputStream(f);
+			loader = new ChapterXMLLoader();
+
+			try {
+				if (binary) {
+					if (!ChapterBinaryLoader.load(is, xmlFile, loader))
+						throw new IllegalStateException("Binary chapter is stale");
+				} else {
+					parser.parse(is, loader);
+				}
+			} finally {
+				is.close();
+			}
+		}
+
+		return loader.getScenes().size();
+	}
+
+	private static long allocatedBytes() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+		if (bean instanceof com.sun.management.ThreadMXBean)
+			return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+
+		return 0;
+	}
+}
@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.parsers.SAXParserFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import com.bladecoder.engine.assets.EngineAssetManager;
+import com.bladecoder.engine.loader.ChapterXMLLoader;
+import com.bladecoder.engine.model.Scene;
+
+/**
+ * Parsing of a chapter XML in memory: the scenes, actors, verbs and actions
+ * are created, the assets are not loaded.
+ *
+ * @author rgarcia
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ChapterLoaderBenchmark {
+	private static final String CHAPTER = "bench";
+
+	@Param({ "10", "50" })
+	public int scenes;
+
+	@Param({ "20" })
+	public int actors;
+
+	private byte[] xml;
+	private SAXParserFactory factory;
+
+	@Setup
+	public void setup() throws Exception {
+		Headless.init();
+
+		// The loader takes the scale from the asset manager
+		File project = Synthetic.project(CHAPTER, 1, 1);
+		EngineAssetManager.createEditInstance(project.getAbsolutePath(), (int) Synthetic.WIDTH,
+				(int) Synthetic.HEIGHT);
+
+		xml = Synthetic.chapterXML(CHAPTER, scenes, actors).getBytes("UTF-8");
+
+		factory = SAXParserFactory.newInstance();
+		factory.setNamespaceAware(true);
+	}
+
+	@Benchmark
+	public List<Scene> parse() throws Exception {
+		ChapterXMLLoader parser = new ChapterXMLLoader();
+
+		XMLReader xmlReader = factory.newSAXParser().getXMLReader();
+		xmlReader.setContentHandler(parser);
+		xmlReader.parse(new InputSource(new ByteArrayInputStream(xml)));
+
+		return parser.getScenes();
+	}
+}
@@ -0,0 +1,49 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.benchmarks;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.bladecoder.engine.headless.NullGL20;
+
+/**
+ * Starts libGDX without window and GPU. Needed by the benchmarks that use
+ * Gdx.files, the asset manager or the native matrix operations.
+ *
+ * @author rgarcia
+ */
+public class Headless {
+	private static boolean started = false;
+
+	public static synchronized void init() {
+		if (started)
+			return;
+
+		HeadlessApplicationConfiguration cfg = new HeadlessApplicationConfiguration();
+
+		// Nothing is rendered, the application loop is only kept alive
+		cfg.renderInterval = 1;
+
+		new HeadlessApplication(new ApplicationAdapter() {
+		}, cfg);
+
+		Gdx.gl = Gdx.gl20 = NullGL20.create();
+
+		started = true;
+	}
+}
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.benchmarks;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.badlogic.gdx.math.Polygon;
+import com.badlogic.gdx.math.Vector2;
+import com.bladecoder.engine.polygonalpathfinder.PolygonalNavGraph;
+
+/**
+ * Walking paths in a walk zone with obstacles: the A* search over the
+ * visibility graph and the creation of the graph when entering the scene or
+ * when a dynamic obstacle moves.
+ *
+ * @author rgarcia
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class PathFinderBenchmark {
+	private static final int NUM_POINTS = 256;
+
+	@Param({ "10", "60", "200" })
+	public int obstacles;
+
+	private PolygonalNavGraph graph;
+	private float[] points;
+	private int next;
+
+	private final ArrayList<Vector2> path = new ArrayList<Vector2>();
+	private final Polygon dynamicObstacle = new Polygon(new float[] { -20, -20, -20, 20, 20, 20, 20, -20 });
+
+	@Setup
+	public void setup() {
+		graph = Synthetic.navGraph(obstacles);
+		graph.createInitialGraph();
+		points = Synthetic.walkablePoints(graph, NUM_POINTS, 42);
+		next = 0;
+	}
+
+	@Benchmark
+	public ArrayList<Vector2> findPath() {
+		int i = next;
+		next = (next + 2) % NUM_POINTS;
+
+		graph.findPath(points[i * 2], points[i * 2 + 1], points[i * 2 + 2], points[i * 2 + 3], path);
+
+		return path;
+	}
+
+	@Benchmark
+	public PolygonalNavGraph createInitialGraph() {
+		graph.createInitialGraph();
+
+		return graph;
+	}
+
+	@Benchmark
+	public PolygonalNavGraph moveDynamicObstacle() {
+		int i = next;
+		next = (next + 1) % NUM_POINTS;
+
+		graph.removeDinamicObstacle(dynamicObstacle);
+		dynamicObstacle.setPosition(points[i * 2], points[i * 2 + 1]);
+		graph.addDinamicObstacle(dynamicObstacle);
+
+		return graph;
+	}
+}
@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.badlogic.gdx.math.Polygon;
+import com.badlogic.gdx.math.Vector2;
+import com.bladecoder.engine.util.PolygonUtils;
+
+/**
+ * The polygon tests used by the path finder and the hit testing with walk
+ * zones of different number of vertices.
+ *
+ * @author rgarcia
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class PolygonUtilsBenchmark {
+	private static final int NUM_POINTS = 1024;
+
+	@Param({ "8", "64", "512" })
+	public int vertices;
+
+	private Polygon polygon;
+	private Vector2[] points;
+	private int next;
+
+	@Setup
+	public void setup() {
+		polygon = Synthetic.polygon(vertices, 42);
+		points = new Vector2[NUM_POINTS];
+
+		Random rnd = new Random(42);
+
+		for (int i = 0; i < NUM_POINTS; i++)
+			points[i] = new Vector2(rnd.nextFloat() * Synthetic.WIDTH, rnd.nextFloat() * Synthetic.HEIGHT);
+
+		next = 0;
+	}
+
+	@Benchmark
+	public boolean isPointInside() {
+		Vector2 p = points[next];
+		next = (next + 1) % NUM_POINTS;
+
+		return PolygonUtils.isPointInside(polygon, p.x, p.y, true);
+	}
+
+	@Benchmark
+	public boolean inLineOfSight() {
+		Vector2 p1 = points[next];
+		Vector2 p2 = points[(next + 1) % NUM_POINTS];
+		next = (next + 2) % NUM_POINTS;
+
+		return PolygonUtils.inLineOfSight(p1, p2, polygon, false);
+	}
+}
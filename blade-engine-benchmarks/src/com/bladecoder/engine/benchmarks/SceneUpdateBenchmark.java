@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bladecoder.engine.model.BaseActor;
+import com.bladecoder.engine.model.Scene;
+
+/**
+ * A scene frame: some actors move, like walking characters, and the scene is
+ * updated. The moved actors are sorted again by depth in the update.
+ *
+ * @author rgarcia
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class SceneUpdateBenchmark {
+	private static final float DELTA = 1 / 60f;
+
+	@Param({ "50", "500", "5000" })
+	public int actors;
+
+	/** Fraction of actors moving every frame */
+	@Param({ "0.05" })
+	public float moving;
+
+	private Scene scene;
+	private BaseActor[] list;
+	private Random rnd;
+	private int numMoving;
+
+	@Setup
+	public void setup() {
+		// The scene camera uses the native matrix operations
+		Headless.init();
+
+		scene = Synthetic.scene(actors, 42);
+		list = new ArrayList<BaseActor>(scene.getActors().values()).toArray(new BaseActor[actors]);
+		rnd = new Random(42);
+		numMoving = Math.max(1, (int) (actors * moving));
+
+		scene.update(DELTA);
+	}
+
+	@Benchmark
+	public Scene update() {
+		for (int i = 0; i < numMoving; i++) {
+			BaseActor a = list[rnd.nextInt(actors)];
+			a.setPosition(a.getX(), a.getY() + rnd.nextFloat() * 4 - 2);
+		}
+
+		scene.update(DELTA);
+
+		return scene;
+	}
+}
@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.benchmarks;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.bladecoder.engine.anim.AnimationDesc;
+import com.bladecoder.engine.anim.Tween;
+import com.bladecoder.engine.assets.AssetLeaseService;
+import com.bladecoder.engine.assets.EngineAssetManager;
+import com.bladecoder.engine.spine.SpineRenderer;
+import com.esotericsoftware.spine.AnimationState;
+import com.esotericsoftware.spine.AnimationStateData;
+import com.esotericsoftware.spine.Skeleton;
+import com.esotericsoftware.spine.SkeletonBinary;
+import com.esotericsoftware.spine.SkeletonData;
+
+/**
+ * Loading of a scene with N actors using the same Spine skeleton, from the
+ * load of the assets to the first animation. The assets are unloaded after
+ * every invocation.
+ *
+ * sharedSkeleton: the SpineRenderer, the SkeletonData is loaded once by the
+ * asset manager and shared by all the actors.
+ *
+ * skeletonPerActor: the previous SpineRenderer loading, every actor parses
+ * the .skel with the shared atlas.
+ *
+ * Use -prof gc to compare the allocations.
+ *
+ * @author rgarcia
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class SpineLoadBenchmark {
+	private static final String SOURCE = "character";
+
+	@Param({ "1", "10", "50" })
+	public int actors;
+
+	@Param({ "40" })
+	public int bones;
+
+	@Param({ "15" })
+	public int frames;
+
+	@Setup
+	public void setup() throws Exception {
+		Headless.init();
+
+		File project = File.createTempFile("blade", "bench");
+		project.delete();
+		Synthetic.spine(project, SOURCE, bones, frames);
+
+		// Grace time 0: the released assets are unloaded at once
+		EngineAssetManager.createEditInstance(project.getAbsolutePath(), (int) Synthetic.WIDTH,
+				(int) Synthetic.HEIGHT);
+	}
+
+	@Benchmark
+	public SpineRenderer[] sharedSkeleton() {
+		SpineRenderer[] renderers = new SpineRenderer[actors];
+
+		for (int i = 0; i < actors; i++) {
+			AnimationDesc fa = new AnimationDesc();
+			fa.set(Synthetic.ANIMATIONS[i % Synthetic.ANIMATIONS.length], SOURCE, 1, 0, -1, Tween.REPEAT, null,
+					null, null, true, false);
+
+			renderers[i] = new SpineRenderer();
+			renderers[i].addAnimation(fa);
+			renderers[i].loadAssets();
+		}
+
+		EngineAssetManager.getInstance().finishLoading();
+
+		for (SpineRenderer r : renderers)
+			r.retrieveAssets();
+
+		for (SpineRenderer r : renderers)
+			r.dispose();
+
+		return renderers;
+	}
+
+	@Benchmark
+	public AnimationState[] skeletonPerActor() {
+		AnimationState[] states = new AnimationState[actors];
+		EngineAssetManager am = EngineAssetManager.getInstance();
+
+		AssetLeaseService.getInstance().acquireAtlas(SOURCE);
+		am.finishLoading();
+
+		TextureAtlas atlas = am.getTextureAtlas(SOURCE);
+
+		for (int i = 0; i < actors; i++) {
+			SkeletonBinary skel = new SkeletonBinary(atlas);
+			skel.setScale(am.getScale());
+			SkeletonData skeletonData = skel.readSkeletonData(am.getSpine(SOURCE));
+
+			Skeleton skeleton = new Skeleton(skeletonData);
+			states[i] = new AnimationState(new AnimationStateData(skeletonData));
+			states[i].setAnimation(0, Synthetic.ANIMATIONS[i % Synthetic.ANIMATIONS.length], true);
+			states[i].apply(skeleton);
+			skeleton.updateWorldTransform();
+		}
+
+		AssetLeaseService.getInstance().releaseAtlas(SOURCE);
+
+		return states;
+	}
+}
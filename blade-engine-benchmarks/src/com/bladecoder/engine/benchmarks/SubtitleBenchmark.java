@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.BitmapFont.HAlignment;
+import com.badlogic.gdx.graphics.g2d.BitmapFontCache;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+
+/**
+ * The subtitle drawing of a frame: wrapping and drawing the text every frame
+ * like the TextManagerUI did, against drawing the cached glyphs laid out
+ * when the subtitle changes. 'layout' is the cost paid once per subtitle.
+ *
+ * @author rgarcia
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class SubtitleBenchmark {
+	private static final float WRAP_WIDTH = 600;
+
+	private static final String SENTENCE = "I have been walking for days through this forest and I still "
+			+ "don't know where the [YELLOW]old lighthouse[] is. ";
+
+	/** Sentences of the subtitle, around two lines each */
+	@Param({ "1", "4" })
+	public int sentences;
+
+	private BitmapFont font;
+	private BitmapFontCache cache;
+	private SpriteBatch batch;
+	private String text;
+
+	@Setup
+	public void setup() {
+		Headless.init();
+
+		// The libGDX default font
+		font = new BitmapFont();
+		font.setMarkupEnabled(true);
+		cache = new BitmapFontCache(font, font.usesIntegerPositions());
+		batch = new SpriteBatch();
+
+		StringBuilder sb = new StringBuilder();
+
+		for (int i = 0; i < sentences; i++)
+			sb.append(SENTENCE);
+
+		text = sb.toString();
+
+		layout();
+	}
+
+	@Benchmark
+	public float drawWrapped() {
+		batch.begin();
+		float h = font.drawWrapped(batch, text, 100, 300, WRAP_WIDTH, HAlignment.CENTER).height;
+		batch.end();
+
+		return h;
+	}
+
+	@Benchmark
+	public BitmapFontCache drawCached() {
+		batch.begin();
+		cache.setPosition(100, 0);
+		cache.draw(batch);
+		batch.end();
+
+		return cache;
+	}
+
+	@Benchmark
+	public float layout() {
+		return cache.setWrappedText(text, 0, 300, WRAP_WIDTH, HAlignment.CENTER).height;
+	}
+}
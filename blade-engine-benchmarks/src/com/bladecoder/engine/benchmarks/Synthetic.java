@@ -0,0 +1,473 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.benchmarks;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import com.badlogic.gdx.math.Polygon;
+import com.badlogic.gdx.utils.DataOutput;
+import com.bladecoder.engine.model.BaseActor;
+import com.bladecoder.engine.model.BaseActor.ActorLayer;
+import com.bladecoder.engine.model.Scene;
+import com.bladecoder.engine.polygonalpathfinder.PolygonalNavGraph;
+import com.bladecoder.engine.util.PolygonUtils;
+
+/**
+ * Creates the synthetic scenes and chapters used by the benchmarks. Always
+ * the same content for the same sizes.
+ *
+ * @author rgarcia
+ */
+public class Synthetic {
+	public static final float WIDTH = 1920;
+	public static final float HEIGHT = 1080;
+
+	public static final String[] VERBS = { "lookat", "pickup", "talkto", "use" };
+	public static final String[] ANIMATIONS = { "idle", "talk", "walk.left", "walk.right", "stand.left",
+			"stand.right" };
+
+	/**
+	 * A walk zone with a grid of square obstacles.
+	 */
+	public static PolygonalNavGraph navGraph(int numObstacles) {
+		PolygonalNavGraph graph = new PolygonalNavGraph();
+		graph.setWalkZone(new Polygon(new float[] { 0, 0, WIDTH, 0, WIDTH, HEIGHT, 0, HEIGHT }));
+
+		for (Polygon o : obstacles(numObstacles))
+			graph.addObstacle(o);
+
+		return graph;
+	}
+
+	public static Polygon[] obstacles(int numObstacles) {
+		Polygon[] obstacles = new Polygon[numObstacles];
+
+		int cols = (int) Math.ceil(Math.sqrt(numObstacles * WIDTH / HEIGHT));
+		float cellW = WIDTH / (cols + 1);
+		float cellH = HEIGHT / ((numObstacles + cols - 1) / cols + 1);
+		float h = Math.min(cellW, cellH) * 0.2f;
+
+		for (int i = 0; i < numObstacles; i++) {
+			// Clockwise, so every vertex is a graph node
+			Polygon p = new Polygon(new float[] { -h, -h, -h, h, h, h, h, -h });
+			p.setPosition(cellW * (i % cols + 1), cellH * (i / cols + 1));
+			obstacles[i] = p;
+		}
+
+		return obstacles;
+	}
+
+	/**
+	 * Random points inside the walk zone and outside the obstacles, as x, y
+	 * pairs.
+	 */
+	public static float[] walkablePoints(PolygonalNavGraph graph, int num, long seed) {
+		Random rnd = new Random(seed);
+		float[] points = new float[num * 2];
+
+		for (int i = 0; i < num;) {
+			float x = rnd.nextFloat() * WIDTH;
+			float y = rnd.nextFloat() * HEIGHT;
+
+			if (!PolygonUtils.isPointInside(graph.getWalkZone(), x, y, false))
+				continue;
+
+			boolean inObstacle = false;
+
+			for (Polygon o : graph.getObstacles())
+				inObstacle |= o.contains(x, y);
+
+			if (!inObstacle) {
+				points[i * 2] = x;
+				points[i * 2 + 1] = y;
+				i++;
+			}
+		}
+
+		return points;
+	}
+
+	/**
+	 * An irregular star shaped polygon centered in the screen, like a walk
+	 * zone drawn by hand.
+	 */
+	public static Polygon polygon(int numVertices, long seed) {
+		Random rnd = new Random(seed);
+		float[] verts = new float[numVertices * 2];
+		float r = HEIGHT / 2;
+
+		for (int i = 0; i < numVertices; i++) {
+			double angle = Math.PI * 2 * i / numVertices;
+			float d = r * (0.6f + rnd.nextFloat() * 0.4f);
+
+			verts[i * 2] = WIDTH / 2 + (float) Math.cos(angle) * d;
+			verts[i * 2 + 1] = HEIGHT / 2 + (float) Math.sin(angle) * d;
+		}
+
+		return new Polygon(verts);
+	}
+
+	/**
+	 * A scene with dynamic actors in random positions.
+	 */
+	public static Scene scene(int numActors, long seed) {
+		Random rnd = new Random(seed);
+		Scene scene = new Scene();
+		scene.setId("scene");
+		scene.resetCamera(WIDTH, HEIGHT);
+
+		for (int i = 0; i < numActors; i++) {
+			BaseActor a = new BaseActor();
+			a.setId("actor" + i);
+			a.setLayer(ActorLayer.DYNAMIC);
+
+			Polygon bbox = new Polygon(new float[] { 0, 0, 0, 100, 50, 100, 50, 0 });
+			a.setBbox(bbox);
+			a.setPosition(rnd.nextFloat() * WIDTH, rnd.nextFloat() * HEIGHT);
+
+			scene.addActor(a);
+		}
+
+		return scene;
+	}
+
+	/**
+	 * A chapter in XML with atlas actors, walk zones, obstacles, verbs and
+	 * dialogs. The scenes are connected by 'leave' verbs.
+	 */
+	public static String chapterXML(String id, int numScenes, int numActors) {
+		Random rnd = new Random(1);
+		StringBuilder sb = new StringBuilder();
+
+		sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n");
+		sb.append("<chapter id=\"").append(id).append("\" init_scene=\"scene0\">\n");
+
+		for (int s = 0; s < numScenes; s++) {
+			sb.append("<scene id=\"scene").append(s).append("\" player=\"actor0\">\n");
+
+			sb.append("\t<walk_zone polygon=\"0,0,").append(WIDTH).append(",0,").append(WIDTH).append(',')
+					.append(HEIGHT / 2).append(",0,").append(HEIGHT / 2).append("\" pos=\"0,0\"/>\n");
+
+			for (Polygon o : obstacles(4)) {
+				float[] v = o.getVertices();
+				sb.append("\t<obstacle polygon=\"");
+
+				for (int i = 0; i < v.length; i++)
+					sb.append(i == 0 ? "" : ",").append(v[i]);
+
+				sb.append("\" pos=\"").append(o.getX()).append(',').append(o.getY() / 2).append("\"/>\n");
+			}
+
+			sb.append("\t<verb id=\"init\">\n");
+			action(sb, "SetState", "state", "visited");
+			sb.append("\t</verb>\n");
+
+			for (int a = 0; a < numActors; a++) {
+				String actorId = "actor" + a;
+
+				sb.append("\t<actor id=\"").append(actorId).append("\" type=\"atlas\" layer=\"dynamic\" desc=\"")
+						.append("The actor number ").append(a).append("\" pos=\"")
+						.append((int) (rnd.nextFloat() * WIDTH)).append(',')
+						.append((int) (rnd.nextFloat() * HEIGHT / 2))
+						.append("\" init_animation=\"idle\" walking_speed=\"700\">\n");
+
+				for (String anim : ANIMATIONS) {
+					sb.append("\t\t<animation id=\"").append(anim).append("\" source=\"atlas").append(s)
+							.append("\" speed=\"0.5\"/>\n");
+				}
+
+				for (String v : VERBS) {
+					sb.append("\t\t<verb id=\"").append(v).append("\">\n");
+					int numActions = 2 + rnd.nextInt(6);
+
+					for (int i = 0; i < numActions; i++) {
+						switch (i % 3) {
+						case 0:
+							action(sb, "Say", "text", "This is the text number " + i + " of the verb " + v);
+							break;
+						case 1:
+							action(sb, "SetState", "state", "state" + i);
+							break;
+						default:
+							action(sb, "Wait", "time", "1.5");
+							break;
+						}
+					}
+
+					sb.append("\t\t</verb>\n");
+				}
+
+				if (a == numActors - 1) {
+					sb.append("\t\t<verb id=\"leave\">\n");
+					action(sb, "Leave", "scene", "scene" + ((s + 1) % numScenes));
+					sb.append("\t\t</verb>\n");
+				}
+
+				if (a % 5 == 0) {
+					sb.append("\t\t<dialog id=\"dialog\">\n");
+
+					for (int i = 0; i < 4; i++) {
+						sb.append("\t\t\t<option text=\"Option ").append(i).append("\" response_text=\"Response ")
+								.append(i).append("\">\n");
+
+						for (int j = 0; j < 3; j++)
+							sb.append("\t\t\t\t<option text=\"Option ").append(i).append('.').append(j)
+									.append("\"/>\n");
+
+						sb.append("\t\t\t</option>\n");
+					}
+
+					sb.append("\t\t</dialog>\n");
+				}
+
+				sb.append("\t</actor>\n");
+			}
+
+			sb.append("</scene>\n");
+		}
+
+		sb.append("</chapter>\n");
+
+		return sb.toString();
+	}
+
+	/**
+	 * Writes a game project with the world and one synthetic chapter in a
+	 * temporary folder. The folder is deleted on exit.
+	 *
+	 * @return The project assets folder.
+	 */
+	public static File project(String chapter, int numScenes, int numActors) throws IOException {
+		File dir = File.createTempFile("blade", "bench");
+		dir.delete();
+
+		File model = new File(dir, "model");
+		model.mkdirs();
+
+		write(new File(model, "world.xml"), "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n"
+				+ "<world width=\"" + (int) WIDTH + "\" height=\"" + (int) HEIGHT + "\" init_chapter=\"" + chapter
+				+ "\">\n</world>\n");
+		write(new File(model, chapter + ".chapter"), chapterXML(chapter, numScenes, numActors));
+
+		// Empty translations to avoid the bundle not found errors
+		write(new File(model, "world.properties"), "");
+		write(new File(model, chapter + ".properties"), "");
+
+		dir.deleteOnExit();
+		model.deleteOnExit();
+
+		for (File f : model.listFiles())
+			f.deleteOnExit();
+
+		return dir;
+	}
+
+	/**
+	 * Writes a Spine skeleton in binary format and its atlas in the assets
+	 * folder: a chain of bones with one region attachment each and the
+	 * ANIMATIONS with rotate and translate keys for every bone.
+	 *
+	 * The files are deleted on exit.
+	 */
+	public static void spine(File dir, String name, int numBones, int numFrames) throws IOException {
+		final int numRegions = 16;
+
+		File spine = new File(dir, "spine");
+		File atlases = new File(dir, "atlases/1");
+		spine.mkdirs();
+		atlases.mkdirs();
+
+		// The asset manager takes the resolutions from the backgrounds folder
+		File backgrounds = new File(dir, "backgrounds/1");
+		backgrounds.mkdirs();
+
+		// Atlas with a 4x4 grid of regions
+		ImageIO.write(new BufferedImage(64, 64, BufferedImage.TYPE_INT_ARGB), "png", new File(atlases, name + ".png"));
+
+		StringBuilder sb = new StringBuilder();
+		sb.append("\n").append(name).append(".png\n");
+		sb.append("size: 64,64\nformat: RGBA8888\nfilter: Linear,Linear\nrepeat: none\n");
+
+		for (int i = 0; i < numRegions; i++) {
+			sb.append("part").append(i).append("\n");
+			sb.append("  rotate: false\n");
+			sb.append("  xy: ").append(i % 4 * 16).append(", ").append(i / 4 * 16).append("\n");
+			sb.append("  size: 16, 16\n  orig: 16, 16\n  offset: 0, 0\n  index: -1\n");
+		}
+
+		write(new File(atlases, name + ".atlas"), sb.toString());
+
+		// Skeleton in the format read by SkeletonBinary
+		Random rnd = new Random(1);
+		DataOutput out = new DataOutput(new FileOutputStream(new File(spine, name + ".skel")));
+
+		try {
+			out.writeString("synthetic");
+			out.writeString("");
+			out.writeFloat(200);
+			out.writeFloat(400);
+			out.writeBoolean(false);
+
+			// Bones
+			out.writeInt(numBones, true);
+
+			for (int i = 0; i < numBones; i++) {
+				out.writeString("bone" + i);
+				out.writeInt(i == 0 ? 0 : (i - 1) / 2 + 1, true);
+				out.writeFloat(rnd.nextFloat() * 20);
+				out.writeFloat(rnd.nextFloat() * 20);
+				out.writeFloat(1);
+				out.writeFloat(1);
+				out.writeFloat(rnd.nextFloat() * 360);
+				out.writeFloat(30);
+				out.writeBoolean(false);
+				out.writeBoolean(false);
+				out.writeBoolean(true);
+				out.writeBoolean(true);
+			}
+
+			// IK constraints
+			out.writeInt(0, true);
+
+			// Slots
+			out.writeInt(numBones, true);
+
+			for (int i = 0; i < numBones; i++) {
+				out.writeString("slot" + i);
+				out.writeInt(i, true);
+				out.writeInt(0xffffffff);
+				out.writeString("part" + i % numRegions);
+				out.writeBoolean(false);
+			}
+
+			// Default skin
+			out.writeInt(numBones, true);
+
+			for (int i = 0; i < numBones; i++) {
+				out.writeInt(i, true);
+				out.writeInt(1, true);
+				out.writeString("part" + i % numRegions);
+				out.writeString(null);
+				out.writeByte(0); // region
+				out.writeString(null);
+				out.writeFloat(0);
+				out.writeFloat(0);
+				out.writeFloat(1);
+				out.writeFloat(1);
+				out.writeFloat(0);
+				out.writeFloat(16);
+				out.writeFloat(16);
+				out.writeInt(0xffffffff);
+			}
+
+			// Skins and events
+			out.writeInt(0, true);
+			out.writeInt(0, true);
+
+			// Animations
+			out.writeInt(ANIMATIONS.length, true);
+
+			for (String a : ANIMATIONS) {
+				out.writeString(a);
+
+				// Slot timelines
+				out.writeInt(0, true);
+
+				// Bone timelines
+				out.writeInt(numBones, true);
+
+				for (int i = 0; i < numBones; i++) {
+					out.writeInt(i, true);
+					out.writeInt(2, true);
+
+					out.writeByte(1); // rotate
+					out.writeInt(numFrames, true);
+
+					for (int f = 0; f < numFrames; f++) {
+						out.writeFloat(f / 30f);
+						out.writeFloat(rnd.nextFloat() * 90 - 45);
+						curve(out, rnd, f, numFrames);
+					}
+
+					out.writeByte(2); // translate
+					out.writeInt(numFrames, true);
+
+					for (int f = 0; f < numFrames; f++) {
+						out.writeFloat(f / 30f);
+						out.writeFloat(rnd.nextFloat() * 10);
+						out.writeFloat(rnd.nextFloat() * 10);
+						curve(out, rnd, f, numFrames);
+					}
+				}
+
+				// IK, FFD, draw order and event timelines
+				out.writeInt(0, true);
+				out.writeInt(0, true);
+				out.writeInt(0, true);
+				out.writeInt(0, true);
+			}
+		} finally {
+			out.close();
+		}
+
+		dir.deleteOnExit();
+		spine.deleteOnExit();
+		atlases.getParentFile().deleteOnExit();
+		atlases.deleteOnExit();
+		backgrounds.getParentFile().deleteOnExit();
+		backgrounds.deleteOnExit();
+
+		for (File f : spine.listFiles())
+			f.deleteOnExit();
+
+		for (File f : atlases.listFiles())
+			f.deleteOnExit();
+	}
+
+	private static void curve(DataOutput out, Random rnd, int frame, int numFrames) throws IOException {
+		if (frame == numFrames - 1)
+			return;
+
+		out.writeByte(2); // bezier
+		out.writeFloat(rnd.nextFloat());
+		out.writeFloat(rnd.nextFloat());
+		out.writeFloat(rnd.nextFloat());
+		out.writeFloat(rnd.nextFloat());
+	}
+
+	private static void write(File f, String s) throws IOException {
+		Writer w = new OutputStreamWriter(new FileOutputStream(f), "UTF-8");
+
+		try {
+			w.write(s);
+		} finally {
+			w.close();
+		}
+	}
+
+	private static void action(StringBuilder sb, String name, String param, String value) {
+		sb.append("\t\t\t<action action_name=\"").append(name).append("\" ").append(param).append("=\"")
+				.append(value).append("\"/>\n");
+	}
+}
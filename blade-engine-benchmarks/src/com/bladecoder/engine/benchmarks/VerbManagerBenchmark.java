@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bladecoder.engine.model.Verb;
+import com.bladecoder.engine.model.VerbManager;
+
+/**
+ * Verb lookups of an actor with verbs by state and target. A quarter of the
+ * lookups are not found, like the verbs taken from the default verbs.
+ *
+ * @author rgarcia
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class VerbManagerBenchmark {
+	private static final int NUM_LOOKUPS = 1024;
+
+	/** Number of states and targets with verbs */
+	@Param({ "2", "10", "50" })
+	public int variants;
+
+	private VerbManager verbs;
+	private String[] ids;
+	private String[] states;
+	private String[] targets;
+	private int next;
+
+	@Setup
+	public void setup() {
+		verbs = new VerbManager();
+
+		for (String id : Synthetic.VERBS) {
+			verbs.addVerb(id, new Verb(id));
+
+			for (int i = 0; i < variants; i++) {
+				String state = "state" + i;
+				String target = "target" + i;
+
+				verbs.addVerb(id + "." + state, new Verb(id + "." + state));
+				verbs.addVerb(id + "." + target, new Verb(id + "." + target));
+				verbs.addVerb(id + "." + target + "." + state, new Verb(id + "." + target + "." + state));
+			}
+		}
+
+		Random rnd = new Random(42);
+		ids = new String[NUM_LOOKUPS];
+		states = new String[NUM_LOOKUPS];
+		targets = new String[NUM_LOOKUPS];
+
+		for (int i = 0; i < NUM_LOOKUPS; i++) {
+			ids[i] = rnd.nextInt(4) == 0 ? "notfound" : Synthetic.VERBS[rnd.nextInt(Synthetic.VERBS.length)];
+
+			if (rnd.nextBoolean())
+				states[i] = "state" + rnd.nextInt(variants * 2);
+
+			if (rnd.nextBoolean())
+				targets[i] = "target" + rnd.nextInt(variants * 2);
+		}
+
+		// Compiled before measuring
+		verbs.getVerb(ids[0], states[0], targets[0]);
+		next = 0;
+	}
+
+	@Benchmark
+	public Verb getVerb() {
+		int i = next;
+		next = (next + 1) % NUM_LOOKUPS;
+
+		return verbs.getVerb(ids[i], states[i], targets[i]);
+	}
+}
@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Json;
+import com.bladecoder.engine.assets.EngineAssetManager;
+import com.bladecoder.engine.model.BaseActor;
+import com.bladecoder.engine.model.Dialog;
+import com.bladecoder.engine.model.DialogOption;
+import com.bladecoder.engine.model.Scene;
+import com.bladecoder.engine.model.SpriteActor;
+import com.bladecoder.engine.model.World;
+
+/**
+ * Saving and loading the game: the binary state saved games and the full
+ * JSON saved games of previous versions. The load includes loading the
+ * chapter, the assets are not loaded.
+ *
+ * A synthetic chapter is loaded and played before saving: actors moved to
+ * other scenes and to the inventory, states, dialog options...
+ *
+ * @author rgarcia
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class WorldSerializationBenchmark {
+	private static final String CHAPTER = "bench";
+
+	@Param({ "10", "40" })
+	public int scenes;
+
+	@Param({ "20" })
+	public int actors;
+
+	private World world;
+	private FileHandle stateFile;
+	private FileHandle jsonFile;
+
+	@Setup
+	public void setup() throws IOException {
+		Headless.init();
+
+		File project = Synthetic.project(CHAPTER, scenes, actors);
+		EngineAssetManager.createEditInstance(project.getAbsolutePath(), (int) Synthetic.WIDTH,
+				(int) Synthetic.HEIGHT);
+
+		world = World.getInstance();
+		world.loadXMLWorld();
+		world.setAsyncLoading(false);
+		world.loadXMLChapter(CHAPTER);
+
+		play(new Random(42));
+
+		stateFile = Gdx.files.absolute(new File(project, "gamestate.bin").getAbsolutePath());
+		jsonFile = Gdx.files.absolute(new File(project, "gamestate.json").getAbsolutePath());
+		stateFile.file().deleteOnExit();
+		jsonFile.file().deleteOnExit();
+
+		world.writeGameState(new FileOutputStream(stateFile.file()));
+		jsonFile.writeString(new Json().toJson(world, World.class), false, "UTF-8");
+	}
+
+	@Benchmark
+	public int saveState() throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream(64 * 1024);
+		world.writeGameState(os);
+
+		return os.size();
+	}
+
+	@Benchmark
+	public String saveJson() {
+		return new Json().toJson(world, World.class);
+	}
+
+	@Benchmark
+	public World loadState() {
+		world.loadGameState(stateFile);
+
+		return world;
+	}
+
+	@Benchmark
+	public World loadJson() {
+		world.loadGameState(jsonFile);
+
+		return world;
+	}
+
+	/**
+	 * Changes the runtime state like a player would do.
+	 */
+	private void play(Random rnd) {
+		ArrayList<Scene> list = new ArrayList<Scene>(world.getScenes().values());
+
+		for (Scene s : list) {
+			s.setState("visited");
+
+			for (BaseActor a : new ArrayList<BaseActor>(s.getActors().values())) {
+				a.setPosition(rnd.nextFloat() * Synthetic.WIDTH, rnd.nextFloat() * Synthetic.HEIGHT / 2);
+
+				switch (rnd.nextInt(10)) {
+				case 0:
+					a.setVisible(false);
+					break;
+				case 1:
+					a.setState("open");
+					a.setCustomProperty("times", String.valueOf(rnd.nextInt(5)));
+					break;
+				case 2:
+					Scene to = list.get(rnd.nextInt(list.size()));
+
+					if (to.getActor(a.getId(), false) == null && s.getPlayer() != a) {
+						s.removeActor(a);
+						to.addActor(a);
+					}
+					break;
+				case 3:
+					if (s.getPlayer() != a) {
+						s.removeActor(a);
+						world.getInventory().addItem((SpriteActor) a);
+					}
+					break;
+				}
+
+				// Only every 5th actor has dialog
+				if (Integer.parseInt(a.getId().substring("actor".length())) % 5 == 0) {
+					Dialog d = a.getDialog("dialog");
+					ArrayList<DialogOption> options = d.getVisibleOptions();
+
+					if (options.size() > 1)
+						options.get(rnd.nextInt(options.size())).setVisible(false);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,352 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.headless;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.Json;
+import com.bladecoder.engine.assets.EngineAssetManager;
+import com.bladecoder.engine.model.Scene;
+import com.bladecoder.engine.model.World;
+import com.bladecoder.engine.model.World.AssetState;
+import com.bladecoder.engine.ui.Recorder;
+import com.bladecoder.engine.util.BinaryJsonWriter;
+import com.bladecoder.engine.util.EngineLogger;
+import com.bladecoder.engine.util.SerializationHelper;
+import com.bladecoder.engine.util.SerializationHelper.Mode;
+
+/**
+ * Plays a recorded session without window and GPU and as fast as possible.
+ *
+ * The world is updated with a fixed step and a simulated clock, nothing is
+ * drawn and the assets are loaded synchronously. When the recording finishes,
+ * the time, in game and in the wall clock, taken by every verb and the hashes
+ * of the final world state are reported. The same recording must give the
+ * same hashes, so the scripts of a game can be tested in a CI machine.
+ *
+ * The runner must be launched from the assets folder of the game. The
+ * recordings are searched in the user folder and in the 'tests' folder like
+ * in the desktop game.
+ *
+ * Exit codes: 0 OK, 1 timeout or error, 2 the state hash is not the expected.
+ *
+ * @author rgarcia
+ */
+public class HeadlessRunner extends ApplicationAdapter {
+	private static final int EXIT_OK = 0;
+	private static final int EXIT_ERROR = 1;
+	private static final int EXIT_HASH = 2;
+
+	private String recordName;
+	private String chapter;
+	private String forceRes;
+	private boolean debug = false;
+
+	private int stepsPerSecond = 60;
+	private long seed = 0;
+
+	/** Max. game time in seconds */
+	private float timeout = 3600;
+
+	/** Game time in seconds to keep updating the world after the last verb */
+	private float settleTime = 5;
+
+	private String expectedHash;
+
+	private int exitCode = EXIT_OK;
+
+	public void parseParams(String[] args) {
+		for (int i = 0; i < args.length; i++) {
+			String s = args[i];
+			if (s.equals("-p")) {
+				if (i + 1 < args.length) {
+					i++;
+					recordName = args[i];
+				}
+			} else if (s.equals("-chapter")) {
+				if (i + 1 < args.length) {
+					i++;
+					chapter = args[i];
+				}
+			} else if (s.equals("-res")) {
+				if (i + 1 < args.length) {
+					i++;
+					forceRes = args[i];
+				}
+			} else if (s.equals("-step")) {
+				if (i + 1 < args.length) {
+					i++;
+					stepsPerSecond = Integer.parseInt(args[i]);
+				}
+			} else if (s.equals("-seed")) {
+				if (i + 1 < args.length) {
+					i++;
+					seed = Long.parseLong(args[i]);
+				}
+			} else if (s.equals("-timeout")) {
+				if (i + 1 < args.length) {
+					i++;
+					timeout = Float.parseFloat(args[i]);
+				}
+			} else if (s.equals("-settle")) {
+				if (i + 1 < args.length) {
+					i++;
+					settleTime = Float.parseFloat(args[i]);
+				}
+			} else if (s.equals("-expect")) {
+				if (i + 1 < args.length) {
+					i++;
+					expectedHash = args[i];
+				}
+			} else if (s.equals("-d")) {
+				debug = true;
+			} else if (s.equals("-h")) {
+				usage();
+			} else {
+				System.out.println("Unrecognized parameter: " + s);
+				usage();
+			}
+		}
+	}
+
+	public void usage() {
+		System.out.println(
+				"Usage:\n" +
+				"-p record_name\tPlay the recorded game. The default record if not set\n" +
+				"-chapter chapter\tLoads the selected chapter when the record has no game state\n" +
+				"-res width\tForce the resolution width\n" +
+				"-step steps\tSimulation steps per game second (60)\n" +
+				"-seed seed\tSeed for the random actions (0)\n" +
+				"-timeout secs\tMax. game time to play (3600)\n" +
+				"-settle secs\tGame time to keep playing after the last verb (5)\n" +
+				"-expect hash\tFails if the final state hash is different\n" +
+				"-d\tShow debug messages\n"
+				);
+
+		System.exit(EXIT_OK);
+	}
+
+	@Override
+	public void create() {
+		// The headless backend has no GL context
+		Gdx.gl = Gdx.gl20 = NullGL20.create();
+
+		if (debug)
+			EngineLogger.setDebug();
+
+		try {
+			run();
+		} catch (Exception e) {
+			EngineLogger.error("ERROR PLAYING RECORD", e);
+			exitCode = EXIT_ERROR;
+		}
+
+		Gdx.app.exit();
+	}
+
+	@Override
+	public void dispose() {
+		World.getInstance().finishSaving();
+		World.getInstance().dispose();
+
+		System.exit(exitCode);
+	}
+
+	private void run() throws IOException {
+		long initTime = System.nanoTime();
+
+		MathUtils.random.setSeed(seed);
+
+		if (forceRes != null)
+			EngineAssetManager.getInstance().forceResolution(forceRes);
+
+		World w = World.getInstance();
+		float step = 1f / stepsPerSecond;
+
+		w.loadXMLWorld();
+		w.setAsyncLoading(false);
+		w.setFixedStep(step);
+		w.loadXMLChapter(chapter);
+
+		if (w.isDisposed()) {
+			exitCode = EXIT_ERROR;
+			return;
+		}
+
+		Recorder recorder = new Recorder();
+
+		if (recordName != null)
+			recorder.load(recordName);
+		else
+			recorder.load();
+
+		recorder.setPlaying(true);
+
+		int numVerbs = recorder.getNumVerbs();
+		float[] verbGameTime = new float[numVerbs];
+		long[] verbWallTime = new long[numVerbs];
+
+		float time = 0;
+		float endTime = -1;
+		int current = -1;
+		float currentStart = 0;
+		long currentWallStart = 0;
+
+		while (true) {
+			if (time >= timeout) {
+				EngineLogger.error("TIMEOUT: the record was not finished in " + timeout + " seconds of game");
+				exitCode = EXIT_ERROR;
+				break;
+			}
+
+			// Loads the scene assets in this step instead of polling the
+			// asset manager every step
+			if (w.getAssetState() != AssetState.LOADED)
+				EngineAssetManager.getInstance().finishLoading();
+
+			w.update(step);
+
+			if (w.getAssetState() == AssetState.LOADED)
+				recorder.update(step);
+
+			time += step;
+
+			// The recorder resets its position when the last verb is played
+			int played = recorder.isPlaying() ? recorder.getPos() - 1 : numVerbs - 1;
+
+			if (played > current) {
+				if (current >= 0) {
+					verbGameTime[current] = time - currentStart;
+					verbWallTime[current] = System.nanoTime() - currentWallStart;
+				}
+
+				current = played;
+				currentStart = time;
+				currentWallStart = System.nanoTime();
+			}
+
+			if (!recorder.isPlaying()) {
+				if (endTime < 0)
+					endTime = time + settleTime;
+				else if (time >= endTime)
+					break;
+			}
+		}
+
+		if (current >= 0) {
+			verbGameTime[current] = time - currentStart;
+			verbWallTime[current] = System.nanoTime() - currentWallStart;
+		}
+
+		long wallTime = System.nanoTime() - initTime;
+
+		System.out.println("VERB TIMES:");
+		System.out.println(String.format("%5s %10s %10s  %s", "#", "game (s)", "wall (ms)", "verb"));
+
+		for (int i = 0; i < numVerbs; i++) {
+			System.out.println(String.format("%5d %10.2f %10.2f  %s", i, verbGameTime[i], verbWallTime[i] / 1e6,
+					recorder.getVerbInfo(i)));
+		}
+
+		System.out.println();
+		System.out.println(String.format("%d verbs played, %.2f s of game in %.2f s (x%.0f)", current + 1, time,
+				wallTime / 1e9, time / (wallTime / 1e9)));
+
+		if (current + 1 < numVerbs) {
+			EngineLogger.error("Only " + (current + 1) + " of " + numVerbs + " verbs played");
+			exitCode = EXIT_ERROR;
+		}
+
+		ByteArrayOutputStream state = new ByteArrayOutputStream(64 * 1024);
+		w.writeGameState(state);
+		String hash = hash(state.toByteArray());
+
+		System.out.println();
+		System.out.println("SCENE HASHES:");
+
+		ArrayList<String> ids = new ArrayList<String>(w.getScenes().keySet());
+		Collections.sort(ids);
+
+		for (String id : ids)
+			System.out.println("  " + hash(w.getScenes().get(id)) + "  " + id);
+
+		System.out.println();
+		System.out.println("STATE HASH: " + hash);
+
+		if (expectedHash != null && !expectedHash.equalsIgnoreCase(hash)) {
+			EngineLogger.error("STATE HASH ERROR: expected " + expectedHash);
+
+			if (exitCode == EXIT_OK)
+				exitCode = EXIT_HASH;
+		}
+	}
+
+	/**
+	 * Hash of the runtime state of a scene.
+	 */
+	private static String hash(Scene s) throws IOException {
+		ByteArrayOutputStream state = new ByteArrayOutputStream(4 * 1024);
+
+		SerializationHelper.getInstance().setMode(Mode.STATE);
+
+		try {
+			BinaryJsonWriter w = new BinaryJsonWriter(state);
+
+			try {
+				Json json = new Json();
+				json.setWriter(w);
+				json.writeValue(s, Scene.class);
+			} finally {
+				w.close();
+			}
+		} finally {
+			SerializationHelper.getInstance().setMode(Mode.MODEL);
+		}
+
+		return hash(state.toByteArray());
+	}
+
+	private static String hash(byte[] data) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-1").digest(data);
+			StringBuilder sb = new StringBuilder();
+
+			for (byte b : digest)
+				sb.append(String.format("%02x", b & 0xff));
+
+			return sb.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	public static void main(String[] args) {
+		HeadlessRunner runner = new HeadlessRunner();
+		runner.parseParams(args);
+
+		new HeadlessApplication(runner, new HeadlessApplicationConfiguration());
+	}
+}
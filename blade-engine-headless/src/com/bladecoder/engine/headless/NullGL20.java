@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.headless;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.IntBuffer;
+
+import com.badlogic.gdx.graphics.GL20;
+
+/**
+ * GL20 implementation that does nothing. The headless backend doesn't create
+ * a GL context, but the engine creates textures, shaders and batches when
+ * loading the scenes.
+ *
+ * Every call is ignored and returns 0, except the ones needed to create the
+ * objects: the generated handles are not 0 and the shaders always compile
+ * and link.
+ *
+ * @author rgarcia
+ */
+public class NullGL20 implements InvocationHandler {
+
+	public static GL20 create() {
+		return (GL20) Proxy.newProxyInstance(GL20.class.getClassLoader(), new Class<?>[] { GL20.class },
+				new NullGL20());
+	}
+
+	private int handles = 0;
+
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		String name = method.getName();
+		Class<?> type = method.getReturnType();
+
+		if (name.equals("glGetShaderiv") || name.equals("glGetProgramiv")) {
+			int pname = (Integer) args[1];
+			IntBuffer params = (IntBuffer) args[2];
+
+			boolean ok = pname == GL20.GL_COMPILE_STATUS || pname == GL20.GL_LINK_STATUS;
+			params.put(params.position(), ok ? GL20.GL_TRUE : 0);
+
+			return null;
+		}
+
+		if (name.startsWith("glCreate") || name.startsWith("glGen"))
+			return ++handles;
+
+		if (name.equals("glCheckFramebufferStatus"))
+			return GL20.GL_FRAMEBUFFER_COMPLETE;
+
+		if (type == String.class)
+			return "";
+
+		if (type == int.class)
+			return 0;
+
+		if (type == boolean.class)
+			return false;
+
+		if (type == float.class)
+			return 0f;
+
+		return null;
+	}
+}
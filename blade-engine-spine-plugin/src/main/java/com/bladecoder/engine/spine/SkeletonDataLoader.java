@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.spine;
+
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetLoaderParameters;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.AsynchronousAssetLoader;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.utils.Array;
+import com.bladecoder.engine.assets.EngineAssetManager;
+import com.esotericsoftware.spine.SkeletonBinary;
+import com.esotericsoftware.spine.SkeletonData;
+
+/**
+ * Loads the Spine .skel files with the asset manager, so the SkeletonData is
+ * shared and reference counted like the other assets. The atlas with the same
+ * name is loaded as a dependency.
+ *
+ * The skeleton is parsed in the asset manager thread, only the atlas textures
+ * are created in the GL thread.
+ *
+ * @author rgarcia
+ */
+public class SkeletonDataLoader extends AsynchronousAssetLoader<SkeletonData, SkeletonDataLoader.SkeletonDataParameter> {
+
+	public static class SkeletonDataParameter extends AssetLoaderParameters<SkeletonData> {
+		/** The atlas name. If null, the atlas with the name of the skeleton */
+		public String atlas;
+
+		/** If 0, the scale of the asset manager */
+		public float scale;
+	}
+
+	private SkeletonData data;
+
+	public SkeletonDataLoader(FileHandleResolver resolver) {
+		super(resolver);
+	}
+
+	/**
+	 * Registers the loader in the engine asset manager if needed. The asset
+	 * manager instance can be recreated, so it must be called before loading.
+	 */
+	public static void register() {
+		EngineAssetManager am = EngineAssetManager.getInstance();
+
+		if (am.getLoader(SkeletonData.class) == null)
+			am.setLoader(SkeletonData.class, new SkeletonDataLoader(am.getBaseResolver()));
+	}
+
+	@SuppressWarnings("rawtypes")
+	@Override
+	public Array<AssetDescriptor> getDependencies(String fileName, FileHandle file, SkeletonDataParameter parameter) {
+		Array<AssetDescriptor> deps = new Array<AssetDescriptor>(1);
+		deps.add(new AssetDescriptor<TextureAtlas>(getAtlasFileName(file, parameter), TextureAtlas.class));
+
+		return deps;
+	}
+
+	@Override
+	public void loadAsync(AssetManager manager, String fileName, FileHandle file, SkeletonDataParameter parameter) {
+		TextureAtlas atlas = manager.get(getAtlasFileName(file, parameter), TextureAtlas.class);
+
+		float scale = parameter != null && parameter.scale > 0 ? parameter.scale : EngineAssetManager
+				.getInstance().getScale();
+
+		SkeletonBinary skel = new SkeletonBinary(atlas);
+		skel.setScale(scale);
+		data = skel.readSkeletonData(file);
+	}
+
+	@Override
+	public SkeletonData loadSync(AssetManager manager, String fileName, FileHandle file,
+			SkeletonDataParameter parameter) {
+		SkeletonData result = data;
+		data = null;
+
+		return result;
+	}
+
+	private static String getAtlasFileName(FileHandle file, SkeletonDataParameter parameter) {
+		String atlas = parameter != null && parameter.atlas != null ? parameter.atlas : file.nameWithoutExtension();
+
+		return EngineAssetManager.getAtlasFileName(atlas);
+	}
+}
@@ -16,6 +16,7 @@
 package com.bladecoder.engine.spine;
 
 import java.util.HashMap;
+import java.util.HashSet;
 
 import com.bladecoder.engine.model.ActorRenderer;
 import com.bladecoder.engine.model.BaseActor;
@@ -23,29 +24,34 @@ import com.bladecoder.engine.model.SpriteActor;
 import com.bladecoder.engine.model.World;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
-import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.math.Matrix4;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
 import com.bladecoder.engine.actions.ActionCallback;
 import com.bladecoder.engine.actions.ActionCallbackQueue;
-import com.bladecoder.engine.anim.AtlasAnimationDesc;
 import com.bladecoder.engine.anim.AnimationDesc;
 import com.bladecoder.engine.anim.Tween;
+import com.bladecoder.engine.assets.AssetLeaseService;
 import com.bladecoder.engine.assets.EngineAssetManager;
 import com.bladecoder.engine.util.ActionCallbackSerialization;
 import com.bladecoder.engine.util.EngineLogger;
 import com.bladecoder.engine.util.RectangleRenderer;
+import com.bladecoder.engine.util.SerializationHelper;
+import com.bladecoder.engine.util.SerializationHelper.Mode;
 import com.esotericsoftware.spine.Animation;
+import com.esotericsoftware.spine.Animation.EventTimeline;
+import com.esotericsoftware.spine.Animation.Timeline;
 import com.esotericsoftware.spine.AnimationState;
 import com.esotericsoftware.spine.AnimationState.AnimationStateListener;
+import com.esotericsoftware.spine.AnimationState.TrackEntry;
 import com.esotericsoftware.spine.attachments.Attachment;
 import com.esotericsoftware.spine.attachments.RegionAttachment;
 import com.esotericsoftware.spine.AnimationStateData;
 import com.esotericsoftware.spine.Event;
 import com.esotericsoftware.spine.Skeleton;
-import com.esotericsoftware.spine.SkeletonBinary;
 import com.esotericsoftware.spine.SkeletonBounds;
 import com.esotericsoftware.spine.SkeletonData;
 import com.esotericsoftware.spine.SkeletonRenderer;
@@ -58,6 +64,13 @@ public class SpineRenderer implements ActorRenderer {
 	private final static int RUN_VERB_EVENT = 2;
 	private final static int LOOP_EVENT = 3;
 
+	/**
+	 * Skeletons smaller than this fraction of the screen height are posed at
+	 * LOD_INTERVAL
+	 */
+	private final static float LOD_SCREEN_HEIGHT = 0.1f;
+	private final static float LOD_INTERVAL = 1 / 15f;
+
 	private HashMap<String, AnimationDesc> fanims = new HashMap<String, AnimationDesc>();
 
 	/** Starts this anim the first time that the scene is loaded */
@@ -80,8 +93,23 @@ public class SpineRenderer implements ActorRenderer {
 
 	private final HashMap<String, SkeletonCacheEntry> sourceCache = new HashMap<String, SkeletonCacheEntry>();
 
+	/** Sources loaded by prefetchAnimation() and not used by an animation yet */
+	private final HashSet<String> prefetchedSources = new HashSet<String>();
+
 	private float lastAnimationTime = 0;
 
+	/**
+	 * The animation time is advanced every frame, but the skeleton is only
+	 * posed when drawn and the bounds are only computed when asked.
+	 */
+	private boolean poseDirty = true;
+	private boolean boundsDirty = true;
+	private float timeSincePose = 0;
+
+	private final Array<Event> firedEvents = new Array<Event>();
+	private final static Vector3 tmpMin = new Vector3();
+	private final static Vector3 tmpMax = new Vector3();
+
 	class SkeletonCacheEntry {
 		int refCounter;
 		Skeleton skeleton;
@@ -201,10 +229,22 @@ public class SpineRenderer implements ActorRenderer {
 	public void update(float delta) {
 		if (currentSource != null && currentSource.skeleton != null) {
 			currentSource.animation.update(delta);
-			currentSource.animation.apply(currentSource.skeleton);
-			currentSource.skeleton.updateWorldTransform();
+
+			// The events drive the game, they are fired even if the skeleton
+			// is not drawn
+			applyEvents();
 
 			lastAnimationTime += delta;
+			timeSincePose += delta;
+			poseDirty = true;
+
+			// The next AnimationState.update() clears an ended track. The final
+			// pose is applied now, the skeleton can be off-screen or skipped by
+			// the LOD in this frame.
+			TrackEntry current = currentSource.animation.getCurrent(0);
+
+			if (current != null && !current.getLoop() && current.getLastTime() >= current.getEndTime())
+				pose();
 		}
 	}
 
@@ -212,6 +252,23 @@ public class SpineRenderer implements ActorRenderer {
 	public void draw(SpriteBatch batch, float x, float y, float scale) {
 
 		if (currentSource != null && currentSource.skeleton != null) {
+			Matrix4 proj = batch.getProjectionMatrix();
+
+			// Off-screen culling with the last bounds. The margin covers the
+			// bounds changes since the animation started.
+			float r = Math.max(width, height) * scale;
+			tmpMin.set(x - r, y - r, 0).prj(proj);
+			tmpMax.set(x + r, y + r * 2, 0).prj(proj);
+
+			if (tmpMax.x < -1 || tmpMin.x > 1 || tmpMax.y < -1 || tmpMin.y > 1)
+				return;
+
+			// Small skeletons are posed at a lower rate
+			float screenHeight = height * scale * proj.val[Matrix4.M11] / 2;
+
+			if (poseDirty && (timeSincePose >= LOD_INTERVAL || screenHeight >= LOD_SCREEN_HEIGHT))
+				pose();
+
 			currentSource.skeleton.setX(x / scale);
 			currentSource.skeleton.setY(y / scale);
 
@@ -226,11 +283,17 @@ public class SpineRenderer implements ActorRenderer {
 
 	@Override
 	public float getWidth() {
+		if (boundsDirty)
+			computeBounds();
+
 		return width;
 	}
 
 	@Override
 	public float getHeight() {
+		if (boundsDirty)
+			computeBounds();
+
 		return height;
 	}
 
@@ -293,10 +356,7 @@ public class SpineRenderer implements ActorRenderer {
 		animationCb = cb;
 
 		// If the source is not loaded. Load it.
-		if (currentSource == null || currentSource.refCounter < 1) {
-			loadSource(fa.source);
-			EngineAssetManager.getInstance().finishLoading();
-
+		if (currentSource == null || currentSource.refCounter < 1 || currentSource.skeleton == null) {
 			retrieveSource(fa.source);
 
 			currentSource = sourceCache.get(fa.source);
@@ -321,6 +381,37 @@ public class SpineRenderer implements ActorRenderer {
 		setCurrentAnimation();
 	}
 
+	@Override
+	public boolean prefetchAnimation(String id) {
+		if (id == null)
+			return true;
+
+		// getAnimation() changes flipX
+		boolean currentFlipX = flipX;
+		AnimationDesc fa = getAnimation(id);
+		flipX = currentFlipX;
+
+		if (fa == null)
+			return true;
+
+		SkeletonCacheEntry entry = sourceCache.get(fa.source);
+
+		if (entry == null || entry.refCounter < 1) {
+			loadSource(fa.source);
+			prefetchedSources.add(fa.source);
+		}
+
+		return EngineAssetManager.getInstance().isLoaded(EngineAssetManager.getSpineFileName(fa.source));
+	}
+
+	@Override
+	public void releasePrefetchedAnimations() {
+		for (String source : prefetchedSources)
+			disposeSource(source);
+
+		prefetchedSources.clear();
+	}
+
 	private void setCurrentAnimation() {
 		try {
 			// TODO Make setup pose parametrizable in the AnimationDesc
@@ -329,13 +420,83 @@ public class SpineRenderer implements ActorRenderer {
 			currentSource.animation.setTimeScale(currentAnimation.duration);
 			currentSource.animation.setAnimation(0, currentAnimation.id, currentAnimationType == Tween.REPEAT);
 			update(lastAnimationTime);
-			computeBounds();
+			boundsDirty = true;
+
+			// The setup pose is never drawn
+			timeSincePose = LOD_INTERVAL;
 		} catch (Exception e) {
 			EngineLogger.error("SpineRenderer:setCurrentFA " + e.getMessage());
 		}
 	}
 
+	/**
+	 * Applies the animation to the skeleton.
+	 */
+	private void pose() {
+		currentSource.animation.apply(currentSource.skeleton);
+		currentSource.skeleton.updateWorldTransform();
+
+		poseDirty = false;
+		timeSincePose = 0;
+	}
+
+	/**
+	 * Fires the events and the completion of the current animation without
+	 * posing the skeleton. It is AnimationState.apply() for the track 0
+	 * without the bone timelines. The next apply() only poses the skeleton
+	 * because the last time of the track is updated here.
+	 */
+	private void applyEvents() {
+		TrackEntry current = currentSource.animation.getCurrent(0);
+
+		if (current == null)
+			return;
+
+		float time = current.getTime();
+		float lastTime = current.getLastTime();
+		float endTime = current.getEndTime();
+		boolean loop = current.getLoop();
+
+		if (!loop && time > endTime)
+			time = endTime;
+
+		Animation anim = current.getAnimation();
+		float animTime = time;
+		float animLastTime = lastTime;
+
+		if (loop && anim.getDuration() != 0) {
+			animTime %= anim.getDuration();
+			animLastTime %= anim.getDuration();
+		}
+
+		firedEvents.clear();
+
+		Array<Timeline> timelines = anim.getTimelines();
+
+		for (int i = 0; i < timelines.size; i++) {
+			if (timelines.get(i) instanceof EventTimeline)
+				timelines.get(i).apply(currentSource.skeleton, animLastTime, animTime, firedEvents, 1);
+		}
+
+		// Clamped when ended, or apply() would fire the events again
+		current.setLastTime(loop ? current.getTime() : time);
+
+		for (int i = 0; i < firedEvents.size; i++)
+			animationListener.event(0, firedEvents.get(i));
+
+		if (loop ? (lastTime % endTime > time % endTime) : (lastTime < endTime && time >= endTime))
+			animationListener.complete(0, (int) (time / endTime));
+	}
+
 	private void computeBounds() {
+		if (currentSource == null || currentSource.skeleton == null)
+			return;
+
+		if (poseDirty)
+			pose();
+
+		boundsDirty = false;
+
 		bounds.update(currentSource.skeleton, true);
 
 		if (bounds.getWidth() > 0 && bounds.getHeight() > 0) {
@@ -465,27 +626,35 @@ public class SpineRenderer implements ActorRenderer {
 			sourceCache.put(source, entry);
 		}
 
-		if (entry.refCounter == 0)
-			EngineAssetManager.getInstance().loadAtlas(source);
+		if (entry.refCounter == 0) {
+			SkeletonDataLoader.register();
+			AssetLeaseService.getInstance().acquire(EngineAssetManager.getSpineFileName(source), SkeletonData.class);
+		}
 
 		entry.refCounter++;
 	}
 
 	private void retrieveSource(String source) {
+		// The source is used by an animation now
+		prefetchedSources.remove(source);
+
 		SkeletonCacheEntry entry = sourceCache.get(source);
 
 		if (entry == null || entry.refCounter < 1) {
 			loadSource(source);
-			EngineAssetManager.getInstance().finishLoading();
 			entry = sourceCache.get(source);
 		}
 
-		if (entry.skeleton == null) {
-			TextureAtlas atlas = EngineAssetManager.getInstance().getTextureAtlas(source);
+		String fileName = EngineAssetManager.getSpineFileName(source);
 
-			SkeletonBinary skel = new SkeletonBinary(atlas);
-			skel.setScale(EngineAssetManager.getInstance().getScale());
-			SkeletonData skeletonData = skel.readSkeletonData(EngineAssetManager.getInstance().getSpine(source));
+		// The source can be queued by prefetchAnimation() and not loaded yet
+		if (!EngineAssetManager.getInstance().isLoaded(fileName))
+			EngineAssetManager.getInstance().finishLoading();
+
+		if (entry.skeleton == null) {
+			// The SkeletonData is shared by all the actors with the same
+			// source, only the pose and the animation state are per actor
+			SkeletonData skeletonData = EngineAssetManager.getInstance().get(fileName, SkeletonData.class);
 
 			entry.skeleton = new Skeleton(skeletonData);
 
@@ -504,7 +673,7 @@ public class SpineRenderer implements ActorRenderer {
 		SkeletonCacheEntry entry = sourceCache.get(source);
 
 		if (entry.refCounter == 1) {
-			EngineAssetManager.getInstance().disposeAtlas(source);
+			AssetLeaseService.getInstance().release(EngineAssetManager.getSpineFileName(source));
 			entry.animation = null;
 			entry.skeleton = null;
 		}
@@ -554,9 +723,11 @@ public class SpineRenderer implements ActorRenderer {
 	@Override
 	public void dispose() {
 		for (String key : sourceCache.keySet()) {
-			EngineAssetManager.getInstance().disposeAtlas(key);
+			if (sourceCache.get(key).refCounter > 0)
+				AssetLeaseService.getInstance().release(EngineAssetManager.getSpineFileName(key));
 		}
 
+		prefetchedSources.clear();
 		sourceCache.clear();
 		currentSource = null;
 		renderer = null;
@@ -565,8 +736,11 @@ public class SpineRenderer implements ActorRenderer {
 
 	@Override
 	public void write(Json json) {
+		boolean model = SerializationHelper.getInstance().getMode() == Mode.MODEL;
 
-		json.writeValue("fanims", fanims, HashMap.class, AnimationDesc.class);
+		// The animations are defined in the chapter
+		if (model)
+			json.writeValue("fanims", fanims, HashMap.class, AnimationDesc.class);
 
 		String currentAnimationId = null;
 
@@ -575,7 +749,8 @@ public class SpineRenderer implements ActorRenderer {
 
 		json.writeValue("currentAnimation", currentAnimationId, currentAnimationId == null ? null : String.class);
 
-		json.writeValue("initAnimation", initAnimation);
+		if (model)
+			json.writeValue("initAnimation", initAnimation);
 
 		json.writeValue("flipX", flipX);
 
@@ -593,15 +768,17 @@ public class SpineRenderer implements ActorRenderer {
 	@SuppressWarnings("unchecked")
 	@Override
 	public void read(Json json, JsonValue jsonData) {
+		boolean model = SerializationHelper.getInstance().getMode() == Mode.MODEL;
 
-		fanims = json.readValue("fanims", HashMap.class, AnimationDesc.class, jsonData);
+		if (model)
+			fanims = json.readValue("fanims", HashMap.class, AnimationDesc.class, jsonData);
 
 		String currentAnimationId = json.readValue("currentAnimation", String.class, jsonData);
 
-		if (currentAnimationId != null)
-			currentAnimation = (AtlasAnimationDesc) fanims.get(currentAnimationId);
+		currentAnimation = currentAnimationId == null ? null : fanims.get(currentAnimationId);
 
-		initAnimation = json.readValue("initAnimation", String.class, jsonData);
+		if (model)
+			initAnimation = json.readValue("initAnimation", String.class, jsonData);
 
 		flipX = json.readValue("flipX", Boolean.class, jsonData);
 		animationCbSer = json.readValue("cb", String.class, jsonData);
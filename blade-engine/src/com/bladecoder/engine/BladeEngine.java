@@ -24,13 +24,17 @@ import com.badlogic.gdx.ApplicationListener;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.utils.BufferUtils;
+import com.bladecoder.engine.actions.ActionCallbackQueue;
+import com.bladecoder.engine.assets.AssetLeaseService;
 import com.bladecoder.engine.assets.EngineAssetManager;
+import com.bladecoder.engine.model.ScenePrefetcher;
 import com.bladecoder.engine.model.World;
 import com.bladecoder.engine.ui.SceneScreen;
 import com.bladecoder.engine.ui.UI;
 import com.bladecoder.engine.ui.UI.Screens;
 import com.bladecoder.engine.util.Config;
 import com.bladecoder.engine.util.EngineLogger;
+import com.bladecoder.engine.util.FrameProfiler;
 
 public class BladeEngine implements ApplicationListener {
 
@@ -97,6 +101,32 @@ public class BladeEngine implements ApplicationListener {
 		}
 		
 		World.getInstance().loadXMLWorld();
+		World.getInstance().setAsyncLoading(Config.getProperty(Config.ASYNC_LOADING_PROP, true));
+		
+		// Released assets grace period in seconds and memory budget in MB
+		AssetLeaseService.getInstance().setGraceTime(
+				Config.getProperty(Config.ASSET_GRACE_TIME_PROP, (int) AssetLeaseService.DEFAULT_GRACE_TIME));
+		AssetLeaseService.getInstance().setBudget(
+				Config.getProperty(Config.ASSET_BUDGET_PROP, (int) (AssetLeaseService.DEFAULT_BUDGET / (1024 * 1024)))
+						* 1024L * 1024L);
+		
+		// Memory budget in MB for the neighbour scenes prefetching. 0 disables it
+		World.getInstance().getScenePrefetcher().setBudget(
+				Config.getProperty(Config.PREFETCH_BUDGET_PROP, (int) (ScenePrefetcher.DEFAULT_BUDGET / (1024 * 1024)))
+						* 1024L * 1024L);
+		
+		// Time in ms per frame to resume the action callbacks. 0 for no limit
+		ActionCallbackQueue.setBudget(
+				Config.getProperty(Config.CALLBACK_BUDGET_PROP, ActionCallbackQueue.DEFAULT_BUDGET), 0);
+		
+		// Per frame timing of the engine sections, shown in the debug screen
+		FrameProfiler.setEnabled(Config.getProperty(Config.PROFILER_PROP, false));
+		
+		// Simulation steps per second. 0 updates the world with the frame delta
+		int steps = Config.getProperty(Config.FIXED_STEP_PROP, 0);
+		
+		if (steps > 0)
+			World.getInstance().setFixedStep(1f / steps);
 		
 		ui = new UI();
 
@@ -151,6 +181,7 @@ public class BladeEngine implements ApplicationListener {
 	@Override
 	public void dispose() {
 		EngineLogger.debug("GAME DISPOSE");
+		World.getInstance().finishSaving();
 		World.getInstance().dispose();
 		ui.dispose();
 	}
@@ -171,6 +202,9 @@ public class BladeEngine implements ApplicationListener {
 		EngineLogger.debug("GAME PAUSE");
 		ui.pause();
 		World.getInstance().saveGameState();
+
+		// the application can be killed after pausing
+		World.getInstance().finishSaving();
 	}
 
 	@Override
@@ -16,10 +16,10 @@
 package com.bladecoder.engine.actions;
 
 import java.util.ArrayList;
-import java.util.List;
 
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
+import com.bladecoder.engine.model.World;
 import com.bladecoder.engine.util.ActionCallbackSerialization;
 
 /**
@@ -28,43 +28,202 @@ import com.bladecoder.engine.util.ActionCallbackSerialization;
  * 
  * All ActionCb must be called at once outside update methods of Actors.
  * 
+ * The callbacks are kept in a ring buffer. Each frame resumes the callbacks
+ * queued before the frame, in order, until the frame budget is spent. The
+ * rest are resumed in the next frames. The verbs also stop running
+ * instantaneous actions when the budget is spent and continue in the next
+ * frame.
+ * 
  * @author rgarcia
  *
  */
 public class ActionCallbackQueue {
-	private static final List<ActionCallback> queue = new ArrayList<ActionCallback>();
-	private static final List<ActionCallback> runQueue = new ArrayList<ActionCallback>();
+	public static final int DEFAULT_BUDGET = 4;
+
+	private static ActionCallback[] queue = new ActionCallback[64];
+	private static int head = 0;
+	private static int size = 0;
+
+	/** Max. time in ns to resume callbacks per frame. 0 for no limit */
+	private static long budget = DEFAULT_BUDGET * 1000000L;
+
+	/** Max. number of callbacks to resume per frame. 0 for no limit */
+	private static int maxCallbacks = 0;
+
+	private static boolean running = false;
+
+	/**
+	 * Incremented by clear(). A callback can clear the queue (leaving the
+	 * scene), so run() stops when it changes.
+	 */
+	private static int generation = 0;
+	private static long frameStart;
+
+	// Metrics
+	private static int frameCallbacks;
+	private static int frameDeferred;
+	private static int cascade;
+	private static int maxCascade;
 	
 	public static void add(ActionCallback cb) {
-		queue.add(cb);
+		if (size == queue.length) {
+			ActionCallback[] q = new ActionCallback[queue.length * 2];
+
+			for (int i = 0; i < size; i++)
+				q[i] = get(i);
+
+			queue = q;
+			head = 0;
+		}
+
+		queue[(head + size) % queue.length] = cb;
+		size++;
 	}
 	
 	/**
-	 * Resume all cb's in the 'queue'. 
+	 * Resume the cb's in the 'queue' within the frame budget. 
 	 * 
-	 * To do that, we copy all elements in the 'runQueue' and clean the 'queue' because 
-	 * cb.resume() can trigger more cb's
+	 * Only the cb's queued before calling this method are resumed because 
+	 * cb.resume() can trigger more cb's. They are resumed in the next frame.
 	 */
 	public static void run() {
-		if(!queue.isEmpty()) {
-			runQueue.addAll(queue);				
-			queue.clear();
-			
-			for(ActionCallback cb: runQueue)
+		frameCallbacks = 0;
+		frameDeferred = 0;
+
+		if (size == 0)
+			return;
+
+		int queued = size;
+		int n = size;
+
+		if (maxCallbacks > 0 && n > maxCallbacks)
+			n = maxCallbacks;
+
+		int gen = generation;
+		boolean cleared = false;
+
+		running = true;
+		frameStart = System.nanoTime();
+
+		try {
+			for (int i = 0; i < n; i++) {
+				// At least one cb is resumed per frame
+				if (i > 0 && isOverBudget())
+					break;
+
+				ActionCallback cb = queue[head];
+				queue[head] = null;
+				head = (head + 1) % queue.length;
+				size--;
+
+				cascade = 0;
 				cb.resume();
-			
-			runQueue.clear();
+				frameCallbacks++;
+
+				if (cascade > maxCascade)
+					maxCascade = cascade;
+
+				if (gen != generation) {
+					cleared = true;
+					break;
+				}
+			}
+		} finally {
+			running = false;
 		}
+
+		frameDeferred = cleared ? 0 : queued - frameCallbacks;
+	}
+
+	/**
+	 * Called by the verbs for every action run. When resuming the callbacks,
+	 * returns true if the frame budget is spent and the verb must continue in
+	 * the next frame.
+	 */
+	public static boolean actionRun() {
+		if (!running)
+			return false;
+
+		cascade++;
+
+		return isOverBudget();
+	}
+
+	/**
+	 * The time budget is not used in fixed timestep mode because it depends on
+	 * the machine.
+	 */
+	private static boolean isOverBudget() {
+		return budget > 0 && !World.getInstance().isFixedStep() && System.nanoTime() - frameStart > budget;
+	}
+
+	/**
+	 * @param budgetMs
+	 *            Max. time to resume callbacks per frame. 0 for no limit.
+	 * @param maxCallbacks
+	 *            Max. number of callbacks to resume per frame. 0 for no limit.
+	 */
+	public static void setBudget(int budgetMs, int maxCallbacks) {
+		ActionCallbackQueue.budget = budgetMs * 1000000L;
+		ActionCallbackQueue.maxCallbacks = maxCallbacks;
+	}
+
+	public static int getBudget() {
+		return (int) (budget / 1000000L);
+	}
+
+	public static int getMaxCallbacks() {
+		return maxCallbacks;
+	}
+
+	public static int getSize() {
+		return size;
+	}
+
+	/**
+	 * @return The number of callbacks resumed in the last frame.
+	 */
+	public static int getFrameCallbacks() {
+		return frameCallbacks;
+	}
+
+	/**
+	 * @return The number of callbacks left for the next frame because of the
+	 *         budget in the last frame.
+	 */
+	public static int getFrameDeferred() {
+		return frameDeferred;
+	}
+
+	/**
+	 * @return The max. number of actions run by a single callback.
+	 */
+	public static int getMaxCascade() {
+		return maxCascade;
+	}
+
+	public static void resetMetrics() {
+		maxCascade = 0;
 	}
 	
 	public static void clear() {
-		queue.clear();
+		for (int i = 0; i < size; i++)
+			queue[(head + i) % queue.length] = null;
+
+		head = 0;
+		size = 0;
+		generation++;
+	}
+
+	private static ActionCallback get(int i) {
+		return queue[(head + i) % queue.length];
 	}
 	
 	public static void write(Json json) {
-		ArrayList<String> q = new ArrayList<String>();
-		for(ActionCallback cb: queue) {
-			q.add(ActionCallbackSerialization.find(cb));
+		ArrayList<String> q = new ArrayList<String>(size);
+
+		for (int i = 0; i < size; i++) {
+			q.add(ActionCallbackSerialization.find(get(i)));
 		}
 		
 		json.writeValue("queue", q);
@@ -75,10 +234,10 @@ public class ActionCallbackQueue {
 		ArrayList<String> q = json.readValue("queue", ArrayList.class, String.class,
 				jsonData);
 		
-		queue.clear();
+		clear();
 		
 		for(String s: q) {
-			queue.add(ActionCallbackSerialization.find(s));
+			add(ActionCallbackSerialization.find(s));
 		}
 	}
 }
@@ -79,6 +79,14 @@ public class ActionFactory {
 				"com.bladecoder.engine.actions.TransitionAction");
 	}
 	
+	/**
+	 * Returns the class name of the action registered with the name or null if
+	 * not found.
+	 */
+	public static String getClassName(String name) {
+		return actions.get(name);
+	}
+
 	public static String []getActionList() {
 		return  actions.keySet().toArray(new String[actions.size()]);
 	}
@@ -106,6 +114,24 @@ public class ActionFactory {
 
 		try {
 			Class<?> c = ClassReflection.forName(className);
+			a = createByClass(c, params);
+		} catch (ReflectionException e) {
+			EngineLogger.error(e.getMessage());
+		}
+
+		return a;
+	}
+	
+	/**
+	 * Creates the action from an already resolved class. Avoids the class
+	 * lookup when the same class is instanced several times.
+	 */
+	public static Action createByClass(Class<?> c,
+			HashMap<String, String> params) {
+
+		Action a = null;
+
+		try {
 			a = (Action) ClassReflection.newInstance(c);
 			
 			if(params != null)
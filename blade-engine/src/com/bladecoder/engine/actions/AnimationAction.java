@@ -26,6 +26,7 @@ import com.badlogic.gdx.utils.JsonValue;
 import com.bladecoder.engine.actions.Param.Type;
 import com.bladecoder.engine.anim.Tween;
 import com.bladecoder.engine.assets.EngineAssetManager;
+import com.bladecoder.engine.model.BaseActor;
 import com.bladecoder.engine.model.SpriteActor;
 import com.bladecoder.engine.model.World;
 import com.bladecoder.engine.util.EngineLogger;
@@ -117,6 +118,22 @@ public class AnimationAction extends BaseCallbackAction implements Action {
 		return getWait();
 	}
 
+	/**
+	 * Queues the source of the animation for loading without starting it.
+	 * 
+	 * @return The actor of the animation or null if it is not a SpriteActor
+	 */
+	public SpriteActor prefetch() {
+		BaseActor actor = World.getInstance().getCurrentScene().getActor(actorId, true);
+
+		if (!(actor instanceof SpriteActor))
+			return null;
+
+		((SpriteActor) actor).prefetchAnimation(fa);
+
+		return (SpriteActor) actor;
+	}
+
 	@Override
 	public void write(Json json) {		
 		json.writeValue("fa", fa);
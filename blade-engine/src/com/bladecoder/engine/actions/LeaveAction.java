@@ -49,6 +49,14 @@ public class LeaveAction implements Action {
 		return false;
 	}
 
+	public String getScene() {
+		return scene;
+	}
+
+	public String getChapter() {
+		return chapter;
+	}
+
 	@Override
 	public void setParams(HashMap<String, String> params) {
 		scene = params.get("scene");
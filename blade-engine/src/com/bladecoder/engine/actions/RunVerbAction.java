@@ -117,10 +117,19 @@ public class RunVerbAction extends BaseCallbackAction {
 				Action a = actions.get(ip);
 
 				try {
-					if(a.run(this))
+					if(a.run(this)) {
 						stop = true;
-					else
+						ActionCallbackQueue.actionRun();
+					} else {
 						ip++;
+
+						// Continues in the next frame when the frame budget is spent
+						if (ActionCallbackQueue.actionRun() && ip < actions.size()) {
+							ip--;
+							ActionCallbackQueue.add(this);
+							stop = true;
+						}
+					}
 				} catch (Exception e) {
 					EngineLogger.error("EXCEPTION EXECUTING ACTION: "
 							+ a.getClass().getSimpleName(), e);
@@ -15,7 +15,8 @@
  ******************************************************************************/
 package com.bladecoder.engine.anim;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.Json.Serializable;
@@ -24,56 +25,173 @@ import com.bladecoder.engine.actions.ActionCallback;
 import com.bladecoder.engine.actions.ActionCallbackQueue;
 import com.bladecoder.engine.util.ActionCallbackSerialization;
 
-public class Timers {
+/**
+ * Calls the callbacks when its time is reached.
+ * 
+ * The timers are kept in a min-heap by the game time when they fire, so
+ * adding a timer is O(log n) and every frame only checks the first one. The
+ * timers that fire in the same frame are called in order of firing time and,
+ * for the same time, in the order they were added.
+ * 
+ * @author rgarcia
+ */
+public class Timers implements Serializable {
 	
-	ArrayList<Timer> timers = new ArrayList<Timer>();
+	private Timer[] heap = new Timer[16];
+	private int size = 0;
+
+	/** The game time for the timers. Only increases when the timers are updated */
+	private double time = 0;
+
+	/** Gives the order of the timers added for the same time */
+	private long sequence = 0;
 
 	public void addTimer(float time, ActionCallback cb) {
 		Timer t = new Timer();
 		
 		t.time = time;
+		t.fireTime = this.time + time;
 		t.cb = cb;
 		
-		timers.add(t);		
+		add(t);
 	}
 	
 	public void clear() {
-		timers.clear();
+		for (int i = 0; i < size; i++)
+			heap[i] = null;
+
+		size = 0;
+	}
+
+	public int size() {
+		return size;
 	}
 	
 	public void update(float delta) {
-		
-		for(int i = timers.size() - 1; i >= 0 ; i--) {
-			Timer t = timers.get(i);
-			
-			t.currentTime += delta;
-			
-			if(t.currentTime >= t.time) {
-				timers.remove(i);
-				ActionCallbackQueue.add(t.cb);			
-				i--;
+		time += delta;
+
+		while (size > 0 && heap[0].fireTime <= time) {
+			ActionCallbackQueue.add(poll().cb);
+		}
+	}
+
+	private void add(Timer t) {
+		if (size == heap.length) {
+			Timer[] h = new Timer[size * 2];
+			System.arraycopy(heap, 0, h, 0, size);
+			heap = h;
+		}
+
+		t.sequence = sequence++;
+
+		// sift up
+		int i = size++;
+
+		while (i > 0) {
+			int parent = (i - 1) >> 1;
+
+			if (!t.before(heap[parent]))
+				break;
+
+			heap[i] = heap[parent];
+			i = parent;
+		}
+
+		heap[i] = t;
+	}
+
+	private Timer poll() {
+		Timer first = heap[0];
+		Timer last = heap[--size];
+		heap[size] = null;
+
+		if (size > 0) {
+			// sift down
+			int i = 0;
+
+			while (true) {
+				int child = (i << 1) + 1;
+
+				if (child >= size)
+					break;
+
+				if (child + 1 < size && heap[child + 1].before(heap[child]))
+					child++;
+
+				if (!heap[child].before(last))
+					break;
+
+				heap[i] = heap[child];
+				i = child;
 			}
+
+			heap[i] = last;
+		}
+
+		return first;
+	}
+
+	/**
+	 * Same format than the previous list of timers: the duration and the
+	 * elapsed time of every timer.
+	 */
+	@Override
+	public void write(Json json) {
+		// Written in firing order so they are added in the same order when read
+		Timer[] sorted = Arrays.copyOf(heap, size);
+		Arrays.sort(sorted, ORDER);
+
+		json.writeArrayStart("timers");
+
+		for (Timer t : sorted) {
+			json.writeObjectStart();
+			json.writeValue("time", t.time);
+			json.writeValue("currentTime", (float) (time - (t.fireTime - t.time)));
+			json.writeValue("cb", ActionCallbackSerialization.find(t.cb), t.cb == null ? null : String.class);
+			json.writeObjectEnd();
+		}
+
+		json.writeArrayEnd();
+	}
+
+	@Override
+	public void read(Json json, JsonValue jsonData) {
+		clear();
+		time = 0;
+
+		JsonValue timers = jsonData.get("timers");
+
+		if (timers == null)
+			return;
+
+		for (JsonValue v = timers.child; v != null; v = v.next) {
+			Timer t = new Timer();
+			t.time = json.readValue("time", Float.class, v);
+			t.fireTime = t.time - json.readValue("currentTime", Float.class, 0f, v);
+			String cbSer = json.readValue("cb", String.class, v);
+
+			if (cbSer != null)
+				t.cb = ActionCallbackSerialization.find(cbSer);
+
+			add(t);
 		}
 	}
 	
-	static class Timer implements Serializable {
-		float time;
-		float currentTime = 0;
-		ActionCallback cb;
-		
+	private static final Comparator<Timer> ORDER = new Comparator<Timer>() {
 		@Override
-		public void write(Json json) {	
-			json.writeValue("time", time);
-			json.writeValue("currentTime", currentTime);	
-			json.writeValue("cb", ActionCallbackSerialization.find(cb), cb == null ? null : String.class);	
+		public int compare(Timer a, Timer b) {
+			return a.before(b) ? -1 : (b.before(a) ? 1 : 0);
 		}
+	};
 
-		@Override
-		public void read (Json json, JsonValue jsonData) {
-			time = json.readValue("time", Float.class, jsonData);
-			currentTime = json.readValue("currentTime", Float.class, jsonData);
-			String cbSer = json.readValue("cb", String.class, jsonData);
-			cb = ActionCallbackSerialization.find(cbSer);
-		}		
+	static class Timer {
+		float time;
+		double fireTime;
+		long sequence;
+		ActionCallback cb;
+
+		boolean before(Timer t) {
+			return fireTime < t.fireTime || (fireTime == t.fireTime && sequence < t.sequence);
+		}
 	}
 }
@@ -49,9 +49,10 @@ public class WalkTween extends SpritePosTween implements Serializable {
 		this.speed = speed;
 		this.currentStep = 0;
 
-		if (cb != null) {
-			walkCb = cb;
-		}
+		// The tween can be reused, clear the previous walk callbacks
+		walkCb = cb;
+		walkCbSer = null;
+		setCb(null);
 
 		restart();
 		walkToNextStep(target);
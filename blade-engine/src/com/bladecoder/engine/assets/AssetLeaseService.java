@@ -0,0 +1,317 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.assets;
+
+import com.badlogic.gdx.Application.ApplicationType;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.audio.Music;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g3d.Model;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.TimeUtils;
+import com.bladecoder.engine.util.EngineLogger;
+
+/**
+ * Engine wide reference counting for the assets used by the actor renderers.
+ *
+ * Renderers acquire an asset when they need it and release it when they don't.
+ * Released assets are not unloaded immediately: they are kept loaded during a
+ * grace period, so the assets shared by neighbouring scenes survive the scene
+ * transitions. The least recently released assets are unloaded before when the
+ * estimated memory exceeds the budget.
+ *
+ * @author rgarcia
+ */
+public class AssetLeaseService {
+	public static final float DEFAULT_GRACE_TIME = 30f;
+	public static final long DEFAULT_BUDGET = 96L * 1024L * 1024L;
+
+	private static AssetLeaseService instance;
+
+	public static class Lease {
+		private final String fileName;
+		private final Class<?> type;
+		private int refCount;
+		private long releaseTime;
+
+		/** Estimated memory size. -1 if not calculated yet */
+		private long bytes = -1;
+
+		Lease(String fileName, Class<?> type) {
+			this.fileName = fileName;
+			this.type = type;
+		}
+
+		public String getFileName() {
+			return fileName;
+		}
+
+		public int getRefCount() {
+			return refCount;
+		}
+
+		/**
+		 * @return The estimated memory size or 0 if unknown.
+		 */
+		public long getBytes() {
+			return bytes < 0 ? 0 : bytes;
+		}
+	}
+
+	private final ObjectMap<String, Lease> leases = new ObjectMap<String, Lease>();
+
+	/** Released assets still loaded. The first is the least recently used. */
+	private final Array<Lease> idle = new Array<Lease>(true, 16);
+
+	/** Time in seconds that a released asset is kept loaded */
+	private float graceTime = DEFAULT_GRACE_TIME;
+
+	/** Estimated bytes of all the leased assets. 0 for no limit */
+	private long budget = DEFAULT_BUDGET;
+
+	public static AssetLeaseService getInstance() {
+		if (instance == null)
+			instance = new AssetLeaseService();
+
+		return instance;
+	}
+
+	public void setGraceTime(float graceTime) {
+		this.graceTime = graceTime;
+		trim();
+	}
+
+	public float getGraceTime() {
+		return graceTime;
+	}
+
+	public void setBudget(long budget) {
+		this.budget = budget;
+		trim();
+	}
+
+	public long getBudget() {
+		return budget;
+	}
+
+	public void acquireAtlas(String name) {
+		acquire(EngineAssetManager.getAtlasFileName(name), TextureAtlas.class);
+	}
+
+	public void releaseAtlas(String name) {
+		release(EngineAssetManager.getAtlasFileName(name));
+	}
+
+	public void acquireTexture(String filename) {
+		acquire(filename, Texture.class);
+	}
+
+	public void releaseTexture(String filename) {
+		release(filename);
+	}
+
+	public void acquireModel3D(String name) {
+		acquire(EngineAssetManager.getModel3DFileName(name), Model.class);
+	}
+
+	public void releaseModel3D(String name) {
+		release(EngineAssetManager.getModel3DFileName(name));
+	}
+
+	public void acquireMusic(String filename) {
+		if (Gdx.app.getType() == ApplicationType.iOS && filename.toLowerCase().endsWith(".ogg")) {
+			EngineLogger.error("OGG files not supported in IOS");
+			return;
+		}
+
+		acquire(EngineAssetManager.MUSIC_DIR + filename, Music.class);
+	}
+
+	public void releaseMusic(String filename) {
+		if (Gdx.app.getType() == ApplicationType.iOS && filename.toLowerCase().endsWith(".ogg"))
+			return;
+
+		release(EngineAssetManager.MUSIC_DIR + filename);
+	}
+
+	/**
+	 * Queues the asset for loading if it is not loaded or kept in the grace
+	 * period.
+	 */
+	public void acquire(String fileName, Class<?> type) {
+		Lease lease = leases.get(fileName);
+
+		if (lease == null) {
+			lease = new Lease(fileName, type);
+			leases.put(fileName, lease);
+
+			EngineAssetManager.getInstance().load(fileName, type);
+		} else if (lease.refCount == 0) {
+			idle.removeValue(lease, true);
+		}
+
+		lease.refCount++;
+	}
+
+	public void release(String fileName) {
+		Lease lease = leases.get(fileName);
+
+		if (lease == null || lease.refCount == 0) {
+			EngineLogger.error("AssetLeaseService: Releasing not acquired asset " + fileName);
+			return;
+		}
+
+		lease.refCount--;
+
+		if (lease.refCount == 0) {
+			lease.releaseTime = TimeUtils.millis();
+			idle.add(lease);
+			trim();
+		}
+	}
+
+	/**
+	 * Unloads the released assets whose grace period has expired. Must be
+	 * called periodically.
+	 */
+	public void update() {
+		if (idle.size > 0)
+			trim();
+	}
+
+	/**
+	 * Forgets all the leases without unloading the assets. Used when the asset
+	 * manager is disposed.
+	 */
+	public void clear() {
+		leases.clear();
+		idle.clear();
+	}
+
+	/**
+	 * @return A new array with all the leased and idle assets.
+	 */
+	public Array<Lease> getLeases() {
+		Array<Lease> result = new Array<Lease>(leases.size);
+
+		for (Lease l : leases.values())
+			result.add(l);
+
+		return result;
+	}
+
+	public int getIdleCount() {
+		return idle.size;
+	}
+
+	/**
+	 * @return The estimated memory of all the loaded assets in the service.
+	 */
+	public long getEstimatedBytes() {
+		long total = 0;
+
+		for (Lease l : leases.values())
+			total += estimate(l);
+
+		return total;
+	}
+
+	private void trim() {
+		long expire = TimeUtils.millis() - (long) (graceTime * 1000);
+
+		while (idle.size > 0 && idle.first().releaseTime <= expire)
+			unload(idle.first());
+
+		if (budget > 0 && idle.size > 0) {
+			long total = getEstimatedBytes();
+
+			while (total > budget && idle.size > 0) {
+				Lease l = idle.first();
+				total -= estimate(l);
+				unload(l);
+			}
+		}
+	}
+
+	private void unload(Lease lease) {
+		idle.removeValue(lease, true);
+		leases.remove(lease.fileName);
+
+		try {
+			// also cancels the loading if it is queued
+			EngineAssetManager.getInstance().unload(lease.fileName);
+		} catch (GdxRuntimeException e) {
+			EngineLogger.debug("AssetLeaseService: Asset not loaded " + lease.fileName);
+		}
+	}
+
+	/**
+	 * Estimates the memory size of the textures of the asset. Assets not
+	 * loaded yet count as 0.
+	 */
+	private long estimate(Lease lease) {
+		if (lease.bytes >= 0)
+			return lease.bytes;
+
+		EngineAssetManager am = EngineAssetManager.getInstance();
+
+		if (!am.isLoaded(lease.fileName))
+			return 0;
+
+		long bytes = 0;
+
+		if (lease.type == TextureAtlas.class) {
+			TextureAtlas atlas = am.get(lease.fileName, TextureAtlas.class);
+
+			for (Texture t : atlas.getTextures())
+				bytes += textureBytes(t);
+		} else if (lease.type == Texture.class) {
+			bytes = textureBytes(am.get(lease.fileName, Texture.class));
+		} else if (lease.type == Model.class) {
+			for (Disposable d : am.get(lease.fileName, Model.class).getManagedDisposables()) {
+				if (d instanceof Texture)
+					bytes += textureBytes((Texture) d);
+			}
+		} else {
+			// Assets from the plugins: the textures of their dependencies
+			Array<String> deps = am.getDependencies(lease.fileName);
+
+			if (deps != null) {
+				for (String d : deps) {
+					if (am.getAssetType(d) == TextureAtlas.class) {
+						for (Texture t : am.get(d, TextureAtlas.class).getTextures())
+							bytes += textureBytes(t);
+					} else if (am.getAssetType(d) == Texture.class) {
+						bytes += textureBytes(am.get(d, Texture.class));
+					}
+				}
+			}
+		}
+
+		lease.bytes = bytes;
+
+		return bytes;
+	}
+
+	private static long textureBytes(Texture t) {
+		// RGBA8888. Good enough for the budget.
+		return (long) t.getWidth() * t.getHeight() * 4;
+	}
+}
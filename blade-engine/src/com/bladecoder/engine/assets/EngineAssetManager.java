@@ -133,6 +133,9 @@ public class EngineAssetManager extends AssetManager {
 		instance = new EngineAssetManager(new BasePathResolver(base));
 		instance.forceResolution("1");
 		instance.setScale(worldWidth, worldHeight);
+
+		// The assets can change in the editor, don't keep them loaded
+		AssetLeaseService.getInstance().setGraceTime(0);
 	}
 
 	public void forceResolution(String suffix) {
@@ -145,6 +148,14 @@ public class EngineAssetManager extends AssetManager {
 		return resResolver.getResolution();
 	}
 
+	/**
+	 * The resolver without the resolution folders. For the loaders of the
+	 * assets that don't depend on the resolution.
+	 */
+	public FileHandleResolver getBaseResolver() {
+		return resResolver.getBaseResolver();
+	}
+
 	public boolean isLoading() {
 		return !update();
 	}
@@ -188,17 +199,21 @@ public class EngineAssetManager extends AssetManager {
 	// unload(getAssetFileName(font));
 	// }
 
+	public static String getAtlasFileName(String name) {
+		return ATLASES_DIR + name + ".atlas";
+	}
+
 	public void loadAtlas(String name) {
-		load(ATLASES_DIR + name + ".atlas", TextureAtlas.class);
+		load(getAtlasFileName(name), TextureAtlas.class);
 	}
 
 	public boolean isAtlasLoaded(String name) {
-		return isLoaded(ATLASES_DIR + name + ".atlas");
+		return isLoaded(getAtlasFileName(name));
 	}
 
 	public void disposeAtlas(String name) {
 		if (isAtlasLoaded(name))
-			unload(ATLASES_DIR + name + ".atlas");
+			unload(getAtlasFileName(name));
 	}
 
 	public FileHandle getModelFile(String filename) {
@@ -270,6 +285,7 @@ public class EngineAssetManager extends AssetManager {
 
 	public void dispose() {
 		super.dispose();
+		AssetLeaseService.getInstance().clear();
 		instance = null;
 	}
 
@@ -329,21 +345,33 @@ public class EngineAssetManager extends AssetManager {
 			unload(SOUND_DIR + filename);
 	}
 
+	public static String getSpineFileName(String name) {
+		return SPINE_DIR + name + SPINE_EXT;
+	}
+
 	public FileHandle getSpine(String name) {
-		return resResolver.baseResolve(SPINE_DIR + name + SPINE_EXT);
+		return resResolver.baseResolve(getSpineFileName(name));
+	}
+
+	public static String getModel3DFileName(String name) {
+		return MODEL3D_DIR + name + MODEL3D_EXT;
 	}
 
 	public void loadModel3D(String name) {
-		load(MODEL3D_DIR + name + MODEL3D_EXT, Model.class);
+		load(getModel3DFileName(name), Model.class);
 	}
 
 	public Model getModel3D(String name) {
-		return get(MODEL3D_DIR + name + MODEL3D_EXT, Model.class);
+		return get(getModel3DFileName(name), Model.class);
+	}
+
+	public boolean isModel3DLoaded(String name) {
+		return isLoaded(getModel3DFileName(name));
 	}
 
 	public void disposeModel3D(String name) {
-		if (isLoaded(MODEL3D_DIR + name + MODEL3D_EXT))
-			unload(MODEL3D_DIR + name + MODEL3D_EXT);
+		if (isModel3DLoaded(name))
+			unload(getModel3DFileName(name));
 	}
 
 	public boolean assetExists(String filename) {
@@ -464,7 +492,8 @@ public class EngineAssetManager extends AssetManager {
 	public FileHandle getUserFile(String filename) {
 		FileHandle file = null;
 
-		if (Gdx.app.getType() == ApplicationType.Desktop || Gdx.app.getType() == ApplicationType.Applet) {
+		if (Gdx.app.getType() == ApplicationType.Desktop || Gdx.app.getType() == ApplicationType.HeadlessDesktop
+				|| Gdx.app.getType() == ApplicationType.Applet) {
 			String dir = Config.getProperty(Config.TITLE_PROP, DESKTOP_PREFS_DIR);
 			dir.replaceAll(" ", "");
 
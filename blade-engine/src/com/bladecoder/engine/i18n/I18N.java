@@ -15,47 +15,143 @@
  ******************************************************************************/
 package com.bladecoder.engine.i18n;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.List;
 import java.util.Locale;
-import java.util.ResourceBundle;
+import java.util.ResourceBundle.Control;
 
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.PropertiesUtils;
+import com.bladecoder.engine.assets.EngineAssetManager;
 import com.bladecoder.engine.util.EngineLogger;
+import com.bladecoder.engine.util.FileUtils;
 
+/**
+ * Translated strings of the world and the current chapter.
+ * 
+ * The .properties files of a bundle are loaded in one hash table per locale
+ * with the locale fallback chain already resolved: the root file, then the
+ * language file and then the country file, each one overriding the previous.
+ * A key is searched in the chapter table and then in the world table.
+ * 
+ * The tables of every used locale are kept, so the locale can be switched
+ * without reloading the chapter.
+ * 
+ * @author rgarcia
+ */
 public class I18N {
-	private static ResourceBundle i18nWorld;
-	private static ResourceBundle i18nChapter;
-	
-	public static void loadChapter(String i18nChapterFilename) {
-		Locale locale = Locale.getDefault();
+	private static final String ENCODING = "ISO-8859-1";
+
+	private static final Control control = Control.getControl(Control.FORMAT_PROPERTIES);
 
-		try {
-			i18nChapter = ResourceBundle.getBundle(i18nChapterFilename, locale,
-					new I18NControl("ISO-8859-1"));
-		} catch (Exception e) {
-			EngineLogger.error("ERROR LOADING BUNDLE: " + i18nChapter);
+	private static Locale locale = Locale.getDefault();
+
+	private static String worldBaseName;
+	private static String chapterBaseName;
+
+	private static ObjectMap<String, String> i18nWorld = new ObjectMap<String, String>();
+	private static ObjectMap<String, String> i18nChapter = new ObjectMap<String, String>();
+
+	/** Loaded tables by locale */
+	private static final ObjectMap<Locale, ObjectMap<String, String>> worldTables = new ObjectMap<Locale, ObjectMap<String, String>>();
+	private static final ObjectMap<Locale, ObjectMap<String, String>> chapterTables = new ObjectMap<Locale, ObjectMap<String, String>>();
+
+	public static void loadChapter(String i18nChapterFilename) {
+		if (!i18nChapterFilename.equals(chapterBaseName)) {
+			chapterTables.clear();
+			chapterBaseName = i18nChapterFilename;
 		}
+
+		i18nChapter = getTable(chapterBaseName, chapterTables);
 	}
-	
+
 	public static void loadWorld(String i18nWorldFilename) {
-		Locale locale = Locale.getDefault();
-		
-		try {
-			i18nWorld = ResourceBundle.getBundle(i18nWorldFilename, locale,
-					new I18NControl("ISO-8859-1"));
-		} catch (Exception e) {
-			EngineLogger.error("ERROR LOADING BUNDLE: " + i18nWorld);
+		if (!i18nWorldFilename.equals(worldBaseName)) {
+			worldTables.clear();
+			worldBaseName = i18nWorldFilename;
 		}
+
+		i18nWorld = getTable(worldBaseName, worldTables);
+	}
+
+	public static Locale getLocale() {
+		return locale;
+	}
+
+	/**
+	 * Changes the language of the strings. The texts already in the screen
+	 * are not changed.
+	 */
+	public static void setLocale(Locale l) {
+		locale = l;
+
+		if (worldBaseName != null)
+			i18nWorld = getTable(worldBaseName, worldTables);
+
+		if (chapterBaseName != null)
+			i18nChapter = getTable(chapterBaseName, chapterTables);
 	}
-	
+
 	public static String getString(String key) {
-		try {
-			return i18nChapter.getString(key);
-		} catch (Exception e) {
+		String s = i18nChapter.get(key);
+
+		if (s == null)
+			s = i18nWorld.get(key);
+
+		if (s == null) {
+			EngineLogger.error("MISSING TRANSLATION KEY: " + key);
+			return key;
+		}
+
+		return s;
+	}
+
+	private static ObjectMap<String, String> getTable(String baseName, ObjectMap<Locale, ObjectMap<String, String>> tables) {
+		ObjectMap<String, String> table = tables.get(locale);
+
+		if (table == null) {
+			table = loadTable(baseName, locale);
+			tables.put(locale, table);
+		}
+
+		return table;
+	}
+
+	private static ObjectMap<String, String> loadTable(String baseName, Locale l) {
+		ObjectMap<String, String> table = new ObjectMap<String, String>();
+
+		// From the most specific to Locale.ROOT
+		List<Locale> candidates = control.getCandidateLocales(baseName, l);
+		boolean found = false;
+
+		for (int i = candidates.size() - 1; i >= 0; i--) {
+			String resourceName = control.toResourceName(control.toBundleName(baseName, candidates.get(i)),
+					"properties");
+			FileHandle fileHandle = EngineAssetManager.getInstance().getAsset(resourceName);
+
+			if (!FileUtils.exists(fileHandle))
+				continue;
+
 			try {
-				return i18nWorld.getString(key);
-			} catch (Exception e2) {
-				EngineLogger.error("MISSING TRANSLATION KEY: " + key);
-				return key;
+				Reader reader = new InputStreamReader(fileHandle.read(), ENCODING);
+
+				try {
+					PropertiesUtils.load(table, reader);
+					found = true;
+				} finally {
+					reader.close();
+				}
+			} catch (IOException e) {
+				EngineLogger.error("ERROR LOADING BUNDLE: " + resourceName, e);
 			}
 		}
+
+		if (!found)
+			EngineLogger.error("ERROR LOADING BUNDLE: " + baseName);
+
+		return table;
 	}
 }
@@ -0,0 +1,427 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.loader;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+import org.xml.sax.helpers.LocatorImpl;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.reflect.ClassReflection;
+import com.badlogic.gdx.utils.reflect.ReflectionException;
+import com.bladecoder.engine.util.EngineLogger;
+
+/**
+ * Loads the precompiled binary version of a .chapter file.
+ *
+ * The binary file is generated offline by the editor from the XML chapter. It
+ * stores the same element tree but with all the strings interned in a table,
+ * the polygons and vectors already parsed and the action classes resolved.
+ *
+ * The elements are replayed through the SAX handler used for the XML so both
+ * formats create exactly the same model.
+ *
+ * Format (big endian):
+ *
+ * <pre>
+ * int    MAGIC
+ * int    VERSION
+ * long   size of the source .chapter file
+ * long   modification time of the source .chapter file
+ * long   CRC32 of the source .chapter file
+ * varint string count, UTF strings
+ * element:
+ *   varint tag, varint attr count
+ *   attr: varint name, byte type, value
+ *   varint child count, children elements
+ * </pre>
+ *
+ * @author rgarcia
+ */
+public class ChapterBinaryLoader {
+	public static final String EXT = ".chapter.bin";
+
+	public static final int MAGIC = 0x42434850; // 'BCHP'
+	public static final int VERSION = 3;
+
+	/** Attribute value is an index in the string table */
+	public static final byte TYPE_STRING = 0;
+	/** Attribute value is a float array (polygons and vectors) */
+	public static final byte TYPE_FLOATS = 1;
+	/** Attribute value is the string index of an already resolved action class */
+	public static final byte TYPE_CLASS = 2;
+
+	private final DataInputStream in;
+	private final DefaultHandler handler;
+	private final LocatorImpl locator = new LocatorImpl();
+
+	private String[] strings;
+	private Class<?>[] classes;
+
+	private BinaryAttributes[] attsStack = new BinaryAttributes[8];
+
+	/**
+	 * Loads the binary chapter in the handler.
+	 *
+	 * @param binStream
+	 *            The compiled chapter
+	 * @param xmlFile
+	 *            The source chapter. If it exists and it has changed since
+	 *            the binary file was compiled, the binary is considered stale.
+	 *            Can be null.
+	 * @return false if the binary file is stale or was created with other
+	 *         version. The XML must be used in this case.
+	 */
+	public static boolean load(InputStream binStream, FileHandle xmlFile,
+			DefaultHandler handler) throws IOException, SAXException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(
+				binStream, 8192));
+
+		try {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				EngineLogger.debug("Binary chapter version mismatch.");
+				return false;
+			}
+
+			long sourceLength = in.readLong();
+			long sourceLastModified = in.readLong();
+			long sourceChecksum = in.readLong();
+
+			if (xmlFile != null
+					&& xmlFile.exists()
+					&& isModified(xmlFile, sourceLength, sourceLastModified,
+							sourceChecksum)) {
+				EngineLogger.debug("Binary chapter is stale: " + xmlFile.name());
+				return false;
+			}
+
+			new ChapterBinaryLoader(in, handler).parse();
+		} finally {
+			in.close();
+		}
+
+		return true;
+	}
+
+	/**
+	 * Loads a binary chapter from a stream without checking the source file.
+	 */
+	public static boolean load(InputStream is, DefaultHandler handler)
+			throws IOException, SAXException {
+		return load(is, null, handler);
+	}
+
+	/**
+	 * Compares the size and the modification time of the source file with the
+	 * ones stored when compiling. The file is only read to compare the
+	 * checksum when the size matches but the time doesn't, which happens when
+	 * the assets are copied. When the size or the time are not available (0),
+	 * like for files packaged in a jar, they are not compared.
+	 */
+	private static boolean isModified(FileHandle xmlFile, long length,
+			long lastModified, long checksum) throws IOException {
+		long l = xmlFile.length();
+
+		if (l != 0 && l != length)
+			return true;
+
+		long t = xmlFile.lastModified();
+
+		if (t == 0 || t == lastModified)
+			return false;
+
+		return checksum(xmlFile) != checksum;
+	}
+
+	/**
+	 * @return The CRC32 of the file contents. Stored in the binary file to
+	 *         detect if the source chapter has changed.
+	 */
+	public static long checksum(FileHandle file) throws IOException {
+		CRC32 crc = new CRC32();
+		byte[] buffer = new byte[8192];
+		InputStream is = file.read();
+
+		try {
+			int n;
+
+			while ((n = is.read(buffer)) != -1)
+				crc.update(buffer, 0, n);
+		} finally {
+			is.close();
+		}
+
+		return crc.getValue();
+	}
+
+	private ChapterBinaryLoader(DataInputStream in, DefaultHandler handler) {
+		this.in = in;
+		this.handler = handler;
+	}
+
+	private void parse() throws IOException, SAXException {
+		int n = readVarInt(in);
+		strings = new String[n];
+		classes = new Class<?>[n];
+
+		for (int i = 0; i < n; i++)
+			strings[i] = in.readUTF();
+
+		handler.setDocumentLocator(locator);
+		handler.startDocument();
+		readElement(0);
+		handler.endDocument();
+	}
+
+	private void readElement(int depth) throws IOException, SAXException {
+		String tag = strings[readVarInt(in)];
+
+		if (depth == attsStack.length) {
+			BinaryAttributes[] a = new BinaryAttributes[depth * 2];
+			System.arraycopy(attsStack, 0, a, 0, depth);
+			attsStack = a;
+		}
+
+		BinaryAttributes atts = attsStack[depth];
+
+		if (atts == null) {
+			atts = new BinaryAttributes();
+			attsStack[depth] = atts;
+		}
+
+		atts.clear();
+
+		int numAtts = readVarInt(in);
+
+		for (int i = 0; i < numAtts; i++) {
+			String name = strings[readVarInt(in)];
+			byte type = in.readByte();
+
+			switch (type) {
+			case TYPE_STRING:
+				atts.add(name, strings[readVarInt(in)], null, null);
+				break;
+			case TYPE_FLOATS:
+				int l = readVarInt(in);
+				float[] f = new float[l];
+
+				for (int j = 0; j < l; j++)
+					f[j] = in.readFloat();
+
+				atts.add(name, null, f, null);
+				break;
+			case TYPE_CLASS:
+				int idx = readVarInt(in);
+				atts.add(name, strings[idx], null, resolveClass(idx));
+				break;
+			default:
+				throw new IOException("Wrong attribute type in binary chapter: "
+						+ type);
+			}
+		}
+
+		// There are no lines in the binary format. We use the element count
+		// to locate errors.
+		locator.setLineNumber(locator.getLineNumber() + 1);
+
+		handler.startElement("", tag, tag, atts);
+
+		int numChildren = readVarInt(in);
+
+		for (int i = 0; i < numChildren; i++)
+			readElement(depth + 1);
+
+		handler.endElement("", tag, tag);
+	}
+
+	private Class<?> resolveClass(int idx) {
+		if (classes[idx] == null) {
+			try {
+				classes[idx] = ClassReflection.forName(strings[idx]);
+			} catch (ReflectionException e) {
+				EngineLogger.error(e.getMessage());
+			}
+		}
+
+		return classes[idx];
+	}
+
+	public static int readVarInt(DataInputStream in) throws IOException {
+		int result = 0;
+		int shift = 0;
+		int b;
+
+		do {
+			b = in.readUnsignedByte();
+			result |= (b & 0x7f) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+
+		return result;
+	}
+
+	/**
+	 * SAX attributes with typed values. The pre-parsed values can be retrieved
+	 * through getFloats() and getActionClass(). getValue() always returns the
+	 * string representation for compatibility with the XML path.
+	 */
+	static class BinaryAttributes implements Attributes {
+		private int size;
+		private String[] names = new String[16];
+		private String[] values = new String[16];
+		private float[][] floats = new float[16][];
+		private Class<?>[] classes = new Class<?>[16];
+
+		void clear() {
+			for (int i = 0; i < size; i++) {
+				values[i] = null;
+				floats[i] = null;
+				classes[i] = null;
+			}
+
+			size = 0;
+		}
+
+		void add(String name, String value, float[] f, Class<?> c) {
+			if (size == names.length) {
+				int l = size * 2;
+				String[] n = new String[l];
+				String[] v = new String[l];
+				float[][] fl = new float[l][];
+				Class<?>[] cl = new Class<?>[l];
+				System.arraycopy(names, 0, n, 0, size);
+				System.arraycopy(values, 0, v, 0, size);
+				System.arraycopy(floats, 0, fl, 0, size);
+				System.arraycopy(classes, 0, cl, 0, size);
+				names = n;
+				values = v;
+				floats = fl;
+				classes = cl;
+			}
+
+			names[size] = name;
+			values[size] = value;
+			floats[size] = f;
+			classes[size] = c;
+			size++;
+		}
+
+		public float[] getFloats(String name) {
+			int i = getIndex(name);
+
+			return i == -1 ? null : floats[i];
+		}
+
+		public Class<?> getActionClass() {
+			for (int i = 0; i < size; i++)
+				if (classes[i] != null)
+					return classes[i];
+
+			return null;
+		}
+
+		@Override
+		public int getLength() {
+			return size;
+		}
+
+		@Override
+		public String getURI(int index) {
+			return "";
+		}
+
+		@Override
+		public String getLocalName(int index) {
+			return index >= 0 && index < size ? names[index] : null;
+		}
+
+		@Override
+		public String getQName(int index) {
+			return getLocalName(index);
+		}
+
+		@Override
+		public String getType(int index) {
+			return "CDATA";
+		}
+
+		@Override
+		public String getValue(int index) {
+			if (index < 0 || index >= size)
+				return null;
+
+			if (values[index] == null && floats[index] != null) {
+				// Only used if some code asks for the string of a pre-parsed value
+				StringBuilder sb = new StringBuilder();
+				float[] f = floats[index];
+
+				for (int i = 0; i < f.length; i++) {
+					if (i > 0)
+						sb.append(',');
+
+					sb.append(f[i]);
+				}
+
+				values[index] = sb.toString();
+			}
+
+			return values[index];
+		}
+
+		@Override
+		public int getIndex(String uri, String localName) {
+			return getIndex(localName);
+		}
+
+		@Override
+		public int getIndex(String qName) {
+			for (int i = 0; i < size; i++)
+				if (names[i].equals(qName))
+					return i;
+
+			return -1;
+		}
+
+		@Override
+		public String getType(String uri, String localName) {
+			return getIndex(localName) == -1 ? null : "CDATA";
+		}
+
+		@Override
+		public String getType(String qName) {
+			return getIndex(qName) == -1 ? null : "CDATA";
+		}
+
+		@Override
+		public String getValue(String uri, String localName) {
+			return getValue(getIndex(localName));
+		}
+
+		@Override
+		public String getValue(String qName) {
+			int i = getIndex(qName);
+
+			return i == -1 ? null : getValue(i);
+		}
+	}
+}
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.loader;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Progress of a chapter being loaded in a background thread.
+ *
+ * It is written by the loader thread and can be read from the GL thread at any
+ * time.
+ *
+ * @author rgarcia
+ */
+public class ChapterLoadProgress {
+	private volatile long totalBytes;
+	private volatile long bytesRead;
+	private volatile int scenesBuilt;
+
+	/**
+	 * @return The fraction of the chapter file already parsed [0..1]
+	 */
+	public float getParsedFraction() {
+		long total = totalBytes;
+
+		if (total <= 0)
+			return 0;
+
+		return Math.min(1f, (float) bytesRead / total);
+	}
+
+	/**
+	 * @return The number of scenes completely created
+	 */
+	public int getScenesBuilt() {
+		return scenesBuilt;
+	}
+
+	void sceneBuilt() {
+		scenesBuilt++;
+	}
+
+	/**
+	 * Wraps the chapter stream to count the bytes read.
+	 */
+	InputStream track(InputStream in, long length) {
+		totalBytes = length;
+		bytesRead = 0;
+
+		return new FilterInputStream(in) {
+			@Override
+			public int read() throws IOException {
+				int b = super.read();
+
+				if (b != -1)
+					bytesRead++;
+
+				return b;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				int n = super.read(b, off, len);
+
+				if (n > 0)
+					bytesRead += n;
+
+				return n;
+			}
+
+			@Override
+			public long skip(long n) throws IOException {
+				long s = super.skip(n);
+				bytesRead += s;
+
+				return s;
+			}
+		};
+	}
+}
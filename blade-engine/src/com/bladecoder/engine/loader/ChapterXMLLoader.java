@@ -69,10 +69,16 @@ public class ChapterXMLLoader extends DefaultHandler {
 	private List<Scene> scenes = new ArrayList<Scene>();
 	private String initScene;
 
+	private ChapterLoadProgress progress;
+
 	public ChapterXMLLoader() {
 		scale = EngineAssetManager.getInstance().getScale();
 	}
 
+	public void setProgress(ChapterLoadProgress progress) {
+		this.progress = progress;
+	}
+
 	public String getInitScene() {
 		return initScene;
 	}
@@ -153,8 +159,7 @@ public class ChapterXMLLoader extends DefaultHandler {
 					float fov = 67;
 
 					try {
-						Vector2 spriteSize = Param.parseVector2(atts
-								.getValue("sprite_size"));
+						Vector2 spriteSize = parseVector2(atts, "sprite_size");
 
 						spriteSize.x *= scale;
 						spriteSize.y *= scale;
@@ -163,15 +168,13 @@ public class ChapterXMLLoader extends DefaultHandler {
 
 						if (atts.getValue("cam_pos") != null) {
 
-							camPos = Param.parseVector3(atts
-									.getValue("cam_pos"));
+							camPos = parseVector3(atts, "cam_pos");
 
 							r.setCameraPos(camPos.x, camPos.y, camPos.z);
 						}
 
 						if (atts.getValue("cam_rot") != null) {
-							camRot = Param.parseVector3(atts
-									.getValue("cam_rot"));
+							camRot = parseVector3(atts, "cam_rot");
 
 							r.setCameraRot(camRot.x, camRot.y, camRot.z);
 						}
@@ -249,7 +252,7 @@ public class ChapterXMLLoader extends DefaultHandler {
 			if (atts.getValue("bbox") != null) {
 
 				try {
-					p = Param.parsePolygon(atts.getValue("bbox"));
+					p = parsePolygon(atts, "bbox");
 					p.setScale(scale, scale);
 				} catch (NumberFormatException e) {
 					SAXParseException e2 = new SAXParseException(
@@ -271,7 +274,7 @@ public class ChapterXMLLoader extends DefaultHandler {
 			}	
 
 			// PARSE POSTITION
-			Vector2 pos = Param.parseVector2(atts.getValue("pos"));
+			Vector2 pos = parseVector2(atts, "pos");
 			if (pos == null) {
 				SAXParseException e2 = new SAXParseException(
 						"Wrong actor XML position", locator);
@@ -378,11 +381,11 @@ public class ChapterXMLLoader extends DefaultHandler {
 							.parseBoolean(disposewhenplayedstr);
 
 				if (inDstr != null && !inDstr.isEmpty()) {
-					inD = Param.parseVector2(inDstr);
+					inD = parseVector2(atts, "inD");
 				}
 
 				if (outDstr != null && !outDstr.isEmpty()) {
-					outD = Param.parseVector2(outDstr);
+					outD = parseVector2(atts, "outD");
 				}
 
 			} catch (NumberFormatException e) {
@@ -427,8 +430,7 @@ public class ChapterXMLLoader extends DefaultHandler {
 			initScene = atts.getValue("init_scene");
 		} else if (localName.equals("walk_zone")) {
 			PolygonalNavGraph polygonalPathFinder = new PolygonalNavGraph();
-			Polygon poly = Param.parsePolygon(atts.getValue("polygon"),
-					atts.getValue("pos"));
+			Polygon poly = parsePolygon(atts, "polygon", "pos");
 			poly.setScale(scale, scale);
 			poly.setPosition(poly.getX() * scale, poly.getY() * scale);
 			polygonalPathFinder.setWalkZone(poly);
@@ -437,8 +439,7 @@ public class ChapterXMLLoader extends DefaultHandler {
 		} else if (localName.equals("obstacle")) {
 			PolygonalNavGraph polygonalPathFinder = scene
 					.getPolygonalNavGraph();
-			Polygon poly = Param.parsePolygon(atts.getValue("polygon"),
-					atts.getValue("pos"));
+			Polygon poly = parsePolygon(atts, "polygon", "pos");
 			poly.setScale(scale, scale);
 			poly.setPosition(poly.getX() * scale, poly.getY() * scale);
 			polygonalPathFinder.addObstacle(poly);
@@ -457,8 +458,7 @@ public class ChapterXMLLoader extends DefaultHandler {
 			String initialMusicDelayStr = atts.getValue("initial_music_delay");
 			String repeatMusicDelayStr = atts.getValue("repeat_music_delay");
 
-			scene.setDepthVector(Param.parseVector2(atts
-					.getValue("depth_vector")));
+			scene.setDepthVector(parseVector2(atts, "depth_vector"));
 			player = atts.getValue("player");
 
 			if (idScn == null || idScn.isEmpty()) {
@@ -516,6 +516,9 @@ public class ChapterXMLLoader extends DefaultHandler {
 			actor = null;
 		} else if (localName.equals("scene")) {
 			scene.setPlayer((SpriteActor) scene.getActor(player, false));
+
+			if (progress != null)
+				progress.sceneBuilt();
 		}
 	}
 
@@ -592,7 +595,15 @@ public class ChapterXMLLoader extends DefaultHandler {
 			if (atts.getValue("", "actor") == null)
 				actionParams.put("actor", actor);
 
-			if (actionClass != null) {
+			Class<?> resolvedClass = null;
+
+			if (atts instanceof ChapterBinaryLoader.BinaryAttributes)
+				resolvedClass = ((ChapterBinaryLoader.BinaryAttributes) atts)
+						.getActionClass();
+
+			if (resolvedClass != null) {
+				action = ActionFactory.createByClass(resolvedClass, actionParams);
+			} else if (actionClass != null) {
 				action = ActionFactory.createByClass(actionClass, actionParams);
 			} else if (actionName != null) {
 				action = ActionFactory.create(actionName, actionParams);
@@ -606,6 +617,53 @@ public class ChapterXMLLoader extends DefaultHandler {
 		}
 	}
 
+	/**
+	 * Gets the pre-parsed value when loading from the binary chapter or parses
+	 * the string value when loading from XML.
+	 */
+	private static float[] getFloats(Attributes atts, String name) {
+		if (atts instanceof ChapterBinaryLoader.BinaryAttributes)
+			return ((ChapterBinaryLoader.BinaryAttributes) atts).getFloats(name);
+
+		return null;
+	}
+
+	private static Vector2 parseVector2(Attributes atts, String name) {
+		float[] f = getFloats(atts, name);
+
+		if (f != null && f.length == 2)
+			return new Vector2(f[0], f[1]);
+
+		return Param.parseVector2(atts.getValue(name));
+	}
+
+	private static Vector3 parseVector3(Attributes atts, String name) {
+		float[] f = getFloats(atts, name);
+
+		if (f != null && f.length == 3)
+			return new Vector3(f[0], f[1], f[2]);
+
+		return Param.parseVector3(atts.getValue(name));
+	}
+
+	private static Polygon parsePolygon(Attributes atts, String name) {
+		float[] f = getFloats(atts, name);
+
+		if (f != null)
+			return new Polygon(f);
+
+		return Param.parsePolygon(atts.getValue(name));
+	}
+
+	private static Polygon parsePolygon(Attributes atts, String name,
+			String pos) {
+		Polygon p = parsePolygon(atts, name);
+		Vector2 v2 = parseVector2(atts, pos);
+		p.setPosition(v2.x, v2.y);
+
+		return p;
+	}
+
 	public List<Scene> getScenes() {
 		return scenes;
 	}
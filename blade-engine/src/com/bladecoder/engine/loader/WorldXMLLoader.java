@@ -16,6 +16,7 @@
 package com.bladecoder.engine.loader;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.text.MessageFormat;
 import java.util.HashMap;
 
@@ -31,6 +32,7 @@ import org.xml.sax.SAXParseException;
 import org.xml.sax.XMLReader;
 import org.xml.sax.helpers.DefaultHandler;
 
+import com.badlogic.gdx.files.FileHandle;
 import com.bladecoder.engine.actions.Action;
 import com.bladecoder.engine.actions.ActionFactory;
 import com.bladecoder.engine.assets.EngineAssetManager;
@@ -39,7 +41,9 @@ import com.bladecoder.engine.model.Scene;
 import com.bladecoder.engine.model.Verb;
 import com.bladecoder.engine.model.VerbManager;
 import com.bladecoder.engine.model.World;
+import com.bladecoder.engine.util.ActionCallbackSerialization;
 import com.bladecoder.engine.util.EngineLogger;
+import com.bladecoder.engine.util.FileUtils;
 
 public class WorldXMLLoader extends DefaultHandler {
 	private static final String WORLD_FILENAME = "world.xml";
@@ -74,18 +78,53 @@ public class WorldXMLLoader extends DefaultHandler {
 			chapter = world.getInitChapter();
 		}
 
-		SAXParserFactory spf = SAXParserFactory.newInstance();
-		spf.setNamespaceAware(true);
-		SAXParser saxParser = spf.newSAXParser();
+		ChapterXMLLoader parser = parseChapter(chapter, null);
+
+		setChapter(chapter, parser, world);
+	}
 
+	/**
+	 * Creates the chapter model without touching the world. It doesn't use GL
+	 * so it can be called from a background thread.
+	 * 
+	 * @param progress
+	 *            If not null, it is updated while parsing.
+	 */
+	public static ChapterXMLLoader parseChapter(String chapter,
+			ChapterLoadProgress progress) throws ParserConfigurationException,
+			SAXException, IOException {
 		ChapterXMLLoader parser = new ChapterXMLLoader();
-		XMLReader xmlReader = saxParser.getXMLReader();
-		xmlReader.setContentHandler(parser);
-		xmlReader.parse(new InputSource(EngineAssetManager.getInstance()
-				.getModelFile(chapter + ".chapter").read()));
+		parser.setProgress(progress);
+
+		FileHandle xmlFile = EngineAssetManager.getInstance().getModelFile(
+				chapter + ".chapter");
+		FileHandle binFile = EngineAssetManager.getInstance().getModelFile(
+				chapter + ChapterBinaryLoader.EXT);
+
+		// Use the precompiled chapter if exists. The XML is the fallback.
+		if (!FileUtils.exists(binFile)
+				|| !ChapterBinaryLoader.load(read(binFile, progress), xmlFile,
+						parser)) {
+			SAXParserFactory spf = SAXParserFactory.newInstance();
+			spf.setNamespaceAware(true);
+			SAXParser saxParser = spf.newSAXParser();
+
+			XMLReader xmlReader = saxParser.getXMLReader();
+			xmlReader.setContentHandler(parser);
+			xmlReader.parse(new InputSource(read(xmlFile, progress)));
+		}
 
 		I18N.loadChapter(EngineAssetManager.MODEL_DIR + chapter);
 
+		return parser;
+	}
+
+	/**
+	 * Adds the scenes created by the parser to the world and sets the initial
+	 * scene. Must be called from the GL thread.
+	 */
+	public static void setChapter(String chapter, ChapterXMLLoader parser,
+			World world) {
 		world.setChapter(chapter);
 
 		for (Scene s : parser.getScenes()) {
@@ -98,7 +137,17 @@ public class WorldXMLLoader extends DefaultHandler {
 			world.setCurrentScene(parser.getInitScene());
 		else if (parser.getScenes().size() > 0)
 			world.setCurrentScene(parser.getScenes().get(0).getId());
-	}	
+
+		ActionCallbackSerialization.buildIndex();
+	}
+
+	private static InputStream read(FileHandle file,
+			ChapterLoadProgress progress) {
+		if (progress == null)
+			return file.read();
+
+		return progress.track(file.read(), file.length());
+	}
 
 	public WorldXMLLoader(World world) {
 		this.world = world;
@@ -0,0 +1,174 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.model;
+
+import com.badlogic.gdx.math.Polygon;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntMap;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * Uniform grid with the bounding rectangles of the scene actors to speed up
+ * hit testing.
+ *
+ * Actors are marked as dirty when their bbox changes and they are relocated in
+ * the grid before the next query.
+ *
+ * @author rgarcia
+ */
+class ActorGrid {
+	private static final float CELL_SIZE = 256f;
+
+	/** Actors covering more cells are stored in a list checked always */
+	private static final int MAX_CELLS = 1024;
+
+	private final IntMap<Array<BaseActor>> cells = new IntMap<Array<BaseActor>>();
+	private final Array<BaseActor> bigActors = new Array<BaseActor>(false, 4);
+
+	/** Cell range for every actor: minX, minY, maxX, maxY */
+	private final ObjectMap<BaseActor, int[]> ranges = new ObjectMap<BaseActor, int[]>();
+
+	private final Array<BaseActor> dirty = new Array<BaseActor>(false, 16);
+
+	private final Array<BaseActor> result = new Array<BaseActor>(false, 16);
+
+	public void add(BaseActor a) {
+		if (ranges.containsKey(a))
+			return;
+
+		int[] range = new int[4];
+		ranges.put(a, range);
+		insert(a, range);
+	}
+
+	public void remove(BaseActor a) {
+		int[] range = ranges.remove(a);
+
+		if (range != null) {
+			delete(a, range);
+			dirty.removeValue(a, true);
+		}
+	}
+
+	public void clear() {
+		cells.clear();
+		bigActors.clear();
+		ranges.clear();
+		dirty.clear();
+	}
+
+	/**
+	 * Must be called when the bbox of an actor changes.
+	 */
+	public void markDirty(BaseActor a) {
+		if (ranges.containsKey(a) && !dirty.contains(a, true))
+			dirty.add(a);
+	}
+
+	/**
+	 * Returns the actors whose bounding rectangle can contain the point. The
+	 * returned array is reused in the next call.
+	 */
+	public Array<BaseActor> query(float x, float y) {
+		update();
+
+		result.clear();
+
+		Array<BaseActor> cell = cells.get(key(cell(x), cell(y)));
+
+		if (cell != null)
+			result.addAll(cell);
+
+		result.addAll(bigActors);
+
+		return result;
+	}
+
+	private void update() {
+		for (int i = 0; i < dirty.size; i++) {
+			BaseActor a = dirty.get(i);
+			int[] range = ranges.get(a);
+
+			delete(a, range);
+			insert(a, range);
+		}
+
+		dirty.clear();
+	}
+
+	private void insert(BaseActor a, int[] range) {
+		Polygon bbox = a.getBBox();
+
+		if (bbox == null || bbox.getVertices() == null
+				|| bbox.getVertices().length < 6) {
+			// empty range
+			range[0] = 0;
+			range[1] = 0;
+			range[2] = -1;
+			range[3] = -1;
+			return;
+		}
+
+		Rectangle r = bbox.getBoundingRectangle();
+
+		range[0] = cell(r.x);
+		range[1] = cell(r.y);
+		range[2] = cell(r.x + r.width);
+		range[3] = cell(r.y + r.height);
+
+		if ((long) (range[2] - range[0] + 1) * (range[3] - range[1] + 1) > MAX_CELLS) {
+			bigActors.add(a);
+			return;
+		}
+
+		for (int cx = range[0]; cx <= range[2]; cx++) {
+			for (int cy = range[1]; cy <= range[3]; cy++) {
+				int k = key(cx, cy);
+				Array<BaseActor> cell = cells.get(k);
+
+				if (cell == null) {
+					cell = new Array<BaseActor>(false, 4);
+					cells.put(k, cell);
+				}
+
+				cell.add(a);
+			}
+		}
+	}
+
+	private void delete(BaseActor a, int[] range) {
+		if (bigActors.removeValue(a, true))
+			return;
+
+		for (int cx = range[0]; cx <= range[2]; cx++) {
+			for (int cy = range[1]; cy <= range[3]; cy++) {
+				Array<BaseActor> cell = cells.get(key(cx, cy));
+
+				if (cell != null)
+					cell.removeValue(a, true);
+			}
+		}
+	}
+
+	private static int cell(float v) {
+		return (int) Math.floor(v / CELL_SIZE);
+	}
+
+	private static int key(int cx, int cy) {
+		return (cx << 16) | (cy & 0xffff);
+	}
+}
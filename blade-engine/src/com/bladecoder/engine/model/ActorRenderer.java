@@ -41,6 +41,21 @@ public interface ActorRenderer extends Serializable, AssetConsumer {
 	public void walk(Vector2 p0, Vector2 pf);
 	public void startAnimation(String id, int repeatType,
 			int count, ActionCallback cb);
+
+	/**
+	 * Queues the source of the animation for loading if it isn't loaded. It
+	 * doesn't block.
+	 * 
+	 * @return true if the source is loaded and the animation can be started
+	 *         without waiting
+	 */
+	public boolean prefetchAnimation(String id);
+
+	/**
+	 * Releases the sources loaded by prefetchAnimation() that were not used
+	 * by an animation. The asset leases keep them loaded during the grace time.
+	 */
+	public void releasePrefetchedAnimations();
 	
 	
 	public void addAnimation(AnimationDesc fa);
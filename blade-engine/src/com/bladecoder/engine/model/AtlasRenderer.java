@@ -17,6 +17,7 @@ package com.bladecoder.engine.model;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 
 import com.bladecoder.engine.model.ActorRenderer;
 
@@ -35,9 +36,12 @@ import com.bladecoder.engine.anim.AtlasAnimationDesc;
 import com.bladecoder.engine.anim.FATween;
 import com.bladecoder.engine.anim.AnimationDesc;
 import com.bladecoder.engine.anim.Tween;
+import com.bladecoder.engine.assets.AssetLeaseService;
 import com.bladecoder.engine.assets.EngineAssetManager;
 import com.bladecoder.engine.util.EngineLogger;
 import com.bladecoder.engine.util.RectangleRenderer;
+import com.bladecoder.engine.util.SerializationHelper;
+import com.bladecoder.engine.util.SerializationHelper.Mode;
 
 public class AtlasRenderer implements ActorRenderer {
 
@@ -56,6 +60,9 @@ public class AtlasRenderer implements ActorRenderer {
 	
 	private final HashMap<String, AtlasCacheEntry> sourceCache = new HashMap<String, AtlasCacheEntry>();
 
+	/** Sources loaded by prefetchAnimation() and not used by an animation yet */
+	private final HashSet<String> prefetchedSources = new HashSet<String>();
+
 	class AtlasCacheEntry {
 		int refCounter;
 	}
@@ -219,6 +226,41 @@ public class AtlasRenderer implements ActorRenderer {
 		faTween.start(this, repeatType, count, currentAnimation.duration, cb);
 	}
 
+	@Override
+	public boolean prefetchAnimation(String id) {
+		if (id == null)
+			id = initAnimation;
+
+		if (id == null)
+			return true;
+
+		// getAnimation() changes flipX
+		boolean currentFlipX = flipX;
+		AtlasAnimationDesc fa = getAnimation(id);
+		flipX = currentFlipX;
+
+		// startAnimation() will report the not found error
+		if (fa == null || fa.regions != null)
+			return true;
+
+		AtlasCacheEntry entry = sourceCache.get(fa.source);
+
+		if (entry == null || entry.refCounter < 1) {
+			loadSource(fa.source);
+			prefetchedSources.add(fa.source);
+		}
+
+		return EngineAssetManager.getInstance().isAtlasLoaded(fa.source);
+	}
+
+	@Override
+	public void releasePrefetchedAnimations() {
+		for (String source : prefetchedSources)
+			disposeSource(source);
+
+		prefetchedSources.clear();
+	}
+
 	public int getNumFrames() {
 		return currentAnimation.regions.size;
 	}
@@ -359,7 +401,7 @@ public class AtlasRenderer implements ActorRenderer {
 		}
 
 		if (entry.refCounter == 0)
-			EngineAssetManager.getInstance().loadAtlas(source);
+			AssetLeaseService.getInstance().acquireAtlas(source);
 
 		entry.refCounter++;
 	}
@@ -370,19 +412,24 @@ public class AtlasRenderer implements ActorRenderer {
 	}
 
 	private void retrieveSource(String source) {
+		// The source is used by an animation now
+		prefetchedSources.remove(source);
+
 		AtlasCacheEntry entry = sourceCache.get(source);
 		
-		if(entry==null || entry.refCounter < 1) {
+		if(entry==null || entry.refCounter < 1)
 			loadSource(source);
+
+		// The source can be queued by prefetchAnimation() and not loaded yet
+		if(!EngineAssetManager.getInstance().isAtlasLoaded(source))
 			EngineAssetManager.getInstance().finishLoading();
-		}
 	}
 	
 	private void disposeSource(String source) {
 		AtlasCacheEntry entry = sourceCache.get(source);
 
 		if (entry.refCounter == 1) {
-			EngineAssetManager.getInstance().disposeAtlas(source);
+			AssetLeaseService.getInstance().releaseAtlas(source);
 		}
 
 		entry.refCounter--;
@@ -432,16 +479,21 @@ public class AtlasRenderer implements ActorRenderer {
 	@Override
 	public void dispose() {
 		for (String key : sourceCache.keySet()) {
-			EngineAssetManager.getInstance().disposeAtlas(key);
+			if (sourceCache.get(key).refCounter > 0)
+				AssetLeaseService.getInstance().releaseAtlas(key);
 		}
 		
+		prefetchedSources.clear();
 		sourceCache.clear();
 	}
 
 	@Override
 	public void write(Json json) {
+		boolean model = SerializationHelper.getInstance().getMode() == Mode.MODEL;
 
-		json.writeValue("fanims", fanims, HashMap.class, AtlasAnimationDesc.class);
+		// The animations are defined in the chapter
+		if (model)
+			json.writeValue("fanims", fanims, HashMap.class, AtlasAnimationDesc.class);
 
 		String currentAnimationId = null;
 
@@ -450,7 +502,8 @@ public class AtlasRenderer implements ActorRenderer {
 
 		json.writeValue("currentAnimation", currentAnimationId);
 		
-		json.writeValue("initAnimation", initAnimation);
+		if (model)
+			json.writeValue("initAnimation", initAnimation);
 
 		json.writeValue("flipX", flipX);
 		json.writeValue("currentFrameIndex", currentFrameIndex);
@@ -462,18 +515,21 @@ public class AtlasRenderer implements ActorRenderer {
 	@SuppressWarnings("unchecked")
 	@Override
 	public void read(Json json, JsonValue jsonData) {
+		boolean model = SerializationHelper.getInstance().getMode() == Mode.MODEL;
 
-		fanims = json.readValue("fanims", HashMap.class,
-				AtlasAnimationDesc.class, jsonData);
+		if (model)
+			fanims = json.readValue("fanims", HashMap.class,
+					AtlasAnimationDesc.class, jsonData);
 
 		String currentAnimationId = json.readValue(
 				"currentAnimation", String.class, jsonData);
 
-		if (currentAnimationId != null)
-			currentAnimation = (AtlasAnimationDesc)fanims.get(currentAnimationId);
+		currentAnimation = currentAnimationId == null ? null
+				: (AtlasAnimationDesc) fanims.get(currentAnimationId);
 		
-		initAnimation = json.readValue("initAnimation", String.class,
-				jsonData);
+		if (model)
+			initAnimation = json.readValue("initAnimation", String.class,
+					jsonData);
 
 		flipX = json.readValue("flipX", Boolean.class, jsonData);
 		currentFrameIndex = json.readValue("currentFrameIndex", Integer.class, jsonData);
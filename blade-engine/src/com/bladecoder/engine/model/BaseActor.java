@@ -31,6 +31,8 @@ import com.badlogic.gdx.utils.Json.Serializable;
 import com.badlogic.gdx.utils.JsonValue;
 import com.bladecoder.engine.assets.AssetConsumer;
 import com.bladecoder.engine.assets.EngineAssetManager;
+import com.bladecoder.engine.util.SerializationHelper;
+import com.bladecoder.engine.util.SerializationHelper.Mode;
 
 /**
  * A BaseActor is any object in a scene or in the inventory.
@@ -44,6 +46,9 @@ public class BaseActor implements Comparable<BaseActor>, Serializable, AssetCons
 	protected String id;
 	protected String desc;
 	protected Scene scene = null;
+
+	/** The scene where the actor is defined in the chapter */
+	private String initScene;
 	
 	/** visibility and interaction activation */
 	private boolean interaction = true;
@@ -66,6 +71,9 @@ public class BaseActor implements Comparable<BaseActor>, Serializable, AssetCons
 	
 	private ActorLayer layer;
 	
+	/** Position in the layer list of the scene, the draw order. Set by the scene */
+	int layerIndex;
+	
 	/** State to know when the player is inside this actor to trigger the enter/exit verbs */ 
 	private boolean playerInside = false;
 
@@ -111,6 +119,15 @@ public class BaseActor implements Comparable<BaseActor>, Serializable, AssetCons
 
 	public void setBbox(Polygon bbox) {
 		this.bbox = bbox;
+		bboxChanged();
+	}
+
+	/**
+	 * Notifies the scene that the bbox position or shape has changed.
+	 */
+	protected void bboxChanged() {
+		if (scene != null)
+			scene.actorBBoxChanged(this);
 	}
 
 	public String getDesc() {
@@ -127,6 +144,13 @@ public class BaseActor implements Comparable<BaseActor>, Serializable, AssetCons
 	
 	public void setScene(Scene s) {
 		scene = s;
+
+		if (initScene == null && s != null)
+			initScene = s.getId();
+	}
+
+	public String getInitScene() {
+		return initScene;
 	}
 	
 	public Scene getScene() {
@@ -235,9 +259,18 @@ public class BaseActor implements Comparable<BaseActor>, Serializable, AssetCons
 		return sb.toString();
 	}
 
+	/**
+	 * Depth order: actors with greater Y first. Ties are broken by id so the
+	 * order is always the same.
+	 */
 	@Override
 	public int compareTo(BaseActor o) {
-		return (int) (o.getBBox().getY() - this.getBBox().getY());
+		int c = Float.compare(o.getBBox().getY(), getBBox().getY());
+
+		if (c != 0 || id == null || o.id == null)
+			return c;
+
+		return id.compareTo(o.id);
 	}
 
 	public String getState() {
@@ -277,6 +310,7 @@ public class BaseActor implements Comparable<BaseActor>, Serializable, AssetCons
 
 	public void setPosition(float x, float y) {
 		bbox.setPosition(x, y);
+		bboxChanged();
 	}
 	
 	@Override
@@ -321,7 +355,13 @@ public class BaseActor implements Comparable<BaseActor>, Serializable, AssetCons
 
 	@Override
 	public void write(Json json) {
+		boolean model = SerializationHelper.getInstance().getMode() == Mode.MODEL;
+
 		json.writeValue("id", id);
+
+		if (!model)
+			json.writeValue("initScene", initScene);
+
 		json.writeValue("interaction", interaction);
 		json.writeValue("visible", visible);
 		json.writeValue("desc", desc);
@@ -332,7 +372,11 @@ public class BaseActor implements Comparable<BaseActor>, Serializable, AssetCons
 		json.writeValue("pos", scaledPos);	
 		json.writeValue("bbox", bbox.getVertices());
 		json.writeValue("state", state);
-		json.writeValue("sounds", sounds, sounds == null ? null : sounds.getClass(), SoundFX.class);
+
+		// The sounds are defined in the chapter
+		if (model)
+			json.writeValue("sounds", sounds, sounds == null ? null : sounds.getClass(), SoundFX.class);
+
 		json.writeValue("playingSound", playingSound, playingSound == null ? null : playingSound.getClass());
 		
 		json.writeValue("customProperties", customProperties, customProperties == null ? null : customProperties.getClass(), String.class);
@@ -346,25 +390,44 @@ public class BaseActor implements Comparable<BaseActor>, Serializable, AssetCons
 	@SuppressWarnings("unchecked")
 	@Override
 	public void read (Json json, JsonValue jsonData) {
+		boolean model = SerializationHelper.getInstance().getMode() == Mode.MODEL;
+
 		id = json.readValue("id", String.class, jsonData);
 		interaction = json.readValue("interaction", Boolean.class, jsonData);
 		visible = json.readValue("visible", Boolean.class, jsonData);
 		desc = json.readValue("desc", String.class, jsonData);
-		verbs = json.readValue("verbs", VerbManager.class, jsonData);
+
+		if (model)
+			verbs = json.readValue("verbs", VerbManager.class, jsonData);
+		else
+			verbs.read(json, jsonData.get("verbs"));
 
 		Vector2 pos = json.readValue("pos", Vector2.class, jsonData);
 
 		float worldScale = EngineAssetManager.getInstance().getScale();
-		bbox = new Polygon();
+
+		if (model) {
+			bbox = new Polygon();
+			bbox.setScale(worldScale, worldScale);
+		}
+
 		bbox.setPosition(pos.x * worldScale, pos.y * worldScale);
 		bbox.setVertices(json.readValue("bbox", float[].class, jsonData));
-		bbox.setScale(worldScale, worldScale);
 		
 		state = json.readValue("state", String.class, jsonData);
-		sounds = json.readValue("sounds", HashMap.class, SoundFX.class, jsonData);
+
+		if (model)
+			sounds = json.readValue("sounds", HashMap.class, SoundFX.class, jsonData);
+
 		playingSound = json.readValue("playingSound", String.class, jsonData);
 		customProperties = json.readValue("customProperties", HashMap.class, String.class, jsonData);
-		dialogs = json.readValue("dialogs", HashMap.class, Dialog.class, jsonData);
+
+		if (model) {
+			dialogs = json.readValue("dialogs", HashMap.class, Dialog.class, jsonData);
+		} else if (dialogs != null) {
+			for (JsonValue v = jsonData.get("dialogs").child; v != null; v = v.next)
+				dialogs.get(v.name).read(json, v);
+		}
 		
 		isWalkObstacle = json.readValue("isWalkObstacle", Boolean.class, jsonData);
 		layer = json.readValue("layer", ActorLayer.class, jsonData);
@@ -24,6 +24,8 @@ import com.bladecoder.engine.model.World;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.Json.Serializable;
 import com.badlogic.gdx.utils.JsonValue;
+import com.bladecoder.engine.util.SerializationHelper;
+import com.bladecoder.engine.util.SerializationHelper.Mode;
 
 public class Dialog implements Serializable   {
 
@@ -131,8 +133,16 @@ public class Dialog implements Serializable   {
 	@Override
 	public void write(Json json) {
 		json.writeValue("id", id);
-		json.writeValue("actor", actor);
-		json.writeValue("options", options, ArrayList.class, DialogOption.class);
+
+		if (SerializationHelper.getInstance().getMode() == Mode.MODEL) {
+			json.writeValue("actor", actor);
+			json.writeValue("options", options, ArrayList.class, DialogOption.class);
+		} else {
+			// The options are defined in the chapter, only its visibility changes
+			StringBuilder sb = new StringBuilder();
+			writeVisible(options, sb);
+			json.writeValue("visible", sb.toString());
+		}
 		
 		String serCurrent = serOption(currentOption);		
 		json.writeValue("currentOption", serCurrent);	
@@ -143,8 +153,14 @@ public class Dialog implements Serializable   {
 	public void read (Json json, JsonValue jsonData) {
 //	public void read(Json json, OrderedMap<String, Object> jsonData) {
 		id = json.readValue("id", String.class, jsonData);
-		actor = json.readValue("actor", String.class, jsonData);
-		options = json.readValue("options", ArrayList.class, DialogOption.class, jsonData);
+
+		if (SerializationHelper.getInstance().getMode() == Mode.MODEL) {
+			actor = json.readValue("actor", String.class, jsonData);
+			options = json.readValue("options", ArrayList.class, DialogOption.class, jsonData);
+		} else {
+			readVisible(options, json.readValue("visible", String.class, jsonData), 0);
+		}
+
 		String currentSer = json.readValue("currentOption", String.class, jsonData);
 		currentOption = findSerOption(currentSer);
 		
@@ -152,6 +168,28 @@ public class Dialog implements Serializable   {
 		setParents(options, null);
 	}
 
+	/**
+	 * Appends '1' for the visible options and '0' for the hidden ones in depth
+	 * first order.
+	 */
+	private void writeVisible(ArrayList<DialogOption> list, StringBuilder sb) {
+		for (DialogOption o : list) {
+			sb.append(o.isVisible() ? '1' : '0');
+			writeVisible(o.getOptions(), sb);
+		}
+	}
+
+	private int readVisible(ArrayList<DialogOption> list, String visible, int pos) {
+		for (DialogOption o : list) {
+			if (pos < visible.length())
+				o.setVisible(visible.charAt(pos) == '1');
+
+			pos = readVisible(o.getOptions(), visible, pos + 1);
+		}
+
+		return pos;
+	}
+
 	private void setParents(ArrayList<DialogOption> list, DialogOption parent) {
 		for(DialogOption o:list) {
 			o.setParent(parent);
@@ -16,6 +16,7 @@
 package com.bladecoder.engine.model;
 
 import java.util.HashMap;
+import java.util.HashSet;
 
 import com.bladecoder.engine.model.ActorRenderer;
 
@@ -29,10 +30,13 @@ import com.bladecoder.engine.actions.ActionCallback;
 import com.bladecoder.engine.actions.ActionCallbackQueue;
 import com.bladecoder.engine.anim.AnimationDesc;
 import com.bladecoder.engine.anim.Tween;
+import com.bladecoder.engine.assets.AssetLeaseService;
 import com.bladecoder.engine.assets.EngineAssetManager;
 import com.bladecoder.engine.i18n.I18N;
 import com.bladecoder.engine.util.EngineLogger;
 import com.bladecoder.engine.util.RectangleRenderer;
+import com.bladecoder.engine.util.SerializationHelper;
+import com.bladecoder.engine.util.SerializationHelper.Mode;
 
 public class ImageRenderer implements ActorRenderer {
 
@@ -48,9 +52,15 @@ public class ImageRenderer implements ActorRenderer {
 	
 	private final HashMap<String, ImageCacheEntry> sourceCache = new HashMap<String, ImageCacheEntry>();
 
+	/** Sources loaded by prefetchAnimation() and not used by an animation yet */
+	private final HashSet<String> prefetchedSources = new HashSet<String>();
+
 	class ImageCacheEntry {
 		int refCounter;
 		
+		/** The leased file. It can change with the language for I18N images */
+		String fileName;
+		
 		Texture tex;
 	}	
 	
@@ -146,10 +156,7 @@ public class ImageRenderer implements ActorRenderer {
 		currentSource = sourceCache.get(fa.source);
 
 		// If the source is not loaded. Load it.
-		if (currentSource == null || currentSource.refCounter < 1) {
-			loadSource(fa.source);
-			EngineAssetManager.getInstance().finishLoading();
-
+		if (currentSource == null || currentSource.refCounter < 1 || currentSource.tex == null) {
 			retrieveSource(fa.source);
 
 			currentSource = sourceCache.get(fa.source);
@@ -163,6 +170,37 @@ public class ImageRenderer implements ActorRenderer {
 		}
 	}
 
+	@Override
+	public boolean prefetchAnimation(String id) {
+		if (id == null)
+			return true;
+
+		// getAnimation() changes flipX
+		boolean currentFlipX = flipX;
+		AnimationDesc fa = getAnimation(id);
+		flipX = currentFlipX;
+
+		if (fa == null)
+			return true;
+
+		ImageCacheEntry entry = sourceCache.get(fa.source);
+
+		if (entry == null || entry.refCounter < 1) {
+			loadSource(fa.source);
+			prefetchedSources.add(fa.source);
+		}
+
+		return isSourceLoaded(fa.source);
+	}
+
+	@Override
+	public void releasePrefetchedAnimations() {
+		for (String source : prefetchedSources)
+			disposeSource(source);
+
+		prefetchedSources.clear();
+	}
+
 	@Override
 	public String getCurrentAnimationId() {
 		if (currentAnimation == null)
@@ -302,21 +340,28 @@ public class ImageRenderer implements ActorRenderer {
 			// I18N for images
 			if(source.charAt(0) == '@')
 			source = I18N.getString(source.substring(1));
-			EngineAssetManager.getInstance().loadTexture(EngineAssetManager.IMAGE_DIR + source);
+			entry.fileName = EngineAssetManager.IMAGE_DIR + source;
+			AssetLeaseService.getInstance().acquireTexture(entry.fileName);
 		}
 
 		entry.refCounter++;
 	}
 
 	private void retrieveSource(String source) {
+		// The source is used by an animation now
+		prefetchedSources.remove(source);
+
 		ImageCacheEntry entry = sourceCache.get(source);
 
 		if (entry == null || entry.refCounter < 1) {
 			loadSource(source);
-			EngineAssetManager.getInstance().finishLoading();
 			entry = sourceCache.get(source);
 		}
 
+		// The source can be queued by prefetchAnimation() and not loaded yet
+		if (!isSourceLoaded(source))
+			EngineAssetManager.getInstance().finishLoading();
+
 		if (entry.tex == null) {
 			// I18N for images
 			if(source.charAt(0) == '@')
@@ -326,11 +371,19 @@ public class ImageRenderer implements ActorRenderer {
 		}
 	}
 
+	private boolean isSourceLoaded(String source) {
+		// I18N for images
+		if(source.charAt(0) == '@')
+			source = I18N.getString(source.substring(1));
+
+		return EngineAssetManager.getInstance().isLoaded(EngineAssetManager.IMAGE_DIR + source);
+	}
+
 	private void disposeSource(String source) {
 		ImageCacheEntry entry = sourceCache.get(source);
 
 		if (entry.refCounter == 1) {
-			EngineAssetManager.getInstance().disposeTexture(entry.tex);
+			AssetLeaseService.getInstance().releaseTexture(entry.fileName);
 			entry.tex = null;
 		}
 
@@ -374,17 +427,22 @@ public class ImageRenderer implements ActorRenderer {
 	@Override
 	public void dispose() {
 		for (ImageCacheEntry entry : sourceCache.values()) {
-			EngineAssetManager.getInstance().disposeTexture(entry.tex);
+			if (entry.refCounter > 0)
+				AssetLeaseService.getInstance().releaseTexture(entry.fileName);
 		}
 
+		prefetchedSources.clear();
 		sourceCache.clear();
 		currentSource = null;
 	}
 
 	@Override
 	public void write(Json json) {
+		boolean model = SerializationHelper.getInstance().getMode() == Mode.MODEL;
 
-		json.writeValue("fanims", fanims, HashMap.class, AnimationDesc.class);
+		// The animations are defined in the chapter
+		if (model)
+			json.writeValue("fanims", fanims, HashMap.class, AnimationDesc.class);
 
 		String currentAnimationId = null;
 
@@ -393,7 +451,8 @@ public class ImageRenderer implements ActorRenderer {
 
 		json.writeValue("currentAnimation", currentAnimationId);
 		
-		json.writeValue("initAnimation", initAnimation);
+		if (model)
+			json.writeValue("initAnimation", initAnimation);
 
 		json.writeValue("flipX", flipX);
 	}
@@ -401,18 +460,20 @@ public class ImageRenderer implements ActorRenderer {
 	@SuppressWarnings("unchecked")
 	@Override
 	public void read(Json json, JsonValue jsonData) {
+		boolean model = SerializationHelper.getInstance().getMode() == Mode.MODEL;
 
-		fanims = json.readValue("fanims", HashMap.class,
-				AnimationDesc.class, jsonData);
+		if (model)
+			fanims = json.readValue("fanims", HashMap.class,
+					AnimationDesc.class, jsonData);
 
 		String currentAnimationId = json.readValue(
 				"currentAnimation", String.class, jsonData);
 
-		if (currentAnimationId != null)
-			currentAnimation = fanims.get(currentAnimationId);
+		currentAnimation = currentAnimationId == null ? null : fanims.get(currentAnimationId);
 		
-		initAnimation = json.readValue("initAnimation", String.class,
-				jsonData);
+		if (model)
+			initAnimation = json.readValue("initAnimation", String.class,
+					jsonData);
 
 		flipX = json.readValue("flipX", Boolean.class, jsonData);
 	}
@@ -19,10 +19,15 @@ import java.util.ArrayList;
 
 import com.bladecoder.engine.model.SpriteActor;
 
+import com.badlogic.gdx.utils.Json;
+import com.badlogic.gdx.utils.Json.Serializable;
+import com.badlogic.gdx.utils.JsonValue;
 import com.bladecoder.engine.assets.AssetConsumer;
 import com.bladecoder.engine.util.EngineLogger;
+import com.bladecoder.engine.util.SerializationHelper;
+import com.bladecoder.engine.util.SerializationHelper.Mode;
 
-public class Inventory implements AssetConsumer {
+public class Inventory implements AssetConsumer, Serializable {
 	ArrayList<SpriteActor> items;
 	
 	private boolean visible = true;
@@ -109,4 +114,38 @@ public class Inventory implements AssetConsumer {
 		return disposed;
 	}
 	
+	@Override
+	public void write(Json json) {
+		json.writeValue("items", items, ArrayList.class, SpriteActor.class);
+		json.writeValue("visible", visible);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public void read(Json json, JsonValue jsonData) {
+		if (SerializationHelper.getInstance().getMode() == Mode.MODEL) {
+			// Older saved games used reflection, which skips the default values
+			ArrayList<SpriteActor> i = json.readValue("items", ArrayList.class, SpriteActor.class, jsonData);
+
+			if (i != null)
+				items = i;
+		} else {
+			items.clear();
+
+			for (JsonValue v = jsonData.get("items").child; v != null; v = v.next) {
+				String id = json.readValue("id", String.class, v);
+				BaseActor a = SerializationHelper.getInstance().takeBaselineActor(
+						json.readValue("initScene", String.class, v), id);
+
+				if (a instanceof SpriteActor) {
+					a.read(json, v);
+					items.add((SpriteActor) a);
+				} else {
+					EngineLogger.error("Inventory item not found loading state: " + id);
+				}
+			}
+		}
+
+		visible = json.readValue("visible", Boolean.class, true, jsonData);
+	}
 }
@@ -0,0 +1,221 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.model;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.PixmapIO;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.badlogic.gdx.utils.async.AsyncResult;
+import com.badlogic.gdx.utils.async.AsyncTask;
+import com.bladecoder.engine.util.EngineLogger;
+
+/**
+ * Writes the saved games and its screenshots in a background thread.
+ *
+ * The state and the screenshot pixels are taken in the GL thread and passed
+ * here, the file writing, the screenshot flipping and the PNG compression are
+ * done in the background. The saves are written in order by one thread.
+ *
+ * Every file is written to a temporary file and renamed when complete, so a
+ * crash while saving never leaves a corrupted saved game. When the rename can
+ * not replace the old file, it is kept as a backup until the new one is in
+ * place. See recover().
+ *
+ * @author rgarcia
+ */
+public class SaveGameWriter {
+	private static final String TMP_EXT = ".tmp";
+	private static final String BAK_EXT = ".bak";
+
+	private AsyncExecutor executor;
+
+	/** Saves not finished. Only accessed from the GL thread */
+	private final Array<AsyncResult<Void>> pending = new Array<AsyncResult<Void>>();
+
+	/**
+	 * Writes the state and the screenshot in background.
+	 *
+	 * @param screenshot
+	 *            The pixels read from the frame buffer, upside down. Disposed
+	 *            when written. Can be null.
+	 */
+	public void write(final FileHandle file, final byte[] state, final FileHandle screenshotFile,
+			final Pixmap screenshot) {
+		if (executor == null)
+			executor = new AsyncExecutor(1);
+
+		prune();
+
+		pending.add(executor.submit(new AsyncTask<Void>() {
+			@Override
+			public Void call() throws Exception {
+				long initTime = System.currentTimeMillis();
+
+				try {
+					if (state != null) {
+						FileHandle tmp = tmpFile(file);
+						tmp.writeBytes(state, false);
+						commit(tmp, file);
+					}
+
+					if (screenshot != null) {
+						flip(screenshot);
+
+						FileHandle tmp = tmpFile(screenshotFile);
+						PixmapIO.writePNG(tmp, screenshot);
+						commit(tmp, screenshotFile);
+					}
+				} catch (Exception e) {
+					EngineLogger.error("ERROR SAVING GAME", e);
+				} finally {
+					if (screenshot != null)
+						screenshot.dispose();
+				}
+
+				EngineLogger.debug("BACKGROUND SAVING TIME (ms): " + (System.currentTimeMillis() - initTime));
+
+				return null;
+			}
+		}));
+	}
+
+	public boolean isSaving() {
+		prune();
+
+		return pending.size > 0;
+	}
+
+	/**
+	 * Blocks until all the pending saves are written. Must be called before
+	 * reading a saved game or when the application can be closed.
+	 */
+	public void finish() {
+		for (AsyncResult<Void> r : pending) {
+			try {
+				r.get();
+			} catch (GdxRuntimeException e) {
+				EngineLogger.error("ERROR SAVING GAME", e);
+			}
+		}
+
+		pending.clear();
+	}
+
+	public void dispose() {
+		finish();
+
+		if (executor != null) {
+			executor.dispose();
+			executor = null;
+		}
+	}
+
+	/**
+	 * Restores the backup of the file if the application was closed while
+	 * replacing it and only the backup exists. Does nothing while saving.
+	 */
+	public void recover(FileHandle file) {
+		if (isSaving())
+			return;
+
+		FileHandle bak = file.sibling(file.name() + BAK_EXT);
+
+		if (!file.exists() && bak.exists()) {
+			EngineLogger.debug("Restoring backup: " + bak.name());
+
+			if (!bak.file().renameTo(file.file()))
+				EngineLogger.error("Error restoring backup: " + bak.name());
+		}
+	}
+
+	private void prune() {
+		for (int i = pending.size - 1; i >= 0; i--) {
+			if (pending.get(i).isDone())
+				pending.removeIndex(i);
+		}
+	}
+
+	private static FileHandle tmpFile(FileHandle file) {
+		return file.sibling(file.name() + TMP_EXT);
+	}
+
+	/**
+	 * Renames the complete temporary file to its final name. The rename
+	 * replaces the old file atomically in POSIX systems. In Windows the old
+	 * file has to be moved away first. It is kept as a backup and restored
+	 * if the rename fails.
+	 */
+	private static void commit(FileHandle tmp, FileHandle file) {
+		File src = tmp.file();
+		File dst = file.file();
+
+		if (src.renameTo(dst))
+			return;
+
+		File bak = new File(dst.getPath() + BAK_EXT);
+
+		if (dst.exists()) {
+			bak.delete();
+
+			if (!dst.renameTo(bak))
+				throw new GdxRuntimeException("Error renaming " + dst + " to " + bak);
+		}
+
+		if (src.renameTo(dst)) {
+			bak.delete();
+			return;
+		}
+
+		if (bak.exists() && !bak.renameTo(dst))
+			EngineLogger.error("Error restoring backup: " + bak);
+
+		throw new GdxRuntimeException("Error renaming " + src + " to " + dst);
+	}
+
+	/**
+	 * The frame buffer pixels are read upside down. Swaps the rows in place.
+	 */
+	private static void flip(Pixmap pixmap) {
+		ByteBuffer pixels = pixmap.getPixels();
+		int bytesPerLine = pixmap.getWidth() * 4;
+		int h = pixmap.getHeight();
+		byte[] top = new byte[bytesPerLine];
+		byte[] bottom = new byte[bytesPerLine];
+
+		for (int i = 0; i < h / 2; i++) {
+			int topPos = i * bytesPerLine;
+			int bottomPos = (h - i - 1) * bytesPerLine;
+
+			pixels.position(topPos);
+			pixels.get(top);
+			pixels.position(bottomPos);
+			pixels.get(bottom);
+
+			pixels.position(topPos);
+			pixels.put(bottom);
+			pixels.position(bottomPos);
+			pixels.put(top);
+		}
+
+		pixels.clear();
+	}
+}
@@ -16,7 +16,6 @@
 package com.bladecoder.engine.model;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 
@@ -35,18 +34,29 @@ import com.badlogic.gdx.graphics.Texture.TextureFilter;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer.ShapeType;
+import com.badlogic.gdx.math.Matrix4;
 import com.badlogic.gdx.math.Polygon;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.Json.Serializable;
 import com.badlogic.gdx.utils.JsonValue;
+import com.bladecoder.engine.actions.Action;
+import com.bladecoder.engine.actions.LeaveAction;
 import com.bladecoder.engine.assets.AssetConsumer;
+import com.bladecoder.engine.assets.AssetLeaseService;
 import com.bladecoder.engine.assets.EngineAssetManager;
+import com.bladecoder.engine.model.BaseActor.ActorLayer;
 import com.bladecoder.engine.pathfinder.NavNode;
 import com.bladecoder.engine.polygonalpathfinder.NavNodePolygonal;
 import com.bladecoder.engine.polygonalpathfinder.PolygonalNavGraph;
+import com.bladecoder.engine.util.DrawStats;
 import com.bladecoder.engine.util.EngineLogger;
+import com.bladecoder.engine.util.FrameProfiler;
+import com.bladecoder.engine.util.FrameProfiler.Section;
+import com.bladecoder.engine.util.SerializationHelper;
+import com.bladecoder.engine.util.SerializationHelper.Mode;
 
 public class Scene implements Serializable,
 		AssetConsumer {
@@ -69,8 +79,19 @@ public class Scene implements Serializable,
 	private final List<BaseActor> bgActors = new ArrayList<BaseActor>();
 	private final List<BaseActor> dynamicActors = new ArrayList<BaseActor>();
 	private final List<BaseActor> fgActors = new ArrayList<BaseActor>();
+
+	/** Spatial index for hit testing */
+	private final ActorGrid actorGrid = new ActorGrid();
+
+	/** Set when a dynamic actor is added or moved to sort them again */
+	private boolean dynamicActorsDirty = false;
+	private float[] depthCache = new float[0];
 	
 	private SceneCamera camera = new SceneCamera();
+
+	/** The view of the last draw() for culling */
+	private final Rectangle viewRect = new Rectangle();
+	private final Rectangle tmpRect = new Rectangle();
 	
 	private Texture[] background;
 	private Texture[] lightMap;
@@ -99,6 +120,18 @@ public class Scene implements Serializable,
 	private float musicPosSer = 0;
 
 	transient private boolean isMusicPaused = false;
+
+	/**
+	 * Set between loadAssets() and dispose(). The assets can be loaded before
+	 * the scene is the current one by the ScenePrefetcher.
+	 */
+	transient private boolean assetsLoaded = false;
+
+	/** Background and light map textures leased in loadAssets() */
+	transient private final ArrayList<String> leasedTextures = new ArrayList<String>();
+
+	/** Scenes reached by the LeaveActions of this scene. Null until calculated */
+	transient private ArrayList<String> exits;
 	
 	private String id;
 	
@@ -200,9 +233,12 @@ public class Scene implements Serializable,
 	}
 
 	public void update(float delta) {
+		FrameProfiler.begin(Section.SCENE);
+
 		// We draw the elements in order: from top to bottom.
 		// so we need to order the array list
-		Collections.sort(dynamicActors);
+		if (dynamicActorsDirty)
+			sortDynamicActors();
 
 		// music delay update
 		if (music != null && !music.isPlaying()) {
@@ -226,14 +262,59 @@ public class Scene implements Serializable,
 			}
 		}
 
+		FrameProfiler.begin(Section.ACTORS);
+
 		for (BaseActor a:actors.values()) {
 			a.update(delta);
 		}
+
+		FrameProfiler.end(Section.ACTORS);
 		
 		camera.update(delta);
+
+		FrameProfiler.end(Section.SCENE);
+	}
+
+	/**
+	 * Insertion sort. The list is almost sorted between frames because only a
+	 * few actors move, so it is near O(n) and it doesn't allocate. The Y of
+	 * every actor is cached in an array to avoid calling compareTo() except
+	 * for ties.
+	 */
+	void sortDynamicActors() {
+		int n = dynamicActors.size();
+
+		if (depthCache.length < n)
+			depthCache = new float[n * 2];
+
+		for (int i = 0; i < n; i++)
+			depthCache[i] = dynamicActors.get(i).getBBox().getY();
+
+		for (int i = 1; i < n; i++) {
+			BaseActor a = dynamicActors.get(i);
+			float y = depthCache[i];
+			int j = i - 1;
+
+			while (j >= 0
+					&& (depthCache[j] < y || (depthCache[j] == y && dynamicActors
+							.get(j).compareTo(a) > 0))) {
+				dynamicActors.set(j + 1, dynamicActors.get(j));
+				depthCache[j + 1] = depthCache[j];
+				j--;
+			}
+
+			dynamicActors.set(j + 1, a);
+			depthCache[j + 1] = y;
+		}
+
+		updateLayerIndex(dynamicActors);
+
+		dynamicActorsDirty = false;
 	}
 
 	public void draw(SpriteBatch spriteBatch) {
+		// Only the tiles and actors inside the view are drawn
+		getViewRect(spriteBatch.getProjectionMatrix(), viewRect);
 		
 		if (background != null) {
 			spriteBatch.disableBlending();
@@ -241,27 +322,16 @@ public class Scene implements Serializable,
 			float x = 0;
 
 			for (Texture tile : background) {
-				spriteBatch.draw(tile, x, 0f);
+				drawTile(spriteBatch, tile, x);
 				x += tile.getWidth();
 			}
 
 			spriteBatch.enableBlending();
 		}
 		
-		for (BaseActor a : bgActors) {
-			if(a instanceof SpriteActor)
-				((SpriteActor)a).draw(spriteBatch);
-		}
-
-		for (BaseActor a : dynamicActors) {
-			if(a instanceof SpriteActor)
-				((SpriteActor)a).draw(spriteBatch);
-		}
-
-		for (BaseActor a : fgActors) {
-			if(a instanceof SpriteActor)
-				((SpriteActor)a).draw(spriteBatch);
-		}
+		drawActors(spriteBatch, bgActors);
+		drawActors(spriteBatch, dynamicActors);
+		drawActors(spriteBatch, fgActors);
 
 		// Draw the light map
 		if (lightMap != null) {
@@ -271,7 +341,7 @@ public class Scene implements Serializable,
 			float x = 0;
 
 			for (Texture tile : lightMap) {
-				spriteBatch.draw(tile, x, 0f);
+				drawTile(spriteBatch, tile, x);
 				x += tile.getWidth();
 			}
 
@@ -280,6 +350,55 @@ public class Scene implements Serializable,
 		}
 	}
 
+	private void drawTile(SpriteBatch spriteBatch, Texture tile, float x) {
+		tmpRect.set(x, 0, tile.getWidth(), tile.getHeight());
+
+		if (viewRect.overlaps(tmpRect)) {
+			spriteBatch.draw(tile, x, 0f);
+			DrawStats.drawn();
+		} else {
+			DrawStats.culled();
+		}
+	}
+
+	private void drawActors(SpriteBatch spriteBatch, List<BaseActor> list) {
+		for (int i = 0; i < list.size(); i++) {
+			BaseActor a = list.get(i);
+
+			if (!(a instanceof SpriteActor) || !a.isVisible())
+				continue;
+
+			SpriteActor sa = (SpriteActor) a;
+
+			// The renderer area, centered in the actor position, and the bbox
+			float w = sa.getWidth();
+			tmpRect.set(sa.getX() - w / 2, sa.getY(), w, sa.getHeight());
+			tmpRect.merge(sa.getBBox().getBoundingRectangle());
+
+			if (viewRect.overlaps(tmpRect)) {
+				sa.draw(spriteBatch);
+				DrawStats.drawn();
+			} else {
+				DrawStats.culled();
+			}
+		}
+	}
+
+	/**
+	 * The rectangle seen through an orthographic projection without rotation.
+	 */
+	private static void getViewRect(Matrix4 proj, Rectangle r) {
+		float[] m = proj.val;
+
+		// x_ndc = m00 * x + m03
+		float x0 = (-1 - m[Matrix4.M03]) / m[Matrix4.M00];
+		float x1 = (1 - m[Matrix4.M03]) / m[Matrix4.M00];
+		float y0 = (-1 - m[Matrix4.M13]) / m[Matrix4.M11];
+		float y1 = (1 - m[Matrix4.M13]) / m[Matrix4.M11];
+
+		r.set(Math.min(x0, x1), Math.min(y0, y1), Math.abs(x1 - x0), Math.abs(y1 - y0));
+	}
+
 	public void drawBBoxLines(ShapeRenderer renderer) {
 		// renderer.begin(ShapeType.Rectangle);
 		renderer.begin(ShapeType.Line);
@@ -342,15 +461,21 @@ public class Scene implements Serializable,
 		
 		switch(actor.getLayer()) {
 		case BACKGROUND:
+			actor.layerIndex = bgActors.size();
 			bgActors.add(actor);
 			break;
 		case DYNAMIC:
+			actor.layerIndex = dynamicActors.size();
 			dynamicActors.add(actor);
+			dynamicActorsDirty = true;
 			break;
 		case FOREGROUND:
+			actor.layerIndex = fgActors.size();
 			fgActors.add(actor);
 			break;		
 		}
+		
+		actorGrid.add(actor);
 	}
 
 	public void setBackground(String bgFilename, String lightMapFilename) {
@@ -413,6 +538,57 @@ public class Scene implements Serializable,
 	}
 
 	public BaseActor getActorAt(float x, float y) {
+		Array<BaseActor> candidates = actorGrid.query(x, y);
+		BaseActor result = null;
+
+		for (int i = 0; i < candidates.size; i++) {
+			BaseActor a = candidates.get(i);
+
+			if (a.hasInteraction() && a.hit(x, y)
+					&& (result == null || isOver(a, result))) {
+				result = a;
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * The hit test priority: foreground actors first, then the dynamic actors
+	 * from the closest to the camera and last the background actors.
+	 */
+	private static boolean isOver(BaseActor a, BaseActor b) {
+		if (a.getLayer() != b.getLayer())
+			return hitPriority(a.getLayer()) < hitPriority(b.getLayer());
+
+		// The dynamic actors are drawn from the farthest to the closest
+		if (a.getLayer() == ActorLayer.DYNAMIC)
+			return a.layerIndex > b.layerIndex;
+
+		return a.layerIndex < b.layerIndex;
+	}
+
+	private static void updateLayerIndex(List<BaseActor> layer) {
+		for (int i = 0; i < layer.size(); i++)
+			layer.get(i).layerIndex = i;
+	}
+
+	private static int hitPriority(ActorLayer layer) {
+		switch (layer) {
+		case FOREGROUND:
+			return 0;
+		case DYNAMIC:
+			return 1;
+		default:
+			return 2;
+		}
+	}
+
+	/**
+	 * Hit test without the spatial index. Used to check and benchmark
+	 * getActorAt().
+	 */
+	BaseActor getActorAtLinear(float x, float y) {
 		for (BaseActor a:fgActors) {
 			if ( a.hasInteraction() && a.hit(x, y)) {
 				return a;
@@ -438,6 +614,17 @@ public class Scene implements Serializable,
 		return null;
 	}
 
+	/**
+	 * Must be called when the bbox of an actor in the scene changes to keep
+	 * the hit testing index updated.
+	 */
+	public void actorBBoxChanged(BaseActor a) {
+		actorGrid.markDirty(a);
+
+		if (a.getLayer() == ActorLayer.DYNAMIC)
+			dynamicActorsDirty = true;
+	}
+
 	public void setPlayer(SpriteActor a) {
 		if (a != null) {
 			player = a.getId();
@@ -470,15 +657,20 @@ public class Scene implements Serializable,
 		switch(a.getLayer()) {
 		case BACKGROUND:
 			bgActors.remove(a);
+			updateLayerIndex(bgActors);
 			break;
 		case DYNAMIC:
 			dynamicActors.remove(a);
+			updateLayerIndex(dynamicActors);
 			break;
 		case FOREGROUND:
 			fgActors.remove(a);
+			updateLayerIndex(fgActors);
 			break;		
 		}
 		
+		actorGrid.remove(a);
+		
 		if(a.isWalkObstacle() && polygonalNavGraph != null)
 			polygonalNavGraph.removeDinamicObstacle(a.getBBox());
 			
@@ -513,12 +705,19 @@ public class Scene implements Serializable,
 	@Override
 	public void loadAssets() {
 
+		// Already loaded by the prefetcher
+		if (assetsLoaded)
+			return;
+
+		assetsLoaded = true;
+
 		if (background != null) {
 			ArrayList<String> tiles = getTilesByFilename(backgroundFilename);
 
 			// LOAD BACKGROUND TEXTURES
 			for (String filename : tiles) {
-				EngineAssetManager.getInstance().loadTexture(filename);
+				AssetLeaseService.getInstance().acquireTexture(filename);
+				leasedTextures.add(filename);
 			}
 
 		}
@@ -528,12 +727,13 @@ public class Scene implements Serializable,
 			ArrayList<String> tiles = getTilesByFilename(lightMapFilename);
 
 			for (String filename : tiles) {
-				EngineAssetManager.getInstance().loadTexture(filename);
+				AssetLeaseService.getInstance().acquireTexture(filename);
+				leasedTextures.add(filename);
 			}
 		}
 
 		if (musicFilename != null)
-			EngineAssetManager.getInstance().loadMusic(musicFilename);
+			AssetLeaseService.getInstance().acquireMusic(musicFilename);
 
 		for (BaseActor a : actors.values()) {
 			a.loadAssets();
@@ -608,17 +808,10 @@ public class Scene implements Serializable,
 	@Override
 	public void dispose() {
 
-		if (background != null) {
-			for (Texture tile : background)
-				if (tile != null)
-					EngineAssetManager.getInstance().disposeTexture(tile);
-		}
+		for (String filename : leasedTextures)
+			AssetLeaseService.getInstance().releaseTexture(filename);
 
-		if (lightMap != null) {
-			for (Texture tile : lightMap)
-				if (tile != null)
-					EngineAssetManager.getInstance().disposeTexture(tile);
-		}
+		leasedTextures.clear();
 
 		// orderedActors.clear();
 
@@ -626,9 +819,52 @@ public class Scene implements Serializable,
 			a.dispose();
 		}
 
-		if (musicFilename != null && music != null) {
-			EngineAssetManager.getInstance().disposeMusic(musicFilename);
-			music = null;
+		// The released music is kept loaded during the grace time, it must
+		// not keep playing
+		stopMusic();
+		isMusicPaused = false;
+
+		if (musicFilename != null && assetsLoaded)
+			AssetLeaseService.getInstance().releaseMusic(musicFilename);
+
+		music = null;
+		assetsLoaded = false;
+	}
+
+	/**
+	 * The scenes that can be reached from this scene: the scenes of the
+	 * LeaveActions in the verbs of the scene and its actors. The prefetcher
+	 * adds the scene changes made while playing.
+	 */
+	public ArrayList<String> getExits() {
+		if (exits == null) {
+			exits = new ArrayList<String>();
+
+			addExits(verbs);
+
+			for (BaseActor a : actors.values())
+				addExits(a.getVerbManager());
+		}
+
+		return exits;
+	}
+
+	public void addExit(String sceneId) {
+		if (!sceneId.equals(id) && !getExits().contains(sceneId))
+			exits.add(sceneId);
+	}
+
+	private void addExits(VerbManager vm) {
+		for (Verb v : vm.getVerbs().values()) {
+			for (Action a : v.getActions()) {
+				if (a instanceof LeaveAction) {
+					LeaveAction l = (LeaveAction) a;
+
+					if ((l.getChapter() == null || l.getChapter().isEmpty()) && l.getScene() != null
+							&& !l.getScene().equals(id) && !exits.contains(l.getScene()))
+						exits.add(l.getScene());
+				}
+			}
 		}
 	}
 	
@@ -645,6 +881,8 @@ public class Scene implements Serializable,
 	// TODO SAVE BG WIDTH AND HEIGHT + WALKZONE
 	@Override
 	public void write(Json json) {
+		boolean model = SerializationHelper.getInstance().getMode() == Mode.MODEL;
+
 		json.writeValue("id", id);
 		json.writeValue("state", state, state == null ? null : state.getClass());
 		json.writeValue("verbs", verbs);
@@ -653,20 +891,23 @@ public class Scene implements Serializable,
 		json.writeValue("player", player,
 				player == null ? null : player.getClass());
 
-		json.writeValue(
-				"background",
-				backgroundFilename,
-				backgroundFilename == null ? null : backgroundFilename
-						.getClass());
-
-		json.writeValue("lightMap", lightMapFilename,
-				lightMapFilename == null ? null : lightMapFilename.getClass());
-
-		json.writeValue("musicFilename", musicFilename,
-				musicFilename == null ? null : musicFilename.getClass());
-		json.writeValue("loopMusic", loopMusic);
-		json.writeValue("initialMusicDelay", initialMusicDelay);
-		json.writeValue("repeatMusicDelay", repeatMusicDelay);
+		// Background, music, walk zone and depth are defined in the chapter
+		if (model) {
+			json.writeValue(
+					"background",
+					backgroundFilename,
+					backgroundFilename == null ? null : backgroundFilename
+							.getClass());
+
+			json.writeValue("lightMap", lightMapFilename,
+					lightMapFilename == null ? null : lightMapFilename.getClass());
+
+			json.writeValue("musicFilename", musicFilename,
+					musicFilename == null ? null : musicFilename.getClass());
+			json.writeValue("loopMusic", loopMusic);
+			json.writeValue("initialMusicDelay", initialMusicDelay);
+			json.writeValue("repeatMusicDelay", repeatMusicDelay);
+		}
 
 		json.writeValue("isPlaying", music != null && music.isPlaying());
 		json.writeValue("musicPos", music != null && music.isPlaying()?music.getPosition():0f);
@@ -678,54 +919,91 @@ public class Scene implements Serializable,
 		
 		json.writeValue("customProperties", customProperties, customProperties == null ? null : customProperties.getClass());
 		
-		json.writeValue("depthVector", depthVector);
+		if (model) {
+			json.writeValue("depthVector", depthVector);
 		
-		json.writeValue("polygonalNavGraph", polygonalNavGraph, polygonalNavGraph == null ? null : PolygonalNavGraph.class);
+			json.writeValue("polygonalNavGraph", polygonalNavGraph, polygonalNavGraph == null ? null : PolygonalNavGraph.class);
+		}
 	}
 
 	@SuppressWarnings("unchecked")
 	@Override
 	public void read(Json json, JsonValue jsonData) {
+		boolean model = SerializationHelper.getInstance().getMode() == Mode.MODEL;
+
 		id = json.readValue("id", String.class, jsonData);
 		state = json.readValue("state", String.class, jsonData);
-		verbs = json.readValue("verbs", VerbManager.class, jsonData);
 
-		actors = json.readValue("actors", HashMap.class, BaseActor.class,
-				jsonData);
+		if (model) {
+			verbs = json.readValue("verbs", VerbManager.class, jsonData);
+
+			actors = json.readValue("actors", HashMap.class, BaseActor.class,
+					jsonData);
+		} else {
+			verbs.read(json, jsonData.get("verbs"));
+
+			// The actors can be moved between scenes and to the inventory. They
+			// are taken from the scene where they are defined in the chapter.
+			actors = new HashMap<String, BaseActor>();
+
+			for (JsonValue v = jsonData.get("actors").child; v != null; v = v.next) {
+				String actorId = json.readValue("id", String.class, v);
+				BaseActor a = SerializationHelper.getInstance().takeBaselineActor(
+						json.readValue("initScene", String.class, v), actorId);
+
+				if (a == null) {
+					EngineLogger.error("Actor not found loading state: " + actorId);
+					continue;
+				}
+
+				a.read(json, v);
+				actors.put(a.getId(), a);
+			}
+		}
+
 		player = json.readValue("player", String.class, jsonData);
 		
 		bgActors.clear();
 		dynamicActors.clear();
 		fgActors.clear();
+		actorGrid.clear();
 
 		for (BaseActor a : actors.values()) {			
 			a.setScene(this);
 			
 			switch(a.getLayer()) {
 			case BACKGROUND:
+				a.layerIndex = bgActors.size();
 				bgActors.add(a);
 				break;
 			case DYNAMIC:
+				a.layerIndex = dynamicActors.size();
 				dynamicActors.add(a);
+				dynamicActorsDirty = true;
 				break;
 			case FOREGROUND:
+				a.layerIndex = fgActors.size();
 				fgActors.add(a);
 				break;		
 			}
+			
+			actorGrid.add(a);
 		}
 
-		backgroundFilename = json.readValue("background", String.class,
-				jsonData);
-		lightMapFilename = json.readValue("lightMap", String.class, jsonData);
+		if (model) {
+			backgroundFilename = json.readValue("background", String.class,
+					jsonData);
+			lightMapFilename = json.readValue("lightMap", String.class, jsonData);
 
-		setBackground(backgroundFilename, lightMapFilename);
+			setBackground(backgroundFilename, lightMapFilename);
 
-		musicFilename = json.readValue("musicFilename", String.class, jsonData);
-		loopMusic = json.readValue("loopMusic", Boolean.class, jsonData);
-		initialMusicDelay = json.readValue("initialMusicDelay", Float.class,
-				jsonData);
-		repeatMusicDelay = json.readValue("repeatMusicDelay", Float.class,
-				jsonData);
+			musicFilename = json.readValue("musicFilename", String.class, jsonData);
+			loopMusic = json.readValue("loopMusic", Boolean.class, jsonData);
+			initialMusicDelay = json.readValue("initialMusicDelay", Float.class,
+					jsonData);
+			repeatMusicDelay = json.readValue("repeatMusicDelay", Float.class,
+					jsonData);
+		}
 
 		isPlayingSer = json.readValue("isPlaying", Boolean.class, jsonData);
 		musicPosSer = json.readValue("musicPos", Float.class, jsonData);
@@ -738,7 +1016,9 @@ public class Scene implements Serializable,
 		
 		customProperties = json.readValue("customProperties", HashMap.class, String.class, jsonData);
 		
-		depthVector = json.readValue("depthVector", Vector2.class, jsonData);
-		polygonalNavGraph = json.readValue("polygonalNavGraph", PolygonalNavGraph.class, jsonData);
+		if (model) {
+			depthVector = json.readValue("depthVector", Vector2.class, jsonData);
+			polygonalNavGraph = json.readValue("polygonalNavGraph", PolygonalNavGraph.class, jsonData);
+		}
 	}
 }
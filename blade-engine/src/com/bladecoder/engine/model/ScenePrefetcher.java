@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.model;
+
+import java.util.ArrayList;
+
+import com.bladecoder.engine.assets.AssetLeaseService;
+import com.bladecoder.engine.assets.EngineAssetManager;
+import com.bladecoder.engine.util.EngineLogger;
+
+/**
+ * Loads in background the assets of the scenes that can be reached from the
+ * current scene, so changing to them doesn't show the loading screen.
+ *
+ * The exits of every scene are taken from its LeaveActions and learned from
+ * the scene changes made while playing. The exits are prefetched one by one
+ * when the player is idle in the scene and nothing else is being loaded, until
+ * the memory budget is reached.
+ *
+ * @author rgarcia
+ */
+public class ScenePrefetcher {
+	public static final long DEFAULT_BUDGET = 64L * 1024L * 1024L;
+
+	/** Seconds in the scene without other loadings before prefetching */
+	private static final float IDLE_TIME = 1f;
+
+	/** Scenes with their assets loaded that are not the current scene */
+	private final ArrayList<Scene> prefetched = new ArrayList<Scene>();
+
+	/** Estimated memory of all the leased assets. 0 disables the prefetching */
+	private long budget = DEFAULT_BUDGET;
+
+	private float idleTime = 0;
+
+	public void setBudget(long budget) {
+		this.budget = budget;
+	}
+
+	public long getBudget() {
+		return budget;
+	}
+
+	public boolean isPrefetched(Scene s) {
+		return prefetched.contains(s);
+	}
+
+	public void update(float delta) {
+		World w = World.getInstance();
+
+		if (budget <= 0 || w.inCutMode()
+				|| EngineAssetManager.getInstance().getQueuedAssets() > 0) {
+			idleTime = 0;
+			return;
+		}
+
+		idleTime += delta;
+
+		if (idleTime < IDLE_TIME
+				|| AssetLeaseService.getInstance().getEstimatedBytes() >= budget)
+			return;
+
+		Scene current = w.getCurrentScene();
+
+		for (String id : current.getExits()) {
+			Scene s = w.getScene(id);
+
+			if (s != null && s != current && !prefetched.contains(s)) {
+				EngineLogger.debug("PREFETCHING SCENE: " + id);
+
+				s.loadAssets();
+				prefetched.add(s);
+				idleTime = 0;
+
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Must be called before disposing the current scene. Learns the exit and
+	 * releases the prefetched scenes that are not the new current scene. Its
+	 * assets are kept during the grace period of the AssetLeaseService.
+	 */
+	public void sceneChanged(Scene from, Scene to) {
+		if (from != null && to != null)
+			from.addExit(to.getId());
+
+		for (Scene s : prefetched) {
+			if (s != to)
+				s.dispose();
+		}
+
+		prefetched.clear();
+		idleTime = 0;
+	}
+
+	public void clear() {
+		sceneChanged(null, null);
+	}
+}
@@ -17,6 +17,7 @@ package com.bladecoder.engine.model;
 
 import java.nio.IntBuffer;
 import java.util.HashMap;
+import java.util.HashSet;
 
 import com.bladecoder.engine.model.ActorRenderer;
 
@@ -54,12 +55,14 @@ import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
 import com.bladecoder.engine.actions.ActionCallback;
 import com.bladecoder.engine.actions.ActionCallbackQueue;
-import com.bladecoder.engine.anim.AtlasAnimationDesc;
 import com.bladecoder.engine.anim.AnimationDesc;
 import com.bladecoder.engine.anim.Tween;
+import com.bladecoder.engine.assets.AssetLeaseService;
 import com.bladecoder.engine.assets.EngineAssetManager;
 import com.bladecoder.engine.util.ActionCallbackSerialization;
 import com.bladecoder.engine.util.EngineLogger;
+import com.bladecoder.engine.util.SerializationHelper;
+import com.bladecoder.engine.util.SerializationHelper.Mode;
 import com.bladecoder.engine.util.Utils3D;
 
 public class Sprite3DRenderer implements ActorRenderer {
@@ -118,6 +121,9 @@ public class Sprite3DRenderer implements ActorRenderer {
 
 	private ModelCacheEntry currentSource;
 	private HashMap<String, ModelCacheEntry> sourceCache = new HashMap<String, ModelCacheEntry>();
+
+	/** Sources loaded by prefetchAnimation() and not used by an animation yet */
+	private final HashSet<String> prefetchedSources = new HashSet<String>();
 	private float lastAnimationTime = 0;
 
 	private boolean renderShadow = true;
@@ -360,11 +366,9 @@ public class Sprite3DRenderer implements ActorRenderer {
 		currentSource = sourceCache.get(fa.source);
 		animationCb = cb;
 
-		if (currentSource == null || currentSource.refCounter < 1) {
+		if (currentSource == null || currentSource.refCounter < 1
+				|| currentSource.modelInstance == null) {
 			// If the source is not loaded. Load it.
-			loadSource(fa.source);
-			EngineAssetManager.getInstance().finishLoading();
-
 			retrieveSource(fa.source);
 
 			currentSource = sourceCache.get(fa.source);
@@ -643,21 +647,52 @@ public class Sprite3DRenderer implements ActorRenderer {
 		}
 
 		if (entry.refCounter == 0) {
-			EngineAssetManager.getInstance().loadModel3D(source);
+			AssetLeaseService.getInstance().acquireModel3D(source);
 		}
 
 		entry.refCounter++;
 	}
 
+	@Override
+	public boolean prefetchAnimation(String id) {
+		AnimationDesc fa = id == null ? null : fanims.get(id);
+
+		if (fa == null)
+			return true;
+
+		ModelCacheEntry entry = sourceCache.get(fa.source);
+
+		if (entry == null || entry.refCounter < 1) {
+			loadSource(fa.source);
+			prefetchedSources.add(fa.source);
+		}
+
+		return EngineAssetManager.getInstance().isModel3DLoaded(fa.source);
+	}
+
+	@Override
+	public void releasePrefetchedAnimations() {
+		for (String source : prefetchedSources)
+			disposeSource(source);
+
+		prefetchedSources.clear();
+	}
+
 	private void retrieveSource(String source) {
+		// The source is used by an animation now
+		prefetchedSources.remove(source);
+
 		ModelCacheEntry entry = sourceCache.get(source);
 
 		if (entry == null || entry.refCounter < 1) {
 			loadSource(source);
-			EngineAssetManager.getInstance().finishLoading();
 			entry = sourceCache.get(source);
 		}
 
+		// The source can be queued by prefetchAnimation() and not loaded yet
+		if (!EngineAssetManager.getInstance().isModel3DLoaded(source))
+			EngineAssetManager.getInstance().finishLoading();
+
 		if (entry.modelInstance == null) {
 			Model model3d = EngineAssetManager.getInstance().getModel3D(source);
 			entry.modelInstance = new ModelInstance(model3d);
@@ -670,7 +705,7 @@ public class Sprite3DRenderer implements ActorRenderer {
 		ModelCacheEntry entry = sourceCache.get(source);
 
 		if (entry.refCounter == 1) {
-			EngineAssetManager.getInstance().disposeModel3D(source);
+			AssetLeaseService.getInstance().releaseModel3D(source);
 			entry.modelInstance = null;
 		}
 
@@ -754,9 +789,11 @@ public class Sprite3DRenderer implements ActorRenderer {
 	@Override
 	public void dispose() {
 		for (String key : sourceCache.keySet()) {
-			EngineAssetManager.getInstance().disposeModel3D(key);
+			if (sourceCache.get(key).refCounter > 0)
+				AssetLeaseService.getInstance().releaseModel3D(key);
 		}
 
+		prefetchedSources.clear();
 		sourceCache.clear();
 		currentSource = null;
 		environment = null;
@@ -776,7 +813,11 @@ public class Sprite3DRenderer implements ActorRenderer {
 
 	@Override
 	public void write(Json json) {
-		json.writeValue("fanims", fanims, HashMap.class, AnimationDesc.class);
+		boolean model = SerializationHelper.getInstance().getMode() == Mode.MODEL;
+
+		// The animations are defined in the chapter
+		if (model)
+			json.writeValue("fanims", fanims, HashMap.class, AnimationDesc.class);
 
 		String currentAnimationId = null;
 
@@ -785,7 +826,8 @@ public class Sprite3DRenderer implements ActorRenderer {
 
 		json.writeValue("currentAnimation", currentAnimationId);
 
-		json.writeValue("initAnimation", initAnimation);
+		if (model)
+			json.writeValue("initAnimation", initAnimation);
 
 		json.writeValue("width", width);
 		json.writeValue("height", height);
@@ -799,7 +841,7 @@ public class Sprite3DRenderer implements ActorRenderer {
 		json.writeValue("modelRotation", modelRotation);
 
 		if (animationCbSer != null)
-			json.writeValue("cb", animationCbSer);
+			json.writeValue("animationCb", animationCbSer);
 		else
 			json.writeValue("animationCb",
 					ActionCallbackSerialization.find(animationCb),
@@ -817,18 +859,21 @@ public class Sprite3DRenderer implements ActorRenderer {
 	@SuppressWarnings("unchecked")
 	@Override
 	public void read(Json json, JsonValue jsonData) {
-		fanims = json.readValue("fanims", HashMap.class,
-				AnimationDesc.class, jsonData);
+		boolean model = SerializationHelper.getInstance().getMode() == Mode.MODEL;
+
+		if (model)
+			fanims = json.readValue("fanims", HashMap.class,
+					AnimationDesc.class, jsonData);
 
 		String currentAnimationId = json.readValue(
 				"currentAnimation", String.class, jsonData);
 
-		if (currentAnimationId != null)
-			currentAnimation = (AtlasAnimationDesc) fanims
-					.get(currentAnimationId);
+		currentAnimation = currentAnimationId == null ? null : fanims
+				.get(currentAnimationId);
 
-		initAnimation = json.readValue("initAnimation", String.class,
-				jsonData);
+		if (model)
+			initAnimation = json.readValue("initAnimation", String.class,
+					jsonData);
 
 		width = json.readValue("width", Integer.class, jsonData);
 		height = json.readValue("height", Integer.class, jsonData);
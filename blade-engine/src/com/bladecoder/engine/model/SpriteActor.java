@@ -32,7 +32,12 @@ import com.bladecoder.engine.anim.SpritePosTween;
 import com.bladecoder.engine.anim.Tween;
 import com.bladecoder.engine.anim.WalkTween;
 import com.bladecoder.engine.assets.EngineAssetManager;
+import com.bladecoder.engine.util.ActionCallbackSerialization;
 import com.bladecoder.engine.util.EngineLogger;
+import com.bladecoder.engine.util.FrameProfiler;
+import com.bladecoder.engine.util.FrameProfiler.Section;
+import com.bladecoder.engine.util.SerializationHelper;
+import com.bladecoder.engine.util.SerializationHelper.Mode;
 
 public class SpriteActor extends BaseActor {
 	private final static float DEFAULT_WALKING_SPEED = 700f; // Speed units:
@@ -44,6 +49,16 @@ public class SpriteActor extends BaseActor {
 	
 	private ActorRenderer renderer;
 	private SpritePosTween posTween;
+	
+	/** Reused for every walk to avoid allocations */
+	private WalkTween walkTween;
+	private final ArrayList<Vector2> walkingPath = new ArrayList<Vector2>();
+	
+	/**
+	 * The path finder output. The running walk tween uses walkingPath, so it
+	 * is only overwritten when a new path is found.
+	 */
+	private final ArrayList<Vector2> pathScratch = new ArrayList<Vector2>();
 	private float scale = 1.0f;
 
 	/** Scale sprite acording to the scene depth map */
@@ -52,6 +67,24 @@ public class SpriteActor extends BaseActor {
 	private float walkingSpeed = DEFAULT_WALKING_SPEED;
 	private boolean bboxFromRenderer = false;
 
+	/**
+	 * Animation waiting for its source to be loaded in background. The
+	 * current animation is showed meanwhile.
+	 */
+	private String pendingAnimation;
+	private int pendingRepeatType;
+	private int pendingCount;
+	private ActionCallback pendingCb;
+	private String pendingCbSer;
+
+	/**
+	 * Position before the last update, to interpolate the drawing in fixed
+	 * timestep mode. The changes of position out of update() are not
+	 * interpolated.
+	 */
+	private float prevX, prevY;
+	private boolean updating = false;
+
 	public void setRenderer(ActorRenderer r) {
 		renderer = r;
 	}
@@ -79,6 +112,12 @@ public class SpriteActor extends BaseActor {
 		}
 		
 		bbox.setPosition(x, y);
+		bboxChanged();
+
+		if (!updating) {
+			prevX = x;
+			prevY = y;
+		}
 		
 		if(isWalkObstacle() && scene.getPolygonalNavGraph() != null) {
 			scene.getPolygonalNavGraph().addDinamicObstacle(bbox);
@@ -126,14 +165,28 @@ public class SpriteActor extends BaseActor {
 	public void setScale(float scale) {
 		this.scale = scale;
 		bbox.setScale(scale, scale);
+		bboxChanged();
 	}
 
 	@Override
 	public void update(float delta) {
 		super.update(delta);
+
+		if (pendingAnimation != null && renderer.prefetchAnimation(pendingAnimation))
+			startPendingAnimation();
+
+		FrameProfiler.begin(Section.RENDERERS);
 		renderer.update(delta);
+		FrameProfiler.end(Section.RENDERERS);
+
+		prevX = getX();
+		prevY = getY();
+
 		if(posTween != null) {
+			updating = true;
 			posTween.update(this, delta);
+			updating = false;
+
 			if(posTween.isComplete()) {
 				posTween = null;
 			}
@@ -142,7 +195,15 @@ public class SpriteActor extends BaseActor {
 
 	public void draw(SpriteBatch batch) {
 		if (isVisible()) {
-			renderer.draw(batch, getX(), getY(), scale);
+			World w = World.getInstance();
+
+			if (w.isFixedStep()) {
+				float alpha = w.getStepAlpha();
+
+				renderer.draw(batch, prevX + (getX() - prevX) * alpha, prevY + (getY() - prevY) * alpha, scale);
+			} else {
+				renderer.draw(batch, getX(), getY(), scale);
+			}
 		}
 	}
 
@@ -153,6 +214,21 @@ public class SpriteActor extends BaseActor {
 	public void startAnimation(String id, int repeatType, int count,
 			ActionCallback cb) {
 
+		// Don't block the game loop loading the source. The animation is
+		// started in update() when the source is ready.
+		if (World.getInstance().isBackgroundLoading() && !renderer.prefetchAnimation(id)) {
+			EngineLogger.debug("Waiting for the source of animation: " + id);
+
+			pendingAnimation = id;
+			pendingRepeatType = repeatType;
+			pendingCount = count;
+			pendingCb = cb;
+
+			return;
+		}
+
+		cancelPendingAnimation();
+
 		AnimationDesc fa = renderer.getCurrentAnimation();
 
 		if (fa != null) {
@@ -201,6 +277,43 @@ public class SpriteActor extends BaseActor {
 		}
 	}
 
+	/**
+	 * Queues the source of the animation for loading in background, so it
+	 * can be started later without waiting.
+	 */
+	public void prefetchAnimation(String id) {
+		renderer.prefetchAnimation(id);
+	}
+
+	/**
+	 * Releases the prefetched sources of the animations that were not started.
+	 */
+	public void releasePrefetchedAnimations() {
+		renderer.releasePrefetchedAnimations();
+	}
+
+	public boolean isAnimationPending() {
+		return pendingAnimation != null;
+	}
+
+	private void startPendingAnimation() {
+		String id = pendingAnimation;
+		ActionCallback cb = pendingCb;
+
+		if (cb == null && pendingCbSer != null)
+			cb = ActionCallbackSerialization.find(pendingCbSer);
+
+		cancelPendingAnimation();
+
+		startAnimation(id, pendingRepeatType, pendingCount, cb);
+	}
+
+	private void cancelPendingAnimation() {
+		pendingAnimation = null;
+		pendingCb = null;
+		pendingCbSer = null;
+	}
+
 	/**
 	 * Create position animation.
 	 */
@@ -214,24 +327,28 @@ public class SpriteActor extends BaseActor {
 	}
 
 	public void lookat(Vector2 p) {
+		cancelPendingAnimation();
 		renderer.lookat(bbox.getX(), bbox.getY(), p);
 		if(bboxFromRenderer)
 			updateBBox();
 	}
 
 	public void lookat(String direction) {
+		cancelPendingAnimation();
 		renderer.lookat(direction);
 		if(bboxFromRenderer)
 			updateBBox();
 	}
 
 	public void stand() {
+		cancelPendingAnimation();
 		renderer.stand();
 		if(bboxFromRenderer)
 			updateBBox();
 	}
 
 	public void startWalkFA(Vector2 p0, Vector2 pf) {
+		cancelPendingAnimation();
 		renderer.walk(p0, pf);
 		if(bboxFromRenderer)
 			updateBBox();
@@ -244,17 +361,16 @@ public class SpriteActor extends BaseActor {
 	 * @param cb The action callback
 	 */
 	public void goTo(Vector2 pf, ActionCallback cb) {
-		EngineLogger.debug(MessageFormat.format("GOTO {0},{1}", pf.x, pf.y));
-
-		Vector2 p0 = new Vector2(bbox.getX(), bbox.getY());
-
-		ArrayList<Vector2> walkingPath = null;
+		if (EngineLogger.debugMode())
+			EngineLogger.debug(MessageFormat.format("GOTO {0},{1}", pf.x, pf.y));
 
 		if(scene.getPolygonalNavGraph() != null) {
-			walkingPath = scene.getPolygonalNavGraph().findPath(p0.x, p0.y, pf.x, pf.y);
+			scene.getPolygonalNavGraph().findPath(bbox.getX(), bbox.getY(), pf.x, pf.y, pathScratch);
+		} else {
+			pathScratch.clear();
 		}
 
-		if (walkingPath == null || walkingPath.size() == 0) {
+		if (pathScratch.size() == 0) {
 			// llamamos al callback aunque el camino esté vacío
 			if (cb != null)
 				ActionCallbackQueue.add(cb);
@@ -262,9 +378,20 @@ public class SpriteActor extends BaseActor {
 			return;
 		}
 
-		posTween = new WalkTween();
+		while (walkingPath.size() > pathScratch.size())
+			walkingPath.remove(walkingPath.size() - 1);
+
+		while (walkingPath.size() < pathScratch.size())
+			walkingPath.add(new Vector2());
 
-		((WalkTween)posTween).start(this, walkingPath, walkingSpeed, cb);
+		for (int i = 0; i < pathScratch.size(); i++)
+			walkingPath.get(i).set(pathScratch.get(i));
+
+		if (walkTween == null)
+			walkTween = new WalkTween();
+
+		posTween = walkTween;
+		walkTween.start(this, walkingPath, walkingSpeed, cb);
 	}
 	
 	/**
@@ -284,7 +411,9 @@ public class SpriteActor extends BaseActor {
 		verts[4] = renderer.getWidth()/2;
 		verts[5] = renderer.getHeight();
 		verts[6] = renderer.getWidth()/2;
-		verts[7] = 0f;		
+		verts[7] = 0f;
+		
+		bboxChanged();
 	}	
 
 	@Override
@@ -303,6 +432,10 @@ public class SpriteActor extends BaseActor {
 		super.loadAssets();
 
 		renderer.loadAssets();
+
+		// The source of the pending animation is loaded with the scene
+		if (pendingAnimation != null)
+			renderer.prefetchAnimation(pendingAnimation);
 	}
 
 	@Override
@@ -317,6 +450,9 @@ public class SpriteActor extends BaseActor {
 		setPosition(bbox.getX(), bbox.getY());
 		
 		super.retrieveAssets();
+
+		if (pendingAnimation != null)
+			startPendingAnimation();
 	}
 
 	@Override
@@ -328,6 +464,19 @@ public class SpriteActor extends BaseActor {
 	public void write(Json json) {
 		super.write(json);
 
+		// Started when the saved game is loaded
+		if (pendingAnimation != null) {
+			json.writeValue("pendingAnimation", pendingAnimation);
+			json.writeValue("pendingRepeatType", pendingRepeatType);
+			json.writeValue("pendingCount", pendingCount);
+
+			if (pendingCbSer != null)
+				json.writeValue("pendingCb", pendingCbSer);
+			else
+				json.writeValue("pendingCb", ActionCallbackSerialization.find(pendingCb),
+						pendingCb == null ? null : String.class);
+		}
+
 		json.writeValue("scale", scale);
 		json.writeValue("walkingSpeed", walkingSpeed);
 		json.writeValue("posTween", posTween, null);
@@ -345,9 +494,22 @@ public class SpriteActor extends BaseActor {
 		posTween = json.readValue("posTween", SpritePosTween.class, jsonData);
 		depthType = json.readValue("depthType", DepthType.class, jsonData);
 		
-		renderer = json.readValue("renderer", ActorRenderer.class, jsonData);
+		if (SerializationHelper.getInstance().getMode() == Mode.MODEL)
+			renderer = json.readValue("renderer", ActorRenderer.class, jsonData);
+		else
+			renderer.read(json, jsonData.get("renderer"));
 		
 		bboxFromRenderer = json.readValue("bboxFromRenderer", Boolean.class, jsonData);
+
+		pendingAnimation = json.readValue("pendingAnimation", String.class, jsonData);
+		pendingCb = null;
+		pendingCbSer = null;
+
+		if (pendingAnimation != null) {
+			pendingRepeatType = json.readValue("pendingRepeatType", Integer.class, jsonData);
+			pendingCount = json.readValue("pendingCount", Integer.class, jsonData);
+			pendingCbSer = json.readValue("pendingCb", String.class, jsonData);
+		}
 		
 		if(bboxFromRenderer)
 			bbox.setScale(1, 1);
@@ -17,17 +17,30 @@ package com.bladecoder.engine.model;
 
 import java.util.ArrayList;
 
+import com.badlogic.gdx.utils.Json;
+import com.badlogic.gdx.utils.Json.Serializable;
+import com.badlogic.gdx.utils.JsonValue;
 import com.bladecoder.engine.actions.Action;
 import com.bladecoder.engine.actions.ActionCallback;
+import com.bladecoder.engine.actions.ActionCallbackQueue;
+import com.bladecoder.engine.actions.AnimationAction;
 import com.bladecoder.engine.actions.RunVerbAction;
 import com.bladecoder.engine.util.EngineLogger;
+import com.bladecoder.engine.util.SerializationHelper;
+import com.bladecoder.engine.util.SerializationHelper.Mode;
+
+public class Verb implements ActionCallback, Serializable {
+	/** Number of actions to look ahead for animations to prefetch */
+	private static final int PREFETCH_ACTIONS = 8;
 
-public class Verb implements ActionCallback {
 	private String id;
 	
 	private ArrayList<Action> actions = new ArrayList <Action>();
 	
 	private int ip = -1;
+
+	/** Actors with animations prefetched by this verb. Released when it ends */
+	private ArrayList<SpriteActor> prefetchedActors;
 	
 	public Verb() {
 	}
@@ -68,15 +81,66 @@ public class Verb implements ActionCallback {
 				EngineLogger.debug(ip + ". " + a.getClass().getSimpleName());
 			
 			try {
-				if(a.run(this))
+				if(a.run(this)) {
 					stop = true;
-				else
+					ActionCallbackQueue.actionRun();
+				} else {
 					ip++;
+
+					// Continues in the next frame when the frame budget is spent
+					if (ActionCallbackQueue.actionRun() && !isFinished()) {
+						ip--;
+						ActionCallbackQueue.add(this);
+						stop = true;
+					}
+				}
 			} catch (Exception e) {
 				EngineLogger.error("EXCEPTION EXECUTING ACTION: " + a.getClass().getSimpleName(), e);
 				ip++;
 			}		
 		}
+
+		if (stop && World.getInstance().isBackgroundLoading())
+			prefetch();
+		else if (isFinished())
+			releasePrefetched();
+	}
+
+	/**
+	 * Queues the sources of the next animations while waiting for the current
+	 * action, so they don't have to be loaded when the action is reached.
+	 */
+	private void prefetch() {
+		int end = Math.min(actions.size(), ip + 1 + PREFETCH_ACTIONS);
+
+		for (int i = ip + 1; i < end; i++) {
+			Action a = actions.get(i);
+
+			if (a instanceof AnimationAction) {
+				SpriteActor actor = ((AnimationAction) a).prefetch();
+
+				if (actor != null) {
+					if (prefetchedActors == null)
+						prefetchedActors = new ArrayList<SpriteActor>();
+
+					if (!prefetchedActors.contains(actor))
+						prefetchedActors.add(actor);
+				}
+			}
+		}
+	}
+
+	/**
+	 * The animations of the branches that were not run are not needed.
+	 */
+	private void releasePrefetched() {
+		if (prefetchedActors == null)
+			return;
+
+		for (SpriteActor a : prefetchedActors)
+			a.releasePrefetchedAnimations();
+
+		prefetchedActors.clear();
 	}
 	
 	private boolean isFinished() {
@@ -90,6 +154,13 @@ public class Verb implements ActionCallback {
 	}
 
 
+	/**
+	 * @return true if the verb has been run since the chapter was loaded.
+	 */
+	public boolean hasRun() {
+		return ip != -1;
+	}
+
 	public void cancel() {
 		for(Action c:actions) {
 			if(c instanceof RunVerbAction)
@@ -97,5 +168,54 @@ public class Verb implements ActionCallback {
 		}		
 		
 		ip = actions.size();
+		releasePrefetched();
 	}	
+
+	@Override
+	public void write(Json json) {
+		if (SerializationHelper.getInstance().getMode() == Mode.MODEL) {
+			json.writeValue("id", id);
+			json.writeValue("actions", actions, ArrayList.class, Action.class);
+		} else {
+			// The actions are defined in the chapter. Only the state of the
+			// serializable actions is saved, by position.
+			json.writeArrayStart("actions");
+
+			for (Action a : actions) {
+				if (a instanceof Serializable)
+					json.writeValue(a, a.getClass());
+				else
+					json.writeValue(null);
+			}
+
+			json.writeArrayEnd();
+		}
+
+		json.writeValue("ip", ip);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public void read(Json json, JsonValue jsonData) {
+		if (SerializationHelper.getInstance().getMode() == Mode.MODEL) {
+			// Older saved games used reflection, which skips the default values
+			id = json.readValue("id", String.class, jsonData);
+
+			ArrayList<Action> a = json.readValue("actions", ArrayList.class, Action.class, jsonData);
+
+			if (a != null)
+				actions = a;
+		} else {
+			JsonValue v = jsonData.get("actions").child;
+
+			for (int i = 0; i < actions.size() && v != null; i++, v = v.next) {
+				Action a = actions.get(i);
+
+				if (a instanceof Serializable && !v.isNull())
+					((Serializable) a).read(json, v);
+			}
+		}
+
+		ip = json.readValue("ip", Integer.class, -1, jsonData);
+	}
 }
@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.model;
+
+import java.util.HashMap;
+import java.util.Map.Entry;
+
+/**
+ * Dispatch table compiled from the verbs of a VerbManager. Resolves a verb by
+ * id, target and state with nested map lookups instead of building the
+ * 'id.target.state' keys.
+ * 
+ * The verb keys are split in its id, target and state parts when compiling.
+ * The ids, targets and states can contain dots, so a key is added for every
+ * possible split. The lookup finds the same verb than searching the
+ * concatenated keys.
+ * 
+ * @author rgarcia
+ */
+class VerbDispatch {
+	private static class Node {
+		Verb verb;
+		HashMap<String, Verb> byState;
+		HashMap<String, Node> byTarget;
+	}
+
+	private final HashMap<String, Node> table = new HashMap<String, Node>();
+
+	public VerbDispatch(HashMap<String, Verb> verbs) {
+		for (Entry<String, Verb> e : verbs.entrySet())
+			add(e.getKey(), e.getValue());
+	}
+
+	/**
+	 * Search order:
+	 *   - id.target.state
+	 *   - id.target
+	 *   - id.state
+	 *   - id
+	 */
+	public Verb get(String id, String state, String target) {
+		Node n = table.get(id);
+
+		if (n == null)
+			return null;
+
+		Verb v = null;
+
+		if (target != null && n.byTarget != null) {
+			Node t = n.byTarget.get(target);
+
+			if (t != null) {
+				if (state != null && t.byState != null)
+					v = t.byState.get(state); // id.target.state
+
+				if (v == null)
+					v = t.verb; // id.target
+			}
+		}
+
+		if (v == null && state != null && n.byState != null)
+			v = n.byState.get(state); // id.state
+
+		if (v == null)
+			v = n.verb; // id
+
+		return v;
+	}
+
+	private void add(String key, Verb v) {
+		node(table, key).verb = v;
+
+		for (int i = key.indexOf('.'); i != -1; i = key.indexOf('.', i + 1)) {
+			String id = key.substring(0, i);
+			String rest = key.substring(i + 1);
+
+			// id.target or id.state
+			Node n = node(table, id);
+			node(n, rest).verb = v;
+			state(n).put(rest, v);
+
+			// id.target.state
+			for (int j = rest.indexOf('.'); j != -1; j = rest.indexOf('.', j + 1)) {
+				Node t = node(n, rest.substring(0, j));
+				state(t).put(rest.substring(j + 1), v);
+			}
+		}
+	}
+
+	private static Node node(HashMap<String, Node> map, String key) {
+		Node n = map.get(key);
+
+		if (n == null) {
+			n = new Node();
+			map.put(key, n);
+		}
+
+		return n;
+	}
+
+	private static Node node(Node parent, String target) {
+		if (parent.byTarget == null)
+			parent.byTarget = new HashMap<String, Node>();
+
+		return node(parent.byTarget, target);
+	}
+
+	private static HashMap<String, Verb> state(Node n) {
+		if (n.byState == null)
+			n.byState = new HashMap<String, Verb>();
+
+		return n.byState;
+	}
+}
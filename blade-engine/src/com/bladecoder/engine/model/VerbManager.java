@@ -17,6 +17,7 @@ package com.bladecoder.engine.model;
 
 import java.text.MessageFormat;
 import java.util.HashMap;
+import java.util.Map.Entry;
 
 import com.bladecoder.engine.model.Verb;
 
@@ -24,21 +25,24 @@ import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.Json.Serializable;
 import com.badlogic.gdx.utils.JsonValue;
 import com.bladecoder.engine.util.EngineLogger;
+import com.bladecoder.engine.util.SerializationHelper;
+import com.bladecoder.engine.util.SerializationHelper.Mode;
 
 public class VerbManager implements Serializable {
 	protected static HashMap<String, Verb> defaultVerbs = new HashMap<String, Verb>();
 	protected HashMap<String, Verb> verbs = new HashMap<String, Verb>();
 
+	/** Compiled from the verbs when needed */
+	private VerbDispatch dispatch;
+
 	public void addVerb(String id, Verb v) {
 		verbs.put(id, v);
+		dispatch = null;
 	}
 
 	public static void addDefaultVerb(String id, Verb v) {
 		defaultVerbs.put(id, v);
 	}
-	
-	// Used only in getVerb(). It is a class variable to avoid allocations
-	private StringBuilder tmpsb = new StringBuilder();
 
 	/**
 	 * Returns an actor Verb.
@@ -53,39 +57,19 @@ public class VerbManager implements Serializable {
 	 * @param target When an object is used by other object.
 	 */
 	public Verb getVerb(String id, String state, String target) {
-		Verb v = null;
-		
-		if(target != null) {
-			tmpsb.setLength(0);
-			if(state != null) {
-				tmpsb.append(id).append(".").append(target).append(".").append(state);
-				v = verbs.get(tmpsb.toString()); // id.target.state
-			}
-
-			if (v == null) {
-				tmpsb.setLength(0);
-				tmpsb.append(id).append(".").append(target);
-				v = verbs.get(tmpsb.toString()); // id.target
-			}
-		}
-		
-		if (v == null && state != null) {
-			tmpsb.setLength(0);
-			tmpsb.append(id).append(".").append(state);
-			
-			v = verbs.get(tmpsb.toString()); // id.state
-		}
-
-		if (v == null)
-			v = verbs.get(id); // id
+		if (dispatch == null)
+			dispatch = new VerbDispatch(verbs);
 
-		return v;
+		return dispatch.get(id, state, target);
 	}
 	
 	public static HashMap<String, Verb> getDefaultVerbs() {
 		return defaultVerbs;
 	}
 
+	/**
+	 * The verbs must be added with addVerb() to be found by getVerb().
+	 */
 	public HashMap<String, Verb> getVerbs() {
 		return verbs;
 	}
@@ -100,7 +84,8 @@ public class VerbManager implements Serializable {
 
 		Verb v = null;
 		
-		EngineLogger.debug(MessageFormat.format("Run Verb:{0} State: {1} Target: {2}", verb, state, target));
+		if (EngineLogger.debugMode())
+			EngineLogger.debug(MessageFormat.format("Run Verb:{0} State: {1} Target: {2}", verb, state, target));
 		
 		v = getVerb(verb, state, target);
 
@@ -141,14 +126,42 @@ public class VerbManager implements Serializable {
 
 	@Override
 	public void write(Json json) {
-		json.writeValue("verbs", verbs, verbs == null ? null : verbs.getClass(), Verb.class);
+		if (SerializationHelper.getInstance().getMode() == Mode.MODEL) {
+			json.writeValue("verbs", verbs, verbs == null ? null : verbs.getClass(), Verb.class);
+		} else {
+			// Only the verbs that have been run have state
+			json.writeObjectStart("verbs");
+
+			for (Entry<String, Verb> e : verbs.entrySet()) {
+				if (e.getValue().hasRun())
+					json.writeValue(e.getKey(), e.getValue());
+			}
+
+			json.writeObjectEnd();
+		}
 	}
 
 	@SuppressWarnings("unchecked")
 	@Override
 	public void read (Json json, JsonValue jsonData) {
-		verbs = json.readValue("verbs", HashMap.class, Verb.class, jsonData);
+		if (SerializationHelper.getInstance().getMode() == Mode.MODEL) {
+			verbs = json.readValue("verbs", HashMap.class, Verb.class, jsonData);
+			dispatch = null;
+		} else
+			readState(json, jsonData.get("verbs"), verbs);
 	}
 
-
+	/**
+	 * Reads the state of the verbs in the verbs defined in the chapter.
+	 */
+	static void readState(Json json, JsonValue jsonData, HashMap<String, Verb> verbs) {
+		for (JsonValue v = jsonData.child; v != null; v = v.next) {
+			Verb verb = verbs.get(v.name);
+
+			if (verb != null)
+				verb.read(json, v);
+			else
+				EngineLogger.error("Verb not found loading state: " + v.name);
+		}
+	}
 }
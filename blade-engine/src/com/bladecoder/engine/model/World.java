@@ -15,9 +15,9 @@
  ******************************************************************************/
 package com.bladecoder.engine.model;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.Writer;
-import java.nio.ByteBuffer;
+import java.io.OutputStream;
 import java.util.HashMap;
 
 import javax.xml.parsers.ParserConfigurationException;
@@ -28,32 +28,50 @@ import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.Pixmap;
 import com.badlogic.gdx.graphics.Pixmap.Format;
-import com.badlogic.gdx.graphics.PixmapIO;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.glutils.FrameBuffer;
+import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.Json.Serializable;
 import com.badlogic.gdx.utils.JsonValue;
-import com.badlogic.gdx.utils.JsonWriter.OutputType;
 import com.badlogic.gdx.utils.ScreenUtils;
+import com.badlogic.gdx.utils.SerializationException;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.badlogic.gdx.utils.async.AsyncResult;
+import com.badlogic.gdx.utils.async.AsyncTask;
 import com.bladecoder.engine.actions.ActionCallback;
 import com.bladecoder.engine.actions.ActionCallbackQueue;
 import com.bladecoder.engine.anim.Timers;
 import com.bladecoder.engine.assets.AssetConsumer;
+import com.bladecoder.engine.assets.AssetLeaseService;
 import com.bladecoder.engine.assets.EngineAssetManager;
 import com.bladecoder.engine.i18n.I18N;
+import com.bladecoder.engine.loader.ChapterLoadProgress;
+import com.bladecoder.engine.loader.ChapterXMLLoader;
 import com.bladecoder.engine.loader.WorldXMLLoader;
+import com.bladecoder.engine.util.ActionCallbackSerialization;
+import com.bladecoder.engine.util.BinaryJsonReader;
+import com.bladecoder.engine.util.BinaryJsonWriter;
 import com.bladecoder.engine.util.EngineLogger;
+import com.bladecoder.engine.util.CountingSpriteBatch;
+import com.bladecoder.engine.util.DrawStats;
+import com.bladecoder.engine.util.FrameProfiler;
+import com.bladecoder.engine.util.FrameProfiler.Section;
+import com.bladecoder.engine.util.SerializationHelper;
+import com.bladecoder.engine.util.SerializationHelper.Mode;
 
 public class World implements Serializable, AssetConsumer {
 
 	public static final String GAMESTATE_EXT = ".gamestate.v7";
+
+	/** Version of the runtime state stored in the binary saved games */
+	private static final int GAMESTATE_VERSION = 1;
 	private static final String GAMESTATE_FILENAME = "default" + GAMESTATE_EXT;
 	
 	private static final int SCREENSHOT_DEFAULT_WIDTH = 300;
 
 	public static enum AssetState {
-		LOADED, LOADING, LOADING_AND_INIT_SCENE, LOAD_ASSETS, LOAD_ASSETS_AND_INIT_SCENE
+		LOADED, LOADING, LOADING_AND_INIT_SCENE, LOAD_ASSETS, LOAD_ASSETS_AND_INIT_SCENE, LOAD_CHAPTER
 	};
 
 	private static final World instance = new World();
@@ -103,6 +121,35 @@ public class World implements Serializable, AssetConsumer {
 
 	transient private SpriteBatch spriteBatch;
 
+	/**
+	 * Creates the chapter model in a background thread and loads the not
+	 * preloaded animations without blocking the game loop
+	 */
+	private boolean asyncLoading;
+	private AsyncExecutor loaderExecutor;
+
+	/** The chapter being loaded in background when asyncLoading is set */
+	private AsyncResult<ChapterXMLLoader> chapterLoadResult;
+	private ChapterLoadProgress chapterLoadProgress;
+	private String loadingChapter;
+	private boolean setTestSceneWhenLoaded;
+
+	/** Loads the assets of the neighbour scenes when asyncLoading is set */
+	private final ScenePrefetcher prefetcher = new ScenePrefetcher();
+
+	private final SaveGameWriter saveGameWriter = new SaveGameWriter();
+
+	/** Max. simulation steps per frame in fixed timestep mode */
+	private static final int MAX_STEPS_PER_FRAME = 5;
+
+	/** Simulation step in seconds. 0 updates the world with the frame delta */
+	private float fixedStep = 0;
+	private float stepAccumulator = 0;
+
+	/** The camera position before the last simulation step */
+	private final Vector2 prevCameraPos = new Vector2();
+	private Scene prevCameraScene;
+
 	public static World getInstance() {
 		return instance;
 	}
@@ -124,10 +171,12 @@ public class World implements Serializable, AssetConsumer {
 
 		customProperties = new HashMap<String, String>();
 
-		spriteBatch = new SpriteBatch();
+		spriteBatch = new CountingSpriteBatch();
 		
 		transition = new Transition();
 
+		ActionCallbackSerialization.clearIndex();
+
 		disposed = false;
 	}
 
@@ -148,15 +197,52 @@ public class World implements Serializable, AssetConsumer {
 
 	public void draw() {
 		if (assetState == AssetState.LOADED) {
+			SceneCamera camera = currentScene.getCamera();
+			boolean interpolate = isFixedStep() && prevCameraScene == currentScene;
+			float x = camera.position.x;
+			float y = camera.position.y;
+
+			if (interpolate) {
+				float alpha = getStepAlpha();
+
+				camera.position.x = prevCameraPos.x + (x - prevCameraPos.x) * alpha;
+				camera.position.y = prevCameraPos.y + (y - prevCameraPos.y) * alpha;
+				camera.update();
+			}
 
-			spriteBatch.setProjectionMatrix(currentScene.getCamera().combined);
+			FrameProfiler.begin(Section.DRAW);
+			spriteBatch.setProjectionMatrix(camera.combined);
+			DrawStats.begin();
 			spriteBatch.begin();
 			getCurrentScene().draw(spriteBatch);
 			spriteBatch.end();
+			DrawStats.end(spriteBatch.renderCalls);
+			FrameProfiler.end(Section.DRAW);
+
+			if (interpolate) {
+				camera.position.x = x;
+				camera.position.y = y;
+				camera.update();
+			}
 		}
 	}
 
 	public void update(float delta) {
+		FrameProfiler.begin(Section.UPDATE);
+		updateWorld(delta);
+		FrameProfiler.end(Section.UPDATE);
+	}
+
+	private void updateWorld(float delta) {
+		if (assetState == AssetState.LOAD_CHAPTER) {
+			if (chapterLoadResult.isDone())
+				chapterLoaded();
+
+			return;
+		}
+
+		FrameProfiler.begin(Section.ASSETS);
+
 		if (assetState == AssetState.LOAD_ASSETS
 				|| assetState == AssetState.LOAD_ASSETS_AND_INIT_SCENE) {
 			loadAssets();
@@ -167,8 +253,11 @@ public class World implements Serializable, AssetConsumer {
 				assetState = AssetState.LOADING_AND_INIT_SCENE;
 
 			initLoadingTime = System.currentTimeMillis();
+		}
 
-		} else if ((assetState == AssetState.LOADING || assetState == AssetState.LOADING_AND_INIT_SCENE)
+		// Checked in the same frame: the assets of a prefetched scene are
+		// already loaded
+		if ((assetState == AssetState.LOADING || assetState == AssetState.LOADING_AND_INIT_SCENE)
 				&& !EngineAssetManager.getInstance().isLoading()) {
 			retrieveAssets();
 
@@ -185,17 +274,57 @@ public class World implements Serializable, AssetConsumer {
 				initCurrentScene();
 			}
 
+			// In fixed timestep mode the loading can finish in an update from
+			// the loading screen with the frame delta. The first step is done
+			// in the simulation loop.
+			if (isFixedStep()) {
+				FrameProfiler.end(Section.ASSETS);
+				return;
+			}
 		}
 
+		FrameProfiler.end(Section.ASSETS);
+
 		if (paused || assetState != AssetState.LOADED)
 			return;
 
 		timeOfGame += delta;
 
+		if (isFixedStep()) {
+			prevCameraScene = currentScene;
+			prevCameraPos.set(currentScene.getCamera().position.x, currentScene.getCamera().position.y);
+		}
+
+		FrameProfiler.begin(Section.ASSETS);
+
+		// Loads the assets queued while the game is running
+		if (asyncLoading)
+			EngineAssetManager.getInstance().update();
+
+		AssetLeaseService.getInstance().update();
+
+		if (asyncLoading)
+			prefetcher.update(delta);
+
+		FrameProfiler.end(Section.ASSETS);
+
+		FrameProfiler.begin(Section.CALLBACKS);
 		ActionCallbackQueue.run();
+		FrameProfiler.end(Section.CALLBACKS);
+
+		// A callback can start loading a new chapter
+		if (assetState == AssetState.LOAD_CHAPTER)
+			return;
+
 		getCurrentScene().update(delta);
+
+		FrameProfiler.begin(Section.TEXT);
 		textManager.update(delta);
+		FrameProfiler.end(Section.TEXT);
+
+		FrameProfiler.begin(Section.TIMERS);
 		timers.update(delta);
+		FrameProfiler.end(Section.TIMERS);
 		
 		if (!transition.isFinish()) {
 			transition.update(delta);
@@ -218,6 +347,61 @@ public class World implements Serializable, AssetConsumer {
 		getCurrentScene().retrieveAssets();
 	}
 
+	/**
+	 * Sets the fixed timestep mode. The world is updated in steps of the same
+	 * duration, independent of the frame rate, so the game runs the same in
+	 * every machine. The drawing is interpolated between the last two steps.
+	 * 
+	 * In this mode the animations are not loaded in background and the
+	 * callbacks are not limited by time, since that depends on the machine.
+	 * 
+	 * @param step
+	 *            The step duration in seconds. 0 to update the world with the
+	 *            frame delta.
+	 */
+	public void setFixedStep(float step) {
+		fixedStep = step;
+		stepAccumulator = 0;
+	}
+
+	public float getFixedStep() {
+		return fixedStep;
+	}
+
+	public boolean isFixedStep() {
+		return fixedStep > 0;
+	}
+
+	/**
+	 * Fixed timestep mode. Adds the frame time and returns the number of steps
+	 * to update the world with update(getFixedStep()). The time of the
+	 * remaining fraction of step is kept for the next frame. The time above
+	 * MAX_STEPS_PER_FRAME steps is dropped, the game runs slower in machines
+	 * too slow for the step.
+	 */
+	public int addFrameTime(float delta) {
+		stepAccumulator += delta;
+
+		int steps = (int) (stepAccumulator / fixedStep);
+
+		if (steps > MAX_STEPS_PER_FRAME) {
+			steps = MAX_STEPS_PER_FRAME;
+			stepAccumulator = 0;
+		} else {
+			stepAccumulator -= steps * fixedStep;
+		}
+
+		return steps;
+	}
+
+	/**
+	 * @return The fraction of step elapsed since the last step. Used to
+	 *         interpolate the drawing in fixed timestep mode.
+	 */
+	public float getStepAlpha() {
+		return fixedStep > 0 ? Math.min(stepAccumulator / fixedStep, 1f) : 1f;
+	}
+
 	public Transition getTransition() {
 		return transition;
 	}	
@@ -230,6 +414,43 @@ public class World implements Serializable, AssetConsumer {
 		return assetState;
 	}
 
+	/**
+	 * When set, the chapters are parsed and the model is created in a
+	 * background thread. The LOAD_CHAPTER state is set meanwhile and the
+	 * progress can be retrieved with getChapterLoadProgress().
+	 * 
+	 * The sources of the animations that are not preloaded are also loaded
+	 * in background while the game is running. Enabled by default in BladeEngine.
+	 */
+	public void setAsyncLoading(boolean async) {
+		asyncLoading = async;
+	}
+
+	public boolean isAsyncLoading() {
+		return asyncLoading;
+	}
+
+	public ScenePrefetcher getScenePrefetcher() {
+		return prefetcher;
+	}
+
+	/**
+	 * True when the assets needed while the game is running, like the sources
+	 * of the not preloaded animations, must be loaded without blocking.
+	 */
+	public boolean isBackgroundLoading() {
+		return asyncLoading && assetState == AssetState.LOADED && !isFixedStep();
+	}
+
+	/**
+	 * @return The progress of the chapter being loaded in background or null
+	 *         if no chapter is being loaded.
+	 */
+	public ChapterLoadProgress getChapterLoadProgress() {
+		return assetState == AssetState.LOAD_CHAPTER ? chapterLoadProgress
+				: null;
+	}
+
 	/**
 	 * Try to load the save game if exists. In other case, load the game from
 	 * XML.
@@ -239,7 +460,7 @@ public class World implements Serializable, AssetConsumer {
 	 * @throws ParserConfigurationException
 	 */
 	public void load() {
-		if (EngineAssetManager.getInstance().getUserFile(GAMESTATE_FILENAME).exists()) {
+		if (savedGameExists()) {
 			// 2.- SAVEGAME EXISTS
 			try {
 				instance.loadGameState();
@@ -269,6 +490,11 @@ public class World implements Serializable, AssetConsumer {
 
 		init();
 
+		if (asyncLoading) {
+			loadXMLChapterAsync(chapterName);
+			return;
+		}
+
 		assetState = AssetState.LOAD_ASSETS;
 
 		long initTime = System.currentTimeMillis();
@@ -290,12 +516,73 @@ public class World implements Serializable, AssetConsumer {
 
 		instance.loadXMLChapter(chapter);
 
+		if (assetState == AssetState.LOAD_CHAPTER)
+			setTestSceneWhenLoaded = true;
+		else
+			setTestScene();
+	}
+
+	private void setTestScene() {
 		if (testScene != null) {
 			currentScene = null;
 			setCurrentScene(testScene);
 		}
 	}
 
+	private void loadXMLChapterAsync(String chapterName) {
+		final String chapter = chapterName == null ? initChapter : chapterName;
+		final ChapterLoadProgress progress = new ChapterLoadProgress();
+
+		if (loaderExecutor == null)
+			loaderExecutor = new AsyncExecutor(1);
+
+		assetState = AssetState.LOAD_CHAPTER;
+		initLoadingTime = System.currentTimeMillis();
+		loadingChapter = chapter;
+		chapterLoadProgress = progress;
+		setTestSceneWhenLoaded = false;
+
+		chapterLoadResult = loaderExecutor
+				.submit(new AsyncTask<ChapterXMLLoader>() {
+					@Override
+					public ChapterXMLLoader call() throws Exception {
+						return WorldXMLLoader.parseChapter(chapter, progress);
+					}
+				});
+	}
+
+	/**
+	 * Called from the GL thread when the background thread finish creating the
+	 * chapter model.
+	 */
+	private void chapterLoaded() {
+		ChapterXMLLoader parser;
+
+		try {
+			parser = chapterLoadResult.get();
+		} catch (Exception e) {
+			EngineLogger.error("ERROR LOADING GAME", e);
+			chapterLoadResult = null;
+			instance.dispose();
+			Gdx.app.exit();
+			return;
+		}
+
+		chapterLoadResult = null;
+
+		EngineLogger.debug("XML LOADING TIME (ms): "
+				+ (System.currentTimeMillis() - initLoadingTime));
+
+		assetState = AssetState.LOAD_ASSETS;
+
+		WorldXMLLoader.setChapter(loadingChapter, parser, this);
+
+		if (setTestSceneWhenLoaded) {
+			setTestSceneWhenLoaded = false;
+			setTestScene();
+		}
+	}
+
 	public Dialog getCurrentDialog() {
 		return currentDialog;
 	}
@@ -306,6 +593,8 @@ public class World implements Serializable, AssetConsumer {
 
 	public void setCurrentScene(Scene scene) {
 
+		prefetcher.sceneChanged(currentScene, scene);
+
 		if (currentScene != null) {
 			textManager.reset();
 			timers.clear();
@@ -403,12 +692,22 @@ public class World implements Serializable, AssetConsumer {
 	@Override
 	public void dispose() {
 
+		// The result of a chapter being loaded in background is discarded
+		cancelChapterLoading();
+
+		// Nothing to update until a chapter or a saved game is loaded
+		assetState = null;
+
+		prefetcher.clear();
+
 		try {
 
 			// ONLY dispose currentscene because other scenes are already
 			// disposed
-			currentScene.dispose();
-			currentScene = null;
+			if (currentScene != null) {
+				currentScene.dispose();
+				currentScene = null;
+			}
 
 			inventory.dispose();
 
@@ -423,11 +722,36 @@ public class World implements Serializable, AssetConsumer {
 		disposed = true;
 	}
 
+	/**
+	 * Discards the chapter being loaded in background. The parsing can not be
+	 * interrupted and it sets static state like the I18N bundle, so we wait
+	 * for it to finish before loading another chapter or a saved game.
+	 */
+	private void cancelChapterLoading() {
+		if (chapterLoadResult != null) {
+			try {
+				chapterLoadResult.get();
+			} catch (Exception e) {
+				EngineLogger.debug("Discarded chapter loading failed: " + e.getMessage());
+			}
+
+			chapterLoadResult = null;
+		}
+
+		if (loaderExecutor != null) {
+			loaderExecutor.dispose();
+			loaderExecutor = null;
+		}
+	}
+
 	public SceneCamera getSceneCamera() {
 		return currentScene.getCamera();
 	}
 
 	public void resize(float viewportWidth, float viewportHeight) {
+		if (currentScene == null)
+			return;
+
 		currentScene.getCamera().viewportWidth = viewportWidth;
 		currentScene.getCamera().viewportHeight = viewportHeight;
 
@@ -487,7 +811,10 @@ public class World implements Serializable, AssetConsumer {
 	}
 	
 	public boolean savedGameExists(String filename) {
-		return EngineAssetManager.getInstance().getUserFile(filename).exists();
+		FileHandle file = EngineAssetManager.getInstance().getUserFile(filename);
+		saveGameWriter.recover(file);
+
+		return file.exists();
 	}
 
 	// ********** JSON SERIALIZATION FOR GAME SAVING **********
@@ -512,79 +839,155 @@ public class World implements Serializable, AssetConsumer {
 	public void loadGameState(FileHandle savedFile) {
 		EngineLogger.debug("LOADING GAME STATE");
 
+		finishSaving();
+		saveGameWriter.recover(savedFile);
+
 		if (!disposed)
 			dispose();
 
 		init();
 
 		if (savedFile.exists()) {
-			assetState = AssetState.LOAD_ASSETS;
+			if (BinaryJsonReader.isBinary(savedFile)) {
+				loadGameStateBinary(savedFile);
+			} else {
+				// JSON saved games of previous versions
+				new Json().fromJson(World.class, savedFile.reader("UTF-8"));
+			}
 
-			new Json().fromJson(World.class, savedFile.reader("UTF-8"));
+			ActionCallbackSerialization.buildIndex();
 
+			assetState = AssetState.LOAD_ASSETS;
 		} else {
 			EngineLogger.error("LOADGAMESTATE: no saved game exists");
 		}
 	}
 
+	/**
+	 * Loads the chapter of the saved game and applies the saved state to it.
+	 */
+	private void loadGameStateBinary(FileHandle savedFile) {
+		Json json = new Json();
+		JsonValue root = new BinaryJsonReader().parse(savedFile);
+
+		int version = json.readValue("version", Integer.class, 0, root);
+
+		if (version != GAMESTATE_VERSION)
+			throw new SerializationException("Saved game version not supported: " + version);
+
+		String chapter = json.readValue("chapter", String.class, root);
+
+		try {
+			WorldXMLLoader.loadChapter(chapter, this);
+		} catch (Exception e) {
+			throw new SerializationException("Error loading the chapter of the saved game: " + chapter, e);
+		}
+
+		SerializationHelper helper = SerializationHelper.getInstance();
+		helper.setMode(Mode.STATE);
+		helper.setBaseline(scenes.values());
+
+		try {
+			read(json, root);
+		} finally {
+			helper.setMode(Mode.MODEL);
+			helper.clearBaseline();
+		}
+	}
+
+	/**
+	 * Saves the runtime state of the world. The chapter definition is not
+	 * saved, the state is streamed in binary format.
+	 * 
+	 * The state and the screenshot are taken now and written to the file by
+	 * the SaveGameWriter in background.
+	 */
 	public void saveGameState(String filename) {
 		EngineLogger.debug("SAVING GAME STATE");
 
-		if (disposed)
+		if (disposed || assetState == AssetState.LOAD_CHAPTER)
 			return;
 
-		Json json = new Json();
-		json.setOutputType(OutputType.javascript);
+		long initTime = System.currentTimeMillis();
 
-		String s = null;
+		ByteArrayOutputStream state = new ByteArrayOutputStream(64 * 1024);
 
-		if (EngineLogger.debugMode())
-			s = json.prettyPrint(instance);
-		else
-			s = json.toJson(instance);
+		try {
+			writeGameState(state);
+		} catch (Exception e) {
+			EngineLogger.error("ERROR SAVING GAME", e);
+			return;
+		}
+
+		EngineAssetManager am = EngineAssetManager.getInstance();
 
-		Writer w = EngineAssetManager.getInstance().getUserFile(filename)
-				.writer(false, "UTF-8");
+		saveGameWriter.write(am.getUserFile(filename), state.toByteArray(),
+				am.getUserFile(filename + ".png"),
+				readScreenshot(SCREENSHOT_DEFAULT_WIDTH));
+
+		EngineLogger.debug("SAVING TIME (ms): "
+				+ (System.currentTimeMillis() - initTime));
+	}
+
+	/**
+	 * Streams the runtime state of the world in the binary saved game format.
+	 * The stream is closed when finished.
+	 */
+	public void writeGameState(OutputStream os) throws IOException {
+		SerializationHelper.getInstance().setMode(Mode.STATE);
 
 		try {
-			w.write(s);
-			w.close();
-		} catch (IOException e) {
-			EngineLogger.error("ERROR SAVING GAME", e);
+			BinaryJsonWriter w = new BinaryJsonWriter(os);
+
+			try {
+				Json json = new Json();
+				json.setWriter(w);
+				json.writeValue(instance, World.class);
+			} finally {
+				w.close();
+			}
+		} finally {
+			SerializationHelper.getInstance().setMode(Mode.MODEL);
 		}
-		
-		// Save Screenshot
-		takeScreenshot(filename + ".png", SCREENSHOT_DEFAULT_WIDTH);
 	}
-	
+
+	/**
+	 * Blocks until the saved games being written in background are finished.
+	 */
+	public void finishSaving() {
+		saveGameWriter.finish();
+	}
+
 	public void takeScreenshot(String filename, int w) {
-		
+		saveGameWriter.write(null, null, EngineAssetManager.getInstance()
+				.getUserFile(filename), readScreenshot(w));
+	}
+
+	/**
+	 * Draws the world in a frame buffer and reads its pixels. The pixels are
+	 * upside down, they are flipped by the SaveGameWriter in background.
+	 */
+	private Pixmap readScreenshot(int w) {
+
 		int h = (int)(w * ((float)height)/(float)width);
-		
+
 		FrameBuffer fbo = new FrameBuffer(Format.RGB565, w, h, false);
 
-		fbo.begin();
-		draw();
-		Pixmap pixmap = ScreenUtils.getFrameBufferPixmap(0, 0, w, h);
-		fbo.end();
-		
-		// Flip the pixmap upside down
-        ByteBuffer pixels = pixmap.getPixels();
-        int numBytes = w * h * 4;
-        byte[] lines = new byte[numBytes];
-        int numBytesPerLine = w * 4;
-        for (int i = 0; i < h; i++) {
-            pixels.position((h - i - 1) * numBytesPerLine);
-            pixels.get(lines, i * numBytesPerLine, numBytesPerLine);
-        }
-        pixels.clear();
-        pixels.put(lines);
-		
-		PixmapIO.writePNG(EngineAssetManager.getInstance().getUserFile(filename), pixmap);
+		try {
+			fbo.begin();
+			draw();
+			return ScreenUtils.getFrameBufferPixmap(0, 0, w, h);
+		} finally {
+			fbo.end();
+			fbo.dispose();
+		}
 	}
 
 	@Override
 	public void write(Json json) {
+		if (SerializationHelper.getInstance().getMode() == Mode.STATE)
+			json.writeValue("version", GAMESTATE_VERSION);
+
 		json.writeValue("scenes", scenes, scenes.getClass(), Scene.class);
 		json.writeValue("currentScene", currentScene.getId());
 		json.writeValue("inventory", inventory);
@@ -614,18 +1017,43 @@ public class World implements Serializable, AssetConsumer {
 	@SuppressWarnings("unchecked")
 	@Override
 	public void read(Json json, JsonValue jsonData) {
-		instance.scenes = json.readValue("scenes", HashMap.class, Scene.class,
-				jsonData);
+		boolean model = SerializationHelper.getInstance().getMode() == Mode.MODEL;
+
+		if (model) {
+			instance.scenes = json.readValue("scenes", HashMap.class, Scene.class,
+					jsonData);
+		} else {
+			// The state is applied to the scenes of the loaded chapter
+			for (JsonValue v = jsonData.get("scenes").child; v != null; v = v.next) {
+				Scene s = instance.scenes.get(v.name);
+
+				if (s != null)
+					s.read(json, v);
+				else
+					EngineLogger.error("Scene not found loading state: " + v.name);
+			}
+		}
+
 		instance.currentScene = instance.scenes.get(json.readValue(
 				"currentScene", String.class, jsonData));
-		instance.inventory = json.readValue("inventory", Inventory.class,
-				jsonData);
+
+		if (model)
+			instance.inventory = json.readValue("inventory", Inventory.class,
+					jsonData);
+		else
+			instance.inventory.read(json, jsonData.get("inventory"));
 
 		instance.timeOfGame = json.readValue("timeOfGame", Float.class,
 				jsonData);
 		instance.cutMode = json.readValue("cutmode", Boolean.class, jsonData);
-		VerbManager.defaultVerbs = json.readValue("defaultVerbs",
-				HashMap.class, Verb.class, jsonData);
+
+		if (model)
+			VerbManager.defaultVerbs = json.readValue("defaultVerbs",
+					HashMap.class, Verb.class, jsonData);
+		else
+			VerbManager.readState(json, jsonData.get("defaultVerbs"),
+					VerbManager.defaultVerbs);
+
 		instance.timers = json.readValue("timers", Timers.class, jsonData);
 
 		instance.textManager = json.readValue("textmanager", TextManager.class,
@@ -650,8 +1078,9 @@ public class World implements Serializable, AssetConsumer {
 		
 		ActionCallbackQueue.read(json, jsonData);
 		
-		
-		I18N.loadChapter(EngineAssetManager.MODEL_DIR + instance.currentChapter);
+		// Already loaded with the chapter in STATE mode
+		if (model)
+			I18N.loadChapter(EngineAssetManager.MODEL_DIR + instance.currentChapter);
 		
 	}
 }
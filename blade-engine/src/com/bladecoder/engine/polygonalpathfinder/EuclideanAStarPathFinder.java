@@ -0,0 +1,258 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.polygonalpathfinder;
+
+import java.util.ArrayList;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.bladecoder.engine.pathfinder.NavNode;
+
+/**
+ * A* for polygonal maps that finds the shortest walking distance. The cost of
+ * every edge is its length and the heuristic is the straight line distance to
+ * the target, which never overestimates, so the path found is optimal.
+ *
+ * All the search data is stored in primitive arrays indexed by node that are
+ * reused between searches. The arrays only grow when the graph grows.
+ *
+ * @author rgarcia
+ */
+public class EuclideanAStarPathFinder {
+	private static final int INITIAL_CAPACITY = 64;
+
+	private NavNodePolygonal[] nodes = new NavNodePolygonal[INITIAL_CAPACITY];
+
+	/** Cost from the start node */
+	private float[] g = new float[INITIAL_CAPACITY];
+	/** g + heuristic */
+	private float[] f = new float[INITIAL_CAPACITY];
+	private int[] parent = new int[INITIAL_CAPACITY];
+
+	/** Search ID where the node was reached. Avoids clearing the arrays */
+	private int[] visited = new int[INITIAL_CAPACITY];
+	private boolean[] closed = new boolean[INITIAL_CAPACITY];
+
+	/** Open list: binary heap of node indexes ordered by f */
+	private int[] heap = new int[INITIAL_CAPACITY];
+	private int[] heapPos = new int[INITIAL_CAPACITY];
+	private int heapSize;
+
+	private int searchID = 0;
+
+	/**
+	 * Finds the shortest path between startNode and targetNode.
+	 *
+	 * @param graphNodes
+	 *            All the nodes in the graph except the start and target nodes
+	 * @param out
+	 *            Filled with the path points. The Vector2 already in the list
+	 *            are reused.
+	 * @return true if a path was found
+	 */
+	public boolean findPath(ArrayList<NavNodePolygonal> graphNodes,
+			NavNodePolygonal startNode, NavNodePolygonal targetNode,
+			ArrayList<Vector2> out) {
+		int n = graphNodes.size() + 2;
+
+		ensureCapacity(n);
+
+		for (int i = 0; i < graphNodes.size(); i++) {
+			NavNodePolygonal node = graphNodes.get(i);
+			node.index = i;
+			nodes[i] = node;
+		}
+
+		int start = n - 2;
+		int target = n - 1;
+		startNode.index = start;
+		targetNode.index = target;
+		nodes[start] = startNode;
+		nodes[target] = targetNode;
+
+		searchID++;
+
+		if (searchID < 0)
+			searchID = 1;
+
+		heapSize = 0;
+		reach(start, 0, -1, targetNode);
+
+		boolean found = false;
+
+		while (heapSize > 0) {
+			int current = pop();
+
+			if (current == target) {
+				found = true;
+				break;
+			}
+
+			closed[current] = true;
+
+			NavNodePolygonal node = nodes[current];
+			Array<NavNode> neighbors = node.neighbors;
+
+			for (int i = 0; i < neighbors.size; i++) {
+				NavNodePolygonal neighbor = (NavNodePolygonal) neighbors.get(i);
+				int idx = neighbor.index;
+
+				// nodes not in the graph (should not happen)
+				if (idx < 0 || idx >= n || nodes[idx] != neighbor)
+					continue;
+
+				float cost = g[current]
+						+ distance(node.x, node.y, neighbor.x, neighbor.y);
+
+				if (visited[idx] != searchID) {
+					reach(idx, cost, current, targetNode);
+				} else if (!closed[idx] && cost < g[idx]) {
+					// decrease key
+					f[idx] = f[idx] - g[idx] + cost;
+					g[idx] = cost;
+					parent[idx] = current;
+					siftUp(heapPos[idx]);
+				}
+			}
+		}
+
+		if (found)
+			fill(start, target, out);
+
+		// Free the references to the nodes
+		for (int i = 0; i < n; i++)
+			nodes[i] = null;
+
+		return found;
+	}
+
+	private void reach(int idx, float cost, int from, NavNodePolygonal target) {
+		NavNodePolygonal node = nodes[idx];
+
+		visited[idx] = searchID;
+		closed[idx] = false;
+		g[idx] = cost;
+		f[idx] = cost + distance(node.x, node.y, target.x, target.y);
+		parent[idx] = from;
+
+		heap[heapSize] = idx;
+		heapPos[idx] = heapSize;
+		heapSize++;
+		siftUp(heapSize - 1);
+	}
+
+	private void fill(int start, int target, ArrayList<Vector2> out) {
+		int length = 1;
+
+		for (int i = target; i != start; i = parent[i])
+			length++;
+
+		// Reuse the points already in the list
+		while (out.size() > length)
+			out.remove(out.size() - 1);
+
+		while (out.size() < length)
+			out.add(new Vector2());
+
+		int pos = length - 1;
+
+		for (int i = target; pos >= 0; i = parent[i], pos--)
+			out.get(pos).set(nodes[i].x, nodes[i].y);
+	}
+
+	private int pop() {
+		int result = heap[0];
+
+		heapSize--;
+
+		if (heapSize > 0) {
+			heap[0] = heap[heapSize];
+			heapPos[heap[0]] = 0;
+			siftDown(0);
+		}
+
+		return result;
+	}
+
+	private void siftUp(int pos) {
+		int idx = heap[pos];
+		float value = f[idx];
+
+		while (pos > 0) {
+			int parentPos = (pos - 1) >> 1;
+			int p = heap[parentPos];
+
+			if (f[p] <= value)
+				break;
+
+			heap[pos] = p;
+			heapPos[p] = pos;
+			pos = parentPos;
+		}
+
+		heap[pos] = idx;
+		heapPos[idx] = pos;
+	}
+
+	private void siftDown(int pos) {
+		int idx = heap[pos];
+		float value = f[idx];
+
+		while (true) {
+			int child = (pos << 1) + 1;
+
+			if (child >= heapSize)
+				break;
+
+			if (child + 1 < heapSize && f[heap[child + 1]] < f[heap[child]])
+				child++;
+
+			if (f[heap[child]] >= value)
+				break;
+
+			heap[pos] = heap[child];
+			heapPos[heap[pos]] = pos;
+			pos = child;
+		}
+
+		heap[pos] = idx;
+		heapPos[idx] = pos;
+	}
+
+	private void ensureCapacity(int n) {
+		if (n <= nodes.length)
+			return;
+
+		int c = Math.max(n, nodes.length * 2);
+
+		nodes = new NavNodePolygonal[c];
+		g = new float[c];
+		f = new float[c];
+		parent = new int[c];
+		visited = new int[c];
+		closed = new boolean[c];
+		heap = new int[c];
+		heapPos = new int[c];
+		searchID = 0;
+	}
+
+	private static float distance(float x1, float y1, float x2, float y2) {
+		float dx = x2 - x1;
+		float dy = y2 - y1;
+
+		return (float) Math.sqrt(dx * dx + dy * dy);
+	}
+}
@@ -0,0 +1,275 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.polygonalpathfinder;
+
+import java.util.ArrayList;
+
+import com.badlogic.gdx.math.Polygon;
+import com.badlogic.gdx.utils.IntArray;
+import com.bladecoder.engine.util.PolygonUtils;
+
+/**
+ * Uniform grid with the edges of the walk zone and the static obstacles to
+ * speed up the line of sight queries.
+ *
+ * The results are the same than testing against every polygon with
+ * PolygonUtils: only the edges in the cells crossed by the segment are tested
+ * with PolygonUtils.lineSegmentsCross() and the obstacles whose bounds can't
+ * contain the point are skipped in the point inside tests.
+ *
+ * @author rgarcia
+ */
+class LineOfSightGrid {
+	/**
+	 * PolygonUtils.isPointInside() only considers the point on an edge when it
+	 * is closer than 1 unit. Points further than this margin from the obstacle
+	 * bounds are always outside.
+	 */
+	private static final float POINT_MARGIN = 2f;
+
+	private static final int MAX_CELLS_PER_SIDE = 64;
+
+	private final Polygon walkZone;
+	private final ArrayList<Polygon> obstacles;
+
+	private float minX, minY;
+	private float cellSize;
+	private int cols, rows;
+
+	/** x1, y1, x2, y2 for every edge */
+	private float[] edges;
+	private IntArray[] cells;
+
+	/** Avoids testing an edge several times in the same query */
+	private int[] edgeStamp;
+	private int stamp = 0;
+
+	/** minX, minY, maxX, maxY of every obstacle including the margin */
+	private float[] obstacleBounds;
+
+	public LineOfSightGrid(Polygon walkZone, ArrayList<Polygon> obstacles) {
+		this.walkZone = walkZone;
+		this.obstacles = obstacles;
+
+		int numEdges = walkZone.getVertices().length / 2;
+
+		for (Polygon o : obstacles)
+			numEdges += o.getVertices().length / 2;
+
+		edges = new float[numEdges * 4];
+		edgeStamp = new int[numEdges];
+
+		int e = addEdges(walkZone, 0);
+
+		obstacleBounds = new float[obstacles.size() * 4];
+
+		for (int i = 0; i < obstacles.size(); i++) {
+			Polygon o = obstacles.get(i);
+			e = addEdges(o, e);
+
+			float verts[] = o.getTransformedVertices();
+			float bMinX = Float.MAX_VALUE, bMinY = Float.MAX_VALUE;
+			float bMaxX = -Float.MAX_VALUE, bMaxY = -Float.MAX_VALUE;
+
+			for (int j = 0; j < verts.length; j += 2) {
+				bMinX = Math.min(bMinX, verts[j]);
+				bMaxX = Math.max(bMaxX, verts[j]);
+				bMinY = Math.min(bMinY, verts[j + 1]);
+				bMaxY = Math.max(bMaxY, verts[j + 1]);
+			}
+
+			obstacleBounds[i * 4] = bMinX - POINT_MARGIN;
+			obstacleBounds[i * 4 + 1] = bMinY - POINT_MARGIN;
+			obstacleBounds[i * 4 + 2] = bMaxX + POINT_MARGIN;
+			obstacleBounds[i * 4 + 3] = bMaxY + POINT_MARGIN;
+		}
+
+		createCells(numEdges);
+	}
+
+	private int addEdges(Polygon p, int e) {
+		float verts[] = p.getTransformedVertices();
+
+		for (int i = 0; i < verts.length; i += 2) {
+			edges[e * 4] = verts[i];
+			edges[e * 4 + 1] = verts[i + 1];
+			edges[e * 4 + 2] = verts[(i + 2) % verts.length];
+			edges[e * 4 + 3] = verts[(i + 3) % verts.length];
+			e++;
+		}
+
+		return e;
+	}
+
+	private void createCells(int numEdges) {
+		float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+		minX = Float.MAX_VALUE;
+		minY = Float.MAX_VALUE;
+
+		for (int i = 0; i < edges.length; i += 2) {
+			minX = Math.min(minX, edges[i]);
+			maxX = Math.max(maxX, edges[i]);
+			minY = Math.min(minY, edges[i + 1]);
+			maxY = Math.max(maxY, edges[i + 1]);
+		}
+
+		int side = Math.max(1, Math.min(MAX_CELLS_PER_SIDE, (int) Math.ceil(Math.sqrt(numEdges))));
+		cellSize = Math.max(maxX - minX, maxY - minY) / side;
+
+		if (cellSize <= 0)
+			cellSize = 1;
+
+		cols = (int) ((maxX - minX) / cellSize) + 1;
+		rows = (int) ((maxY - minY) / cellSize) + 1;
+
+		cells = new IntArray[cols * rows];
+
+		for (int e = 0; e < numEdges; e++) {
+			float x1 = edges[e * 4], y1 = edges[e * 4 + 1];
+			float x2 = edges[e * 4 + 2], y2 = edges[e * 4 + 3];
+
+			int c0 = col(Math.min(x1, x2)), c1 = col(Math.max(x1, x2));
+			int r0 = row(Math.min(y1, y2)), r1 = row(Math.max(y1, y2));
+
+			for (int r = r0; r <= r1; r++) {
+				for (int c = c0; c <= c1; c++) {
+					IntArray cell = cells[r * cols + c];
+
+					if (cell == null) {
+						cell = new IntArray(4);
+						cells[r * cols + c] = cell;
+					}
+
+					cell.add(e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Line of sight against the walk zone and the static obstacles. Same
+	 * result than calling PolygonUtils.inLineOfSight() for every polygon.
+	 */
+	public boolean inLineOfSight(float x1, float y1, float x2, float y2) {
+		if (crossesEdge(x1, y1, x2, y2))
+			return false;
+
+		float mx = (x1 + x2) / 2;
+		float my = (y1 + y2) / 2;
+
+		if (!PolygonUtils.isPointInside(walkZone, mx, my, true))
+			return false;
+
+		for (int i = 0; i < obstacles.size(); i++) {
+			if (mayContain(i, mx, my)
+					&& PolygonUtils.isPointInside(obstacles.get(i), mx, my,
+							false))
+				return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * @return false if the point is outside of the obstacle for sure.
+	 */
+	public boolean mayContain(int obstacle, float x, float y) {
+		int i = obstacle * 4;
+
+		return x >= obstacleBounds[i] && y >= obstacleBounds[i + 1]
+				&& x <= obstacleBounds[i + 2] && y <= obstacleBounds[i + 3];
+	}
+
+	private boolean crossesEdge(float x1, float y1, float x2, float y2) {
+		stamp++;
+
+		if (stamp == 0) {
+			for (int i = 0; i < edgeStamp.length; i++)
+				edgeStamp[i] = 0;
+
+			stamp = 1;
+		}
+
+		float sMinY = Math.min(y1, y2);
+		float sMaxY = Math.max(y1, y2);
+		float eps = cellSize * 0.001f;
+
+		int r0 = row(sMinY), r1 = row(sMaxY);
+
+		for (int r = r0; r <= r1; r++) {
+			// Segment part inside the row
+			float ya = Math.max(minY + r * cellSize, sMinY);
+			float yb = Math.min(minY + (r + 1) * cellSize, sMaxY);
+
+			if (ya > yb)
+				continue;
+
+			float xa, xb;
+
+			if (y1 == y2) {
+				xa = Math.min(x1, x2);
+				xb = Math.max(x1, x2);
+			} else {
+				xa = x1 + (ya - y1) / (y2 - y1) * (x2 - x1);
+				xb = x1 + (yb - y1) / (y2 - y1) * (x2 - x1);
+
+				if (xa > xb) {
+					float t = xa;
+					xa = xb;
+					xb = t;
+				}
+			}
+
+			int c0 = col(xa - eps), c1 = col(xb + eps);
+
+			for (int c = c0; c <= c1; c++) {
+				IntArray cell = cells[r * cols + c];
+
+				if (cell == null)
+					continue;
+
+				for (int j = 0; j < cell.size; j++) {
+					int e = cell.get(j);
+
+					if (edgeStamp[e] == stamp)
+						continue;
+
+					edgeStamp[e] = stamp;
+
+					int k = e * 4;
+
+					if (PolygonUtils.lineSegmentsCross(x1, y1, x2, y2,
+							edges[k], edges[k + 1], edges[k + 2], edges[k + 3]))
+						return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	private int col(float x) {
+		int c = (int) Math.floor((x - minX) / cellSize);
+
+		return c < 0 ? 0 : (c >= cols ? cols - 1 : c);
+	}
+
+	private int row(float y) {
+		int r = (int) Math.floor((y - minY) / cellSize);
+
+		return r < 0 ? 0 : (r >= rows ? rows - 1 : r);
+	}
+}
@@ -16,6 +16,7 @@
 
 package com.bladecoder.engine.polygonalpathfinder;
 
+import com.badlogic.gdx.utils.Array;
 import com.bladecoder.engine.pathfinder.NavNode;
 
 /** 
@@ -26,6 +27,18 @@ import com.bladecoder.engine.pathfinder.NavNode;
 public class NavNodePolygonal extends NavNode {
 	public float x;
 	public float y;
+
+	/**
+	 * Neighbors without dynamic obstacles. Only used for the walk zone and
+	 * obstacle nodes.
+	 */
+	final Array<NavNode> staticNeighbors = new Array<NavNode>();
+	
+	/** true for the walk zone and obstacle nodes */
+	boolean staticNode = false;
+	
+	/** Position in the search arrays of EuclideanAStarPathFinder */
+	int index = -1;
 	
 	public float getX() {
 		return x;
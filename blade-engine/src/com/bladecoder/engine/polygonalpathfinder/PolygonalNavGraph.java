@@ -16,8 +16,10 @@
 package com.bladecoder.engine.polygonalpathfinder;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 
 import com.badlogic.gdx.math.Polygon;
+import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.Json.Serializable;
@@ -47,22 +49,58 @@ public class PolygonalNavGraph implements NavGraph<NavNodePolygonal>, Serializab
 	final private PathFinder pathfinder = new AStarPathFinder(this, 100,
 			new ManhattanDistance());
 	final private NavPathPolygonal resultPath = new NavPathPolygonal();
+	final private EuclideanAStarPathFinder euclideanPathfinder = new EuclideanAStarPathFinder();
+
+	/**
+	 * When true, the path with the shortest walking distance is searched. In
+	 * other case, the path with less nodes.
+	 */
+	private boolean euclidean = true;
+
+	final private Vector2 source = new Vector2();
+	final private Vector2 target = new Vector2();
 	final private NavNodePolygonal startNode = new NavNodePolygonal();
 	final private NavNodePolygonal targetNode = new NavNodePolygonal();
 	final private ArrayList<NavNodePolygonal> graphNodes = new ArrayList<NavNodePolygonal>();
 
+	/**
+	 * Walk zone and obstacle nodes. Their visibility is calculated only once
+	 * and it is reused every time the scene is entered.
+	 */
+	final private ArrayList<NavNodePolygonal> staticNodes = new ArrayList<NavNodePolygonal>();
+	private boolean staticGraphCreated = false;
+	private int staticGraphHash;
+
+	/** Edges of the walk zone and obstacles bucketed for the LOS queries */
+	private LineOfSightGrid losGrid;
+
+	/** Nodes added by every dynamic obstacle */
+	final private HashMap<Polygon, ArrayList<NavNodePolygonal>> dinamicObstacleNodes = new HashMap<Polygon, ArrayList<NavNodePolygonal>>();
+
 	public ArrayList<Vector2> findPath(float sx, float sy, float tx, float ty) {
-		resultPath.clear();
+		ArrayList<Vector2> path = new ArrayList<Vector2>();
+
+		findPath(sx, sy, tx, ty, path);
+
+		return path;
+	}
 
-		Vector2 source = new Vector2(sx, sy);
-		Vector2 target = new Vector2(tx, ty);
+	/**
+	 * Finds a path and stores it in the supplied list. The Vector2 objects
+	 * already in the list are reused. The list is empty if there is no path.
+	 */
+	public void findPath(float sx, float sy, float tx, float ty,
+			ArrayList<Vector2> out) {
+		source.set(sx, sy);
+		target.set(tx, ty);
 
 		// 1. First verify if both the start and target points of the path are
 		// inside the polygon. If the end point is outside the polygon clamp it
 		// back inside.
 		if (!PolygonUtils.isPointInside(walkZone, sx, sy, true)) {
 			EngineLogger.debug("PolygonalPathFinder: Source not in polygon!");
-			return resultPath.getPath();
+			out.clear();
+			return;
 		}
 
 		if (!PolygonUtils.isPointInside(walkZone, tx, ty, true)) {
@@ -74,13 +112,18 @@ public class PolygonalNavGraph implements NavGraph<NavNodePolygonal>, Serializab
 //			}
 		}
 		
-		for (Polygon o : obstacles) {
-			if (PolygonUtils.isPointInside(o, target.x, target.y, false)) {
+		for (int i = 0; i < obstacles.size(); i++) {
+			Polygon o = obstacles.get(i);
+
+			if ((losGrid == null || losGrid.mayContain(i, target.x, target.y))
+					&& PolygonUtils.isPointInside(o, target.x, target.y, false)) {
 				PolygonUtils.getClampedPoint(o, target.x, target.y, target);
 			}
 		}
 		
-		for (Polygon o : dinamicObstacles) {
+		for (int i = 0; i < dinamicObstacles.size(); i++) {
+			Polygon o = dinamicObstacles.get(i);
+
 			if (PolygonUtils.isPointInside(o, target.x, target.y, false)) {
 				PolygonUtils.getClampedPoint(o, target.x, target.y, target);
 			}
@@ -91,10 +134,16 @@ public class PolygonalNavGraph implements NavGraph<NavNodePolygonal>, Serializab
 		if (inLineOfSight(source.x, source.y, target.x, target.y)) {
 			EngineLogger.debug("PolygonalPathFinder: Direct path found");
 
-			resultPath.getPath().add(source);
-			resultPath.getPath().add(target);
+			while (out.size() > 2)
+				out.remove(out.size() - 1);
+
+			while (out.size() < 2)
+				out.add(new Vector2());
+
+			out.get(0).set(source);
+			out.get(1).set(target);
 
-			return resultPath.getPath();
+			return;
 		}
 
 		// 3. Otherwise, add the start and end points of your path as new
@@ -104,20 +153,70 @@ public class PolygonalNavGraph implements NavGraph<NavNodePolygonal>, Serializab
 
 		// 5. Run your A* implementation on the graph to get your path. This
 		// path is guaranteed to be as direct as possible!
-		pathfinder.findPath(null, startNode, targetNode, resultPath);
+		if (euclidean) {
+			if (!euclideanPathfinder.findPath(graphNodes, startNode,
+					targetNode, out))
+				out.clear();
+		} else {
+			resultPath.clear();
+			pathfinder.findPath(null, startNode, targetNode, resultPath);
+
+			out.clear();
+			out.addAll(resultPath.getPath());
+		}
+	}
+
+	/**
+	 * Sets the path cost: shortest walking distance (default) or less nodes.
+	 */
+	public void setEuclidean(boolean euclidean) {
+		this.euclidean = euclidean;
+	}
 
-		return resultPath.getPath();
+	public boolean isEuclidean() {
+		return euclidean;
 	}
 
+	/**
+	 * Creates the graph with the walk zone, the obstacles and the current
+	 * dynamic obstacles. The static part is calculated only the first time or
+	 * when the walk zone or the obstacles change.
+	 */
 	public void createInitialGraph() {
+		int hash = calcStaticGraphHash();
+
+		if (!staticGraphCreated || hash != staticGraphHash) {
+			createStaticGraph();
+			staticGraphHash = hash;
+			staticGraphCreated = true;
+		}
+
 		graphNodes.clear();
+		graphNodes.addAll(staticNodes);
+
+		for (NavNodePolygonal n : staticNodes) {
+			n.neighbors.clear();
+			n.neighbors.addAll(n.staticNeighbors);
+		}
+
+		// ADD DINAMIC OBSTACLES
+		ArrayList<Polygon> dinamic = new ArrayList<Polygon>(dinamicObstacles);
+		dinamicObstacles.clear();
+		dinamicObstacleNodes.clear();
+
+		for (Polygon p : dinamic)
+			addDinamicObstacle(p);
+	}
+
+	private void createStaticGraph() {
+		staticNodes.clear();
 
 		// 1.- Add WalkZone convex nodes
 		float verts[] = walkZone.getTransformedVertices();
 
 		for (int i = 0; i < verts.length; i += 2) {
 			if (!PolygonUtils.isVertexConcave(walkZone, i)) {
-				graphNodes.add(new NavNodePolygonal(verts[i], verts[i + 1]));
+				staticNodes.add(new NavNodePolygonal(verts[i], verts[i + 1]));
 			}
 		}
 
@@ -129,32 +228,75 @@ public class PolygonalNavGraph implements NavGraph<NavNodePolygonal>, Serializab
 				if (PolygonUtils.isVertexConcave(o, i)
 						&& PolygonUtils.isPointInside(walkZone, verts[i],
 								verts[i + 1], false)) {
-					graphNodes
+					staticNodes
 							.add(new NavNodePolygonal(verts[i], verts[i + 1]));
 				}
 			}
 		}
 
-		// 3.- CALC LINE OF SIGHTs
-		for (int i = 0; i < graphNodes.size() - 1; i++) {
-			NavNodePolygonal n1 = graphNodes.get(i);
+		for (NavNodePolygonal n : staticNodes)
+			n.staticNode = true;
 
-			for (int j = i + 1; j < graphNodes.size(); j++) {
-				NavNodePolygonal n2 = graphNodes.get(j);
+		losGrid = new LineOfSightGrid(walkZone, obstacles);
 
-				if (inLineOfSight(n1.x, n1.y, n2.x, n2.y)) {
-					n1.neighbors.add(n2);
-					n2.neighbors.add(n1);
+		// 3.- CALC LINE OF SIGHTs without dynamic obstacles
+		for (int i = 0; i < staticNodes.size() - 1; i++) {
+			NavNodePolygonal n1 = staticNodes.get(i);
+
+			for (int j = i + 1; j < staticNodes.size(); j++) {
+				NavNodePolygonal n2 = staticNodes.get(j);
+
+				if (inStaticLineOfSight(n1.x, n1.y, n2.x, n2.y)) {
+					n1.staticNeighbors.add(n2);
+					n2.staticNeighbors.add(n1);
 				}
 			}
 		}
-		
-		// 4.- ADD DINAMIC OBSTACLES
-		for(Polygon p:dinamicObstacles)
-			addObstacleToGrapth(p);
+	}
+
+	/**
+	 * Hash of the walk zone and obstacles vertices to detect if the static
+	 * graph must be calculated again.
+	 */
+	private int calcStaticGraphHash() {
+		int hash = hash(1, walkZone);
+
+		for (Polygon o : obstacles)
+			hash = hash(hash, o);
+
+		return hash;
+	}
+
+	private static int hash(int hash, Polygon p) {
+		float verts[] = p.getTransformedVertices();
+
+		hash = 31 * hash + verts.length;
+
+		for (float v : verts)
+			hash = 31 * hash + Float.floatToIntBits(v);
+
+		return hash;
 	}
 
 	private boolean inLineOfSight(float p1X, float p1Y, float p2X, float p2Y) {
+		return inStaticLineOfSight(p1X, p1Y, p2X, p2Y)
+				&& inDinamicLineOfSight(p1X, p1Y, p2X, p2Y);
+	}
+
+	boolean inStaticLineOfSight(float p1X, float p1Y, float p2X,
+			float p2Y) {
+		if (losGrid != null)
+			return losGrid.inLineOfSight(p1X, p1Y, p2X, p2Y);
+
+		return inStaticLineOfSightBruteForce(p1X, p1Y, p2X, p2Y);
+	}
+
+	/**
+	 * Tests the segment against every edge of the walk zone and the obstacles.
+	 * Used when the grid is not created yet and to verify the grid results.
+	 */
+	boolean inStaticLineOfSightBruteForce(float p1X, float p1Y, float p2X,
+			float p2Y) {
 
 		tmp.set(p1X, p1Y);
 		tmp2.set(p2X, p2Y);
@@ -168,7 +310,16 @@ public class PolygonalNavGraph implements NavGraph<NavNodePolygonal>, Serializab
 				return false;
 			}
 		}
-		
+
+		return true;
+	}
+
+	private boolean inDinamicLineOfSight(float p1X, float p1Y, float p2X,
+			float p2Y) {
+
+		tmp.set(p1X, p1Y);
+		tmp2.set(p2X, p2Y);
+
 		for (Polygon o : dinamicObstacles) {
 			if (!PolygonUtils.inLineOfSight(tmp, tmp2, o, true)) {
 				return false;
@@ -186,7 +337,8 @@ public class PolygonalNavGraph implements NavGraph<NavNodePolygonal>, Serializab
 
 		startNode.neighbors.clear();
 
-		for (NavNodePolygonal n : graphNodes) {
+		for (int i = 0; i < graphNodes.size(); i++) {
+			NavNodePolygonal n = graphNodes.get(i);
 
 			n.neighbors.removeValue(targetNode, true);
 
@@ -207,12 +359,36 @@ public class PolygonalNavGraph implements NavGraph<NavNodePolygonal>, Serializab
 
 	public void setWalkZone(Polygon walkZone) {
 		this.walkZone = walkZone;
+		invalidateStaticGraph();
 	}
 
 	public void addObstacle(Polygon obstacle) {
 		obstacles.add(obstacle);
+		invalidateStaticGraph();
+	}
+
+	/**
+	 * Removes a static obstacle. The obstacles must be removed with this
+	 * method and not from the getObstacles() list, the line of sight grid
+	 * indexes them by position.
+	 */
+	public void removeObstacle(int index) {
+		obstacles.remove(index);
+		invalidateStaticGraph();
 	}
 
+	/**
+	 * Must be called when the vertices of the walk zone or the obstacles are
+	 * modified in place, like the editor does. The line of sight grid indexes
+	 * the edges by position, so it is discarded and the queries check every
+	 * polygon until the next createInitialGraph().
+	 */
+	public void invalidateStaticGraph() {
+		losGrid = null;
+		staticGraphCreated = false;
+	}
+
+
 	public ArrayList<Polygon> getObstacles() {
 		return obstacles;
 	}
@@ -233,14 +409,46 @@ public class PolygonalNavGraph implements NavGraph<NavNodePolygonal>, Serializab
 		return 1;
 	}
 	
-	private void addObstacleToGrapth(Polygon poly) {
+	/**
+	 * Adds a dynamic obstacle patching only the affected part of the graph:
+	 * the edges crossing the obstacle are removed and the obstacle nodes are
+	 * connected to the graph.
+	 */
+	public void addDinamicObstacle(Polygon poly) {
+		if (dinamicObstacleNodes.containsKey(poly))
+			return;
+
+		dinamicObstacles.add(poly);
+
+		// 1.- Remove the edges crossing the obstacle
+		Rectangle r = poly.getBoundingRectangle();
+		float minX = r.x, minY = r.y, maxX = r.x + r.width, maxY = r.y
+				+ r.height;
+
+		for (NavNodePolygonal n1 : graphNodes) {
+			for (int i = n1.neighbors.size - 1; i >= 0; i--) {
+				NavNodePolygonal n2 = (NavNodePolygonal) n1.neighbors.get(i);
+
+				if (segmentOverlaps(n1, n2, minX, minY, maxX, maxY)) {
+					tmp.set(n1.x, n1.y);
+					tmp2.set(n2.x, n2.y);
+
+					if (!PolygonUtils.inLineOfSight(tmp, tmp2, poly, true))
+						n1.neighbors.removeIndex(i);
+				}
+			}
+		}
+
+		// 2.- Connect the obstacle nodes
+		ArrayList<NavNodePolygonal> nodes = new ArrayList<NavNodePolygonal>();
 		float verts[] = poly.getTransformedVertices();
+
 		for (int i = 0; i < verts.length; i += 2) {
 			if (PolygonUtils.isVertexConcave(poly, i)
 					&& PolygonUtils.isPointInside(walkZone, verts[i],
 							verts[i + 1], false)) {
 				NavNodePolygonal n1 = new NavNodePolygonal(verts[i], verts[i + 1]);
-				
+
 				for (int j = 0; j < graphNodes.size(); j++) {
 					NavNodePolygonal n2 = graphNodes.get(j);
 
@@ -249,43 +457,74 @@ public class PolygonalNavGraph implements NavGraph<NavNodePolygonal>, Serializab
 						n2.neighbors.add(n1);
 					}
 				}
-				
+
 				graphNodes.add(n1);
+				nodes.add(n1);
 			}
-		}		
-	}
-
-	public void addDinamicObstacle(Polygon poly) {
-		dinamicObstacles.add(poly);
+		}
 
-		addObstacleToGrapth(poly);
+		dinamicObstacleNodes.put(poly, nodes);
 	}
-	
+
+	/**
+	 * Removes a dynamic obstacle. Must be called before changing the obstacle
+	 * position to restore the edges that it was blocking.
+	 */
 	public void removeDinamicObstacle(Polygon poly) {
-		float verts[] = poly.getTransformedVertices();
 		dinamicObstacles.remove(poly);
 
-		for (int i = 0; i < verts.length; i += 2) {
-			if (PolygonUtils.isVertexConcave(poly, i)
-					&& PolygonUtils.isPointInside(walkZone, verts[i],
-							verts[i + 1], false)) {
-				for (int j = 0; j < graphNodes.size(); j++) {
-					NavNodePolygonal n = graphNodes.get(j);
-
-					if (n.x == verts[i] && n.y == verts[i+1]) {
-						graphNodes.remove(n);
-						j--;
-						
-						for(NavNodePolygonal n2:graphNodes) {
-							n2.neighbors.removeValue(n, true);
-						}
-						
-					}
+		ArrayList<NavNodePolygonal> nodes = dinamicObstacleNodes.remove(poly);
+
+		if (nodes == null)
+			return;
+
+		// 1.- Remove the obstacle nodes
+		for (NavNodePolygonal n : nodes) {
+			graphNodes.remove(n);
+
+			for (int i = 0; i < n.neighbors.size; i++)
+				n.neighbors.get(i).neighbors.removeValue(n, true);
+
+			n.neighbors.clear();
+		}
+
+		// 2.- Restore the edges blocked by the obstacle
+		Rectangle r = poly.getBoundingRectangle();
+		float minX = r.x, minY = r.y, maxX = r.x + r.width, maxY = r.y
+				+ r.height;
+
+		for (int i = 0; i < graphNodes.size() - 1; i++) {
+			NavNodePolygonal n1 = graphNodes.get(i);
+
+			for (int j = i + 1; j < graphNodes.size(); j++) {
+				NavNodePolygonal n2 = graphNodes.get(j);
+
+				if (!segmentOverlaps(n1, n2, minX, minY, maxX, maxY)
+						|| n1.neighbors.contains(n2, true))
+					continue;
+
+				boolean visible;
+
+				if (n1.staticNode && n2.staticNode)
+					visible = n1.staticNeighbors.contains(n2, true)
+							&& inDinamicLineOfSight(n1.x, n1.y, n2.x, n2.y);
+				else
+					visible = inLineOfSight(n1.x, n1.y, n2.x, n2.y);
+
+				if (visible) {
+					n1.neighbors.add(n2);
+					n2.neighbors.add(n1);
 				}
 			}
 		}
 	}
-	
+
+	private static boolean segmentOverlaps(NavNodePolygonal n1,
+			NavNodePolygonal n2, float minX, float minY, float maxX, float maxY) {
+		return Math.min(n1.x, n2.x) <= maxX && Math.max(n1.x, n2.x) >= minX
+				&& Math.min(n1.y, n2.y) <= maxY && Math.max(n1.y, n2.y) >= minY;
+	}
+
 	@Override
 	public void write(Json json) {
 		Polygon p = new Polygon(walkZone.getVertices());
@@ -316,6 +555,7 @@ public class PolygonalNavGraph implements NavGraph<NavNodePolygonal>, Serializab
 		
 		obstacles = json.readValue("obstacles", ArrayList.class, Polygon.class,
 				jsonData);
+		invalidateStaticGraph();
 		
 		for(Polygon poly:obstacles) {
 			poly.setScale(worldScale, worldScale);
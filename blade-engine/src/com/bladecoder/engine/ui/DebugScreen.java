@@ -15,7 +15,10 @@
  ******************************************************************************/
 package com.bladecoder.engine.ui;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Comparator;
 
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input;
@@ -24,19 +27,30 @@ import com.badlogic.gdx.scenes.scene2d.InputEvent;
 import com.badlogic.gdx.scenes.scene2d.InputListener;
 import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.scenes.scene2d.ui.Label;
+import com.badlogic.gdx.scenes.scene2d.ui.ScrollPane;
 import com.badlogic.gdx.scenes.scene2d.ui.SelectBox;
 import com.badlogic.gdx.scenes.scene2d.ui.Table;
 import com.badlogic.gdx.scenes.scene2d.ui.TextButton;
 import com.badlogic.gdx.scenes.scene2d.ui.TextField;
 import com.badlogic.gdx.scenes.scene2d.utils.Align;
 import com.badlogic.gdx.scenes.scene2d.utils.ClickListener;
+import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.viewport.ScreenViewport;
+import com.bladecoder.engine.actions.ActionCallbackQueue;
+import com.bladecoder.engine.assets.AssetLeaseService;
+import com.bladecoder.engine.assets.AssetLeaseService.Lease;
 import com.bladecoder.engine.assets.EngineAssetManager;
 import com.bladecoder.engine.model.World;
 import com.bladecoder.engine.ui.UI.Screens;
 import com.bladecoder.engine.util.DPIUtils;
+import com.bladecoder.engine.util.DrawStats;
+import com.bladecoder.engine.util.EngineLogger;
+import com.bladecoder.engine.util.FrameProfiler;
+import com.bladecoder.engine.util.FrameProfiler.Section;
 
 public class DebugScreen implements BladeScreen {
+	private static final String PROFILER_FILENAME = "profiler.csv";
+
 	private UI ui;
 
 	private Stage stage;
@@ -45,6 +59,8 @@ public class DebugScreen implements BladeScreen {
 	SelectBox<String> recordings;
 	SelectBox<String> scenes;
 
+	private boolean profiling;
+
 	public DebugScreen() {
 	}
 
@@ -78,6 +94,10 @@ public class DebugScreen implements BladeScreen {
 
 		stage = new Stage(new ScreenViewport());
 
+		// The frames of this screen are not profiled
+		profiling = FrameProfiler.isEnabled();
+		FrameProfiler.setEnabled(false);
+
 		Table table = new Table(ui.getSkin());
 		table.setFillParent(true);
 		table.center();
@@ -191,6 +211,76 @@ public class DebugScreen implements BladeScreen {
 		table.add(scenes);
 		table.add(go);
 
+		// ------------- ASSET CACHE
+		AssetLeaseService leases = AssetLeaseService.getInstance();
+
+		table.row().pad(5).align(Align.left);
+		table.add("Asset Cache: ");
+		table.add(leases.getLeases().size + " assets, " + leases.getIdleCount() + " idle, "
+				+ toMB(leases.getEstimatedBytes()) + " of " + toMB(leases.getBudget()) + " MB").colspan(2);
+
+		ScrollPane cacheScroll = new ScrollPane(new Label(getAssetCacheContents(), ui.getSkin()), ui.getSkin());
+		cacheScroll.setFadeScrollBars(false);
+
+		table.row().pad(5);
+		table.add(cacheScroll).colspan(3).fillX().height(Gdx.graphics.getHeight() / 4);
+
+		// ------------- ACTION CALLBACKS
+		table.row().pad(5).align(Align.left);
+		table.add("Callbacks: ");
+		table.add(ActionCallbackQueue.getFrameCallbacks() + " last frame, " + ActionCallbackQueue.getFrameDeferred()
+				+ " deferred, " + ActionCallbackQueue.getSize() + " queued, max. cascade "
+				+ ActionCallbackQueue.getMaxCascade() + " actions, budget " + ActionCallbackQueue.getBudget() + " ms")
+				.colspan(2);
+
+		// ------------- DRAW STATS
+		table.row().pad(5).align(Align.left);
+		table.add("Draw: ");
+		table.add(DrawStats.getDrawn() + " drawn, " + DrawStats.getCulled() + " culled, " + DrawStats.getFlushes()
+				+ " batch flushes, " + DrawStats.getTextureSwitches() + " texture switches").colspan(2);
+
+		// ------------- PROFILER
+		final TextButton profile = new TextButton(profiling ? "Stop" : "Start", ui.getSkin());
+		profile.addListener(new ClickListener() {
+
+			public void clicked(InputEvent event, float x, float y) {
+				// Applied when returning to the game
+				profiling = !profiling;
+
+				if (profiling)
+					FrameProfiler.reset();
+
+				profile.setText(profiling ? "Stop" : "Start");
+			}
+		});
+
+		TextButton dump = new TextButton("Save CSV", ui.getSkin());
+		dump.addListener(new ClickListener() {
+
+			public void clicked(InputEvent event, float x, float y) {
+				Writer w = EngineAssetManager.getInstance().getUserFile(PROFILER_FILENAME).writer(false, "UTF-8");
+
+				try {
+					FrameProfiler.writeCSV(w);
+					w.close();
+				} catch (IOException e) {
+					EngineLogger.error("ERROR SAVING PROFILER FRAMES", e);
+				}
+			}
+		});
+
+		profile.pad(2,3,2,3);
+		dump.pad(2,3,2,3);
+
+		table.row().pad(5).align(Align.left);
+		table.add("Profiler: ");
+		table.add(FrameProfiler.getCount() + " frames");
+		table.add(profile);
+		table.add(dump);
+
+		table.row().pad(5);
+		table.add(getProfilerTable()).colspan(3);
+
 		// ------------- BACK BUTTON
 
 		TextButton back = new TextButton("Back", ui.getSkin(), "menu");
@@ -212,8 +302,75 @@ public class DebugScreen implements BladeScreen {
 		Gdx.input.setInputProcessor(stage);
 	}
 
+	/**
+	 * One line per leased asset: file, references and estimated size. Assets
+	 * without references are kept in their grace period.
+	 */
+	private String getAssetCacheContents() {
+		Array<Lease> leases = AssetLeaseService.getInstance().getLeases();
+
+		leases.sort(new Comparator<Lease>() {
+			@Override
+			public int compare(Lease a, Lease b) {
+				return a.getFileName().compareTo(b.getFileName());
+			}
+		});
+
+		StringBuilder sb = new StringBuilder();
+
+		for (Lease l : leases) {
+			sb.append(l.getFileName()).append("  refs: ").append(l.getRefCount());
+			sb.append("  ").append(toMB(l.getBytes())).append(" MB");
+
+			if (l.getRefCount() == 0)
+				sb.append("  (idle)");
+
+			sb.append('\n');
+		}
+
+		return sb.toString();
+	}
+
+	/**
+	 * Time per frame of every section in ms: last frame, percentiles and max.
+	 * The nested sections are indented.
+	 */
+	private Table getProfilerTable() {
+		Table t = new Table(ui.getSkin());
+		float margin = DPIUtils.getMarginSize();
+
+		t.defaults().padRight(margin).align(Align.right);
+		t.add("Section").align(Align.left);
+		t.add("Last");
+		t.add("50%");
+		t.add("95%");
+		t.add("99%");
+		t.add("Max");
+
+		for (Section s : Section.values()) {
+			t.row();
+			t.add(s.name()).align(Align.left).padLeft(s.getDepth() * margin);
+			t.add(toMs(FrameProfiler.getLast(s)));
+			t.add(toMs(FrameProfiler.getPercentile(s, .5f)));
+			t.add(toMs(FrameProfiler.getPercentile(s, .95f)));
+			t.add(toMs(FrameProfiler.getPercentile(s, .99f)));
+			t.add(toMs(FrameProfiler.getMax(s)));
+		}
+
+		return t;
+	}
+
+	private static String toMs(long ns) {
+		return String.format("%.2f", ns / 1000000f);
+	}
+
+	private static String toMB(long bytes) {
+		return String.format("%.1f", bytes / (1024f * 1024f));
+	}
+
 	@Override
 	public void hide() {
+		FrameProfiler.setEnabled(profiling);
 		dispose();
 	}
 
@@ -104,6 +104,9 @@ public class LoadSaveScreen implements BladeScreen {
 		else
 			loadScreenMode = false;
 
+		// the slots screenshots can be being written
+		World.getInstance().finishSaving();
+
 		stage = new Stage(new ScreenViewport());
 		
 		float pad = DPIUtils.getMarginSize();
@@ -21,6 +21,7 @@ import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.utils.viewport.ScreenViewport;
 import com.badlogic.gdx.utils.viewport.Viewport;
+import com.bladecoder.engine.loader.ChapterLoadProgress;
 import com.bladecoder.engine.model.World;
 import com.bladecoder.engine.model.World.AssetState;
 import com.bladecoder.engine.ui.UI.Screens;
@@ -37,6 +38,7 @@ public class LoadingScreen implements BladeScreen {
 	private float squareWidth = 30f;
 	private float squareHeight = 30f;
 	private float margin = 10f;
+	private float progressHeight = 4f;
 	
 	private float initTime = 0;
 	
@@ -85,6 +87,16 @@ public class LoadingScreen implements BladeScreen {
 			else
 				RectangleRenderer.draw(ui.getBatch(), x + i * (squareWidth + margin), y, squareWidth, squareHeight, Color.GRAY);
 		}
+		
+		// Chapter parsing progress when loading in background
+		ChapterLoadProgress progress = World.getInstance().getChapterLoadProgress();
+		
+		if(progress != null) {
+			float width = squareWidth * numSquares + margin * (numSquares -1);
+			
+			RectangleRenderer.draw(ui.getBatch(), x, y - margin - progressHeight, width * progress.getParsedFraction(), progressHeight, Color.WHITE);
+		}
+		
 		batch.end();
 	}
 	
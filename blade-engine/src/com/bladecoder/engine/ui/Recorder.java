@@ -69,40 +69,26 @@ public class Recorder {
 
 			Scene s = World.getInstance().getCurrentScene();
 
-			StringBuilder stringBuilder = new StringBuilder();
-			stringBuilder.append("RECORDER - ");
-
 			// while (playing && v.time < time) {
 			if (playing && v.time < time) {
 				if (v.verb == null) {
 					if (v.pos == null) { // DIALOG OPTION
 						Dialog d = World.getInstance().getCurrentDialog();
 						d.selectOption(v.dialogOption);
-
-						stringBuilder.append(" SELECT DIALOG OPTION: ").append(v.dialogOption);
 					} else { // GOTO
 						s.getPlayer().goTo(v.pos, null);
-
-						stringBuilder.append(" GOTO ").append(v.pos.x).append(',').append(v.pos.y);
 					}
 				} else {
 
 					BaseActor a = s.getActor(v.actorId, true);
 
 					if (a != null) {
-						stringBuilder.append(v.verb);
-						stringBuilder.append(' ').append(v.actorId);
-
-						if (v.target != null) {
-							stringBuilder.append(" with ").append(v.target);
-						}
-
 						a.runVerb(v.verb, v.target);
 					} else
 						EngineLogger.error("PLAYING ERROR: BaseActor not found: " + v.actorId);
 				}
 
-				EngineLogger.debug(stringBuilder.toString());
+				EngineLogger.debug("RECORDER - " + v);
 
 				time = 0;
 				pos++;
@@ -180,6 +166,25 @@ public class Recorder {
 		return playing;
 	}
 
+	/**
+	 * @return The index of the next verb to play.
+	 */
+	public int getPos() {
+		return pos;
+	}
+
+	public int getNumVerbs() {
+		return list.size();
+	}
+
+	/**
+	 * @return A readable description of the recorded verb. Used to report the
+	 *         playback.
+	 */
+	public String getVerbInfo(int i) {
+		return list.get(i).toString();
+	}
+
 	public void setPlaying(boolean p) {
 		EngineLogger.debug("PLAYING...");
 
@@ -207,6 +212,25 @@ public class Recorder {
 		String actorId;
 		int dialogOption;
 		Vector2 pos;
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder();
+
+			if (verb == null) {
+				if (pos == null)
+					sb.append("SELECT DIALOG OPTION: ").append(dialogOption);
+				else
+					sb.append("GOTO ").append(pos.x).append(',').append(pos.y);
+			} else {
+				sb.append(verb).append(' ').append(actorId);
+
+				if (target != null)
+					sb.append(" with ").append(target);
+			}
+
+			return sb.toString();
+		}
 	}
 
 	public void load() {
@@ -43,6 +43,8 @@ import com.bladecoder.engine.ui.UI.Screens;
 import com.bladecoder.engine.util.Config;
 import com.bladecoder.engine.util.DPIUtils;
 import com.bladecoder.engine.util.EngineLogger;
+import com.bladecoder.engine.util.FrameProfiler;
+import com.bladecoder.engine.util.FrameProfiler.Section;
 import com.bladecoder.engine.util.RectangleRenderer;
 
 public class SceneScreen implements BladeScreen {
@@ -327,7 +329,20 @@ public class SceneScreen implements BladeScreen {
 		World w = World.getInstance();
 		currentActor = null;
 
-		if (!World.getInstance().isDisposed()) {
+		if (w.isFixedStep()) {
+			// The recorder runs in the simulation steps so the playback is
+			// the same in every machine
+			if (!w.isDisposed()) {
+				int steps = w.addFrameTime(delta * speed);
+
+				for (int i = 0; i < steps; i++) {
+					w.update(w.getFixedStep());
+
+					if (w.getAssetState() == AssetState.LOADED && state != UIStates.PAUSE_MODE)
+						recorder.update(w.getFixedStep());
+				}
+			}
+		} else if (!World.getInstance().isDisposed()) {
 			World.getInstance().update(delta * speed);
 		}
 
@@ -379,7 +394,8 @@ public class SceneScreen implements BladeScreen {
 		if (state == UIStates.PAUSE_MODE)
 			return;
 
-		recorder.update(delta * speed);
+		if (!w.isFixedStep())
+			recorder.update(delta * speed);
 
 		if (state == UIStates.INVENTORY_MODE) {
 			unproject2Tmp.set(Gdx.input.getX(), Gdx.input.getY());
@@ -429,6 +445,8 @@ public class SceneScreen implements BladeScreen {
 		// WORLD CAMERA
 		w.draw();
 
+		FrameProfiler.begin(Section.DRAW_UI);
+
 		// DRAW DEBUG BBOXES
 		if (EngineLogger.debugMode() && EngineLogger.getDebugLevel() == EngineLogger.DEBUG1) {
 			renderer.setProjectionMatrix(w.getSceneCamera().combined);
@@ -503,6 +521,8 @@ public class SceneScreen implements BladeScreen {
 			drawHotspots(batch);
 
 		batch.end();
+
+		FrameProfiler.end(Section.DRAW_UI);
 	}
 
 	private void drawHotspots(SpriteBatch batch) {
@@ -21,6 +21,7 @@ import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.BitmapFont.HAlignment;
 import com.badlogic.gdx.graphics.g2d.BitmapFont.TextBounds;
+import com.badlogic.gdx.graphics.g2d.BitmapFontCache;
 import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.scenes.scene2d.Actor;
 import com.badlogic.gdx.scenes.scene2d.Touchable;
@@ -50,13 +51,20 @@ public class TextManagerUI extends Actor {
 
 	private TextManagerUIStyle style;
 	private Text subtitle;
-	private TextBounds b = null;
+
+	/**
+	 * The glyphs of the subtitle. Laid out when the subtitle changes or the
+	 * screen is resized, not every frame.
+	 */
+	private BitmapFontCache cache;
+	private boolean layoutDirty = false;
 
 	public TextManagerUI(SceneScreen sceneScreen) {
 		this.sceneScreen = sceneScreen;
 		setTouchable(Touchable.disabled);
 		style = sceneScreen.getUI().getSkin().get(TextManagerUIStyle.class);
 		style.font.setMarkupEnabled(true);
+		cache = new BitmapFontCache(style.font, style.font.usesIntegerPositions());
 		setVisible(false);
 	}
 
@@ -66,8 +74,9 @@ public class TextManagerUI extends Actor {
 
 		Text currentSubtitle = World.getInstance().getTextManager().getCurrentSubtitle();
 
-		if (subtitle != currentSubtitle) {
+		if (subtitle != currentSubtitle || layoutDirty) {
 			subtitle = currentSubtitle;
+			layoutDirty = false;
 
 			if (currentSubtitle == null && isVisible()) {
 				setVisible(false);
@@ -99,6 +108,8 @@ public class TextManagerUI extends Actor {
 
 				setPosition(posx - PADDING, posy - PADDING);
 
+				TextBounds b;
+
 				if (currentSubtitle.type == Text.Type.TALK) {
 					b = style.font.getWrappedBounds(currentSubtitle.str, maxTalkWidth);
 
@@ -114,7 +125,10 @@ public class TextManagerUI extends Actor {
 
 				setSize(b.width + PADDING * 2, b.height + PADDING * 2);
 
-				style.font.setColor(currentSubtitle.color);
+				// Relative to the actor, moved in draw()
+				cache.setColor(currentSubtitle.color);
+				cache.setWrappedText(currentSubtitle.str, PADDING, PADDING + b.height, getWidth() - PADDING * 2,
+						HAlignment.CENTER);
 				
 				// check if the text exits the screen
 				if (getX() < 0) {
@@ -162,13 +176,16 @@ public class TextManagerUI extends Actor {
 			}
 		}
 
-		style.font.drawWrapped(batch, subtitle.str, getX() + PADDING, getY() + PADDING + b.height,
-				getWidth() - PADDING * 2, HAlignment.CENTER);
+		cache.setPosition(getX(), getY());
+		cache.draw(batch);
 	}
 
 	public void resize(int width, int height) {	
 		maxRectangleWidth = Math.min(width - DPIUtils.getMarginSize() * 2, style.font.getSpaceWidth() * 80);
 		maxTalkWidth = Math.min(width - DPIUtils.getMarginSize() * 2, style.font.getSpaceWidth() * 35);
+
+		// Laid out again in the next act()
+		layoutDirty = true;
 	}
 
 	/** The style for the TextManagerUI */
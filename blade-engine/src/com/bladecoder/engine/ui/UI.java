@@ -35,6 +35,7 @@ import com.bladecoder.engine.assets.EngineAssetManager;
 import com.bladecoder.engine.model.World;
 import com.bladecoder.engine.util.Config;
 import com.bladecoder.engine.util.EngineLogger;
+import com.bladecoder.engine.util.FrameProfiler;
 import com.bladecoder.engine.util.RectangleRenderer;
 import com.bladecoder.engine.util.Utils3D;
 
@@ -170,6 +171,8 @@ public class UI {
 		float delta = Math.min(Gdx.graphics.getDeltaTime(), 1 / 30f);
 
 		screen.render(delta);
+
+		FrameProfiler.endFrame();
 	}
 
 	private void loadAssets() {
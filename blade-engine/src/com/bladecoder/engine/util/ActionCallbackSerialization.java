@@ -15,9 +15,13 @@
  ******************************************************************************/
 package com.bladecoder.engine.util;
 
+import java.util.Collection;
+import java.util.IdentityHashMap;
+
 import com.bladecoder.engine.actions.Action;
 import com.bladecoder.engine.actions.ActionCallback;
 import com.bladecoder.engine.model.BaseActor;
+import com.bladecoder.engine.model.Inventory;
 import com.bladecoder.engine.model.Scene;
 import com.bladecoder.engine.model.Verb;
 import com.bladecoder.engine.model.VerbManager;
@@ -39,10 +43,99 @@ import com.bladecoder.engine.model.World;
  * If actorId == "DEFAULT_VERB" the ActionCallback is searched in the World default verbs.
  * If actorId == current scene ID the ActionCallback is searched in the current scene verbs.
  * 
+ * The Strings of all the verbs and actions of the world are generated once
+ * when the chapter is loaded and indexed by ActionCallback, so every callback
+ * is found in constant time when saving.
+ * 
  * @author rgarcia
  */
 public class ActionCallbackSerialization {
 	public static final String SEPARATION_SYMBOL = "#";
+	public static final String DEFAULT_VERB = "DEFAULT_VERB";
+
+	private static final char SEPARATION_CHAR = '#';
+
+	/**
+	 * The location of a verb or action of the world.
+	 */
+	private static class Entry {
+		final String id;
+
+		/** The Scene or BaseActor that owns the verb. null for default verbs */
+		final Object owner;
+
+		Entry(String id, Object owner) {
+			this.id = id;
+			this.owner = owner;
+		}
+	}
+
+	private static final IdentityHashMap<ActionCallback, Entry> index = new IdentityHashMap<ActionCallback, Entry>();
+	private static boolean indexed = false;
+
+	/**
+	 * Indexes all the verbs and actions of the world. Must be called when
+	 * the world verbs and actions are created.
+	 */
+	public static void buildIndex() {
+		World w = World.getInstance();
+
+		buildIndex(w.getScenes() == null ? null : w.getScenes().values(), w.getInventory());
+	}
+
+	static void buildIndex(Collection<Scene> scenes, Inventory inventory) {
+		clearIndex();
+
+		if (scenes != null) {
+			for (Scene s : scenes) {
+				add(s, s.getId(), s.getVerbManager());
+
+				for (BaseActor a : s.getActors().values())
+					add(a, a.getId(), a.getVerbManager());
+			}
+		}
+
+		if (inventory != null) {
+			for (int i = 0; i < inventory.getNumItems(); i++) {
+				BaseActor a = inventory.getItem(i);
+				add(a, a.getId(), a.getVerbManager());
+			}
+		}
+
+		for (Verb v : VerbManager.getDefaultVerbs().values())
+			add(null, DEFAULT_VERB, v);
+
+		indexed = true;
+	}
+
+	/**
+	 * Discards the index when the world objects are discarded. It is built
+	 * again when needed.
+	 */
+	public static void clearIndex() {
+		index.clear();
+		indexed = false;
+	}
+
+	private static void add(Object owner, String ownerId, VerbManager vm) {
+		for (Verb v : vm.getVerbs().values())
+			add(owner, ownerId, v);
+	}
+
+	private static void add(Object owner, String ownerId, Verb v) {
+		String id = ownerId + SEPARATION_SYMBOL + v.getId();
+
+		index.put(v, new Entry(id, owner));
+
+		int pos = 0;
+
+		for (Action a : v.getActions()) {
+			if (a instanceof ActionCallback)
+				index.put((ActionCallback) a, new Entry(id + SEPARATION_SYMBOL + pos, owner));
+
+			pos++;
+		}
+	}
 
 	private static String find(ActionCallback cb, Verb v) {
 		String id = v.getId();
@@ -113,14 +206,42 @@ public class ActionCallbackSerialization {
 	 * @return The generated location string
 	 */
 	public static String find(ActionCallback cb) {
-		String id = null;
-
 		if (cb == null)
 			return null;
 
-		// search in scene verbs
-		Scene s = World.getInstance().getCurrentScene();
+		if (!indexed)
+			buildIndex();
+
+		return lookup(cb, World.getInstance().getCurrentScene());
+	}
 
+	/**
+	 * Finds the callback in the index. The callbacks created after building
+	 * the index are searched in the current scene.
+	 */
+	static String lookup(ActionCallback cb, Scene s) {
+		Entry e = index.get(cb);
+
+		if (e != null) {
+			// Only the callbacks that can be located when loading
+			if (e.owner == null || e.owner == s
+					|| (e.owner instanceof BaseActor && s.getActor(((BaseActor) e.owner).getId(), true) == e.owner))
+				return e.id;
+
+			return null;
+		}
+
+		return search(cb, s);
+	}
+
+	/**
+	 * Searches the callback in all the verbs of the scene and in the default
+	 * verbs.
+	 */
+	static String search(ActionCallback cb, Scene s) {
+		String id = null;
+
+		// search in scene verbs
 		id = find(cb, s);
 
 		if (id != null)
@@ -141,7 +262,7 @@ public class ActionCallbackSerialization {
 		for (Verb v : VerbManager.getDefaultVerbs().values()) {
 			id = find(cb, v);
 			if (id != null) {
-				StringBuilder stringBuilder = new StringBuilder("DEFAULT_VERB");
+				StringBuilder stringBuilder = new StringBuilder(DEFAULT_VERB);
 				stringBuilder.append(SEPARATION_SYMBOL).append(id);
 
 				return stringBuilder.toString();
@@ -157,23 +278,23 @@ public class ActionCallbackSerialization {
 	 * @param id
 	 */
 	public static ActionCallback find(String id) {
-		Scene s = World.getInstance().getCurrentScene();
+		return find(id, World.getInstance().getCurrentScene());
+	}
 
-		String[] split = id.split(SEPARATION_SYMBOL);
+	static ActionCallback find(String id, Scene s) {
+		int verbStart = id.indexOf(SEPARATION_CHAR);
 
-		if (split.length < 2)
+		if (verbStart == -1)
 			return null;
 
-		String actorId = split[0];
-		String verbId = split[1];
-		int actionPos = -1;
+		int actionStart = id.indexOf(SEPARATION_CHAR, verbStart + 1);
 
-		if (split.length > 2)
-			actionPos = Integer.parseInt(split[2]);
+		String actorId = id.substring(0, verbStart);
+		String verbId = actionStart == -1 ? id.substring(verbStart + 1) : id.substring(verbStart + 1, actionStart);
 
 		Verb v = null;
 
-		if (actorId.equals("DEFAULT_VERB")) {
+		if (actorId.equals(DEFAULT_VERB)) {
 
 			v = VerbManager.getDefaultVerbs().get(verbId);
 		} else {
@@ -195,9 +316,11 @@ public class ActionCallbackSerialization {
 		if (v == null)
 			return null;
 
-		if (split.length == 2)
+		if (actionStart == -1)
 			return v;
 
+		int actionPos = Integer.parseInt(id.substring(actionStart + 1));
+
 		Action action = v.getActions().get(actionPos);
 
 		if (action instanceof ActionCallback)
@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.util;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.JsonValue.ValueType;
+import com.badlogic.gdx.utils.SerializationException;
+
+/**
+ * Reads the files written with BinaryJsonWriter. The result is the same
+ * JsonValue tree that JsonReader creates from the JSON text, so the objects
+ * are read with the usual Json.readValue() methods.
+ *
+ * @author rgarcia
+ */
+public class BinaryJsonReader {
+	private DataInputStream in;
+	private final Array<String> strings = new Array<String>();
+
+	/**
+	 * @return true if the file starts with the BinaryJsonWriter magic number.
+	 */
+	public static boolean isBinary(FileHandle file) {
+		if (!file.exists() || file.length() < 4)
+			return false;
+
+		DataInputStream in = new DataInputStream(file.read());
+
+		try {
+			return in.readInt() == BinaryJsonWriter.MAGIC;
+		} catch (IOException e) {
+			return false;
+		} finally {
+			try {
+				in.close();
+			} catch (IOException e) {
+			}
+		}
+	}
+
+	public JsonValue parse(FileHandle file) {
+		return parse(file.read());
+	}
+
+	public JsonValue parse(InputStream is) {
+		in = new DataInputStream(new BufferedInputStream(is, 8192));
+		strings.clear();
+
+		try {
+			if (in.readInt() != BinaryJsonWriter.MAGIC)
+				throw new SerializationException("Not a binary JSON file.");
+
+			int version = in.readInt();
+
+			if (version != BinaryJsonWriter.VERSION)
+				throw new SerializationException("Binary JSON version not supported: " + version);
+
+			return readValue(in.readByte());
+		} catch (IOException e) {
+			throw new SerializationException("Error reading binary JSON.", e);
+		} finally {
+			try {
+				in.close();
+			} catch (IOException e) {
+			}
+
+			in = null;
+		}
+	}
+
+	private JsonValue readValue(byte tag) throws IOException {
+		switch (tag) {
+		case BinaryJsonWriter.NULL:
+			return new JsonValue(ValueType.nullValue);
+		case BinaryJsonWriter.TRUE:
+			return new JsonValue(true);
+		case BinaryJsonWriter.FALSE:
+			return new JsonValue(false);
+		case BinaryJsonWriter.INT:
+			long l = readVarLong();
+			return new JsonValue((l >>> 1) ^ -(l & 1));
+		case BinaryJsonWriter.FLOAT:
+			return new JsonValue(in.readFloat());
+		case BinaryJsonWriter.DOUBLE:
+			return new JsonValue(in.readDouble());
+		case BinaryJsonWriter.STRING:
+			return new JsonValue(readString());
+		case BinaryJsonWriter.OBJECT:
+			return readChildren(new JsonValue(ValueType.object), true);
+		case BinaryJsonWriter.ARRAY:
+			return readChildren(new JsonValue(ValueType.array), false);
+		default:
+			throw new SerializationException("Unknown binary JSON tag: " + tag);
+		}
+	}
+
+	private JsonValue readChildren(JsonValue parent, boolean named) throws IOException {
+		JsonValue last = null;
+
+		for (byte tag = in.readByte(); tag != BinaryJsonWriter.END; tag = in.readByte()) {
+			String name = named ? readString() : null;
+			JsonValue v = readValue(tag);
+			v.setName(name);
+
+			if (last == null) {
+				parent.child = v;
+			} else {
+				last.next = v;
+				v.prev = last;
+			}
+
+			last = v;
+			parent.size++;
+		}
+
+		return parent;
+	}
+
+	private String readString() throws IOException {
+		int index = (int) readVarLong();
+
+		if (index > 0)
+			return strings.get(index - 1);
+
+		byte[] bytes = new byte[(int) readVarLong()];
+		in.readFully(bytes);
+
+		String s = new String(bytes, "UTF-8");
+		strings.add(s);
+
+		return s;
+	}
+
+	private long readVarLong() throws IOException {
+		long v = 0;
+		int shift = 0;
+		int b;
+
+		do {
+			b = in.readByte();
+			v |= (long) (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+
+		return v;
+	}
+}
@@ -0,0 +1,216 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.util;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.badlogic.gdx.utils.BooleanArray;
+import com.badlogic.gdx.utils.JsonWriter;
+import com.badlogic.gdx.utils.ObjectIntMap;
+
+/**
+ * JsonWriter that streams a compact binary tree instead of JSON text. It can
+ * be used with com.badlogic.gdx.utils.Json like the text writer, so the
+ * Serializable objects don't need a different code path. The file is read
+ * back with BinaryJsonReader.
+ *
+ * The strings (field names, class names, ids...) are interned: the first
+ * occurrence is written inline and the next ones as an index.
+ *
+ * Format (big endian):
+ *
+ * <pre>
+ * int    MAGIC
+ * int    VERSION
+ * value:
+ *   byte tag, payload
+ *   object: entries (byte tag, string name, payload) until END
+ *   array:  values (byte tag, payload) until END
+ * string: varint 0 + varint length + UTF-8 bytes for a new string,
+ *         varint index + 1 for an already written one
+ * int:    zigzag varint
+ * </pre>
+ *
+ * @author rgarcia
+ */
+public class BinaryJsonWriter extends JsonWriter {
+	public static final int MAGIC = 0x42534156; // 'BSAV'
+	public static final int VERSION = 1;
+
+	static final byte NULL = 0;
+	static final byte TRUE = 1;
+	static final byte FALSE = 2;
+	static final byte INT = 3;
+	static final byte FLOAT = 4;
+	static final byte DOUBLE = 5;
+	static final byte STRING = 6;
+	static final byte OBJECT = 7;
+	static final byte ARRAY = 8;
+	static final byte END = 9;
+
+	private final DataOutputStream out;
+	private final ObjectIntMap<String> strings = new ObjectIntMap<String>();
+
+	/** true for objects, false for arrays */
+	private final BooleanArray stack = new BooleanArray();
+	private String name;
+
+	public BinaryJsonWriter(OutputStream os) throws IOException {
+		super(null);
+
+		out = new DataOutputStream(new BufferedOutputStream(os, 8192));
+
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+	}
+
+	@Override
+	public JsonWriter name(String name) throws IOException {
+		if (stack.size == 0 || !stack.peek())
+			throw new IllegalStateException("Current item must be an object.");
+
+		if (this.name != null)
+			throw new IllegalStateException("Name already set: " + this.name);
+
+		this.name = name;
+
+		return this;
+	}
+
+	@Override
+	public JsonWriter object() throws IOException {
+		tag(OBJECT);
+		stack.add(true);
+
+		return this;
+	}
+
+	@Override
+	public JsonWriter array() throws IOException {
+		tag(ARRAY);
+		stack.add(false);
+
+		return this;
+	}
+
+	@Override
+	public JsonWriter object(String name) throws IOException {
+		return name(name).object();
+	}
+
+	@Override
+	public JsonWriter array(String name) throws IOException {
+		return name(name).array();
+	}
+
+	@Override
+	public JsonWriter set(String name, Object value) throws IOException {
+		return name(name).value(value);
+	}
+
+	@Override
+	public JsonWriter value(Object value) throws IOException {
+		if (value == null) {
+			tag(NULL);
+		} else if (value instanceof Boolean) {
+			tag(((Boolean) value) ? TRUE : FALSE);
+		} else if (value instanceof Float) {
+			tag(FLOAT);
+			out.writeFloat((Float) value);
+		} else if (value instanceof Double) {
+			tag(DOUBLE);
+			out.writeDouble((Double) value);
+		} else if (value instanceof Number) {
+			tag(INT);
+			long l = ((Number) value).longValue();
+			writeVarLong((l << 1) ^ (l >> 63));
+		} else {
+			tag(STRING);
+			writeString(value.toString());
+		}
+
+		return this;
+	}
+
+	@Override
+	public JsonWriter pop() throws IOException {
+		if (name != null)
+			throw new IllegalStateException("Expected an object, array or value since a name was set.");
+
+		stack.pop();
+		out.writeByte(END);
+
+		return this;
+	}
+
+	@Override
+	public void write(char[] cbuf, int off, int len) throws IOException {
+		throw new UnsupportedOperationException("BinaryJsonWriter doesn't support raw JSON text.");
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		while (stack.size > 0)
+			pop();
+
+		out.close();
+	}
+
+	private void tag(byte tag) throws IOException {
+		out.writeByte(tag);
+
+		if (stack.size > 0 && stack.peek()) {
+			if (name == null)
+				throw new IllegalStateException("Name must be set.");
+
+			writeString(name);
+			name = null;
+		}
+	}
+
+	private void writeString(String s) throws IOException {
+		int index = strings.get(s, -1);
+
+		if (index >= 0) {
+			writeVarLong(index + 1);
+			return;
+		}
+
+		strings.put(s, strings.size);
+
+		byte[] bytes = s.getBytes("UTF-8");
+		writeVarLong(0);
+		writeVarLong(bytes.length);
+		out.write(bytes);
+	}
+
+	private void writeVarLong(long v) throws IOException {
+		while ((v & ~0x7FL) != 0) {
+			out.writeByte((int) ((v & 0x7F) | 0x80));
+			v >>>= 7;
+		}
+
+		out.writeByte((int) v);
+	}
+}
@@ -31,6 +31,13 @@ public class Config {
 	public static final String FORCE_RES_PROP = "force_res";
 	public static final String DEBUG_PROP = "debug";
 	public static final String CHAPTER_PROP = "chapter";
+	public static final String ASYNC_LOADING_PROP = "async_loading";
+	public static final String ASSET_GRACE_TIME_PROP = "asset_grace_time";
+	public static final String ASSET_BUDGET_PROP = "asset_budget";
+	public static final String PREFETCH_BUDGET_PROP = "prefetch_budget";
+	public static final String CALLBACK_BUDGET_PROP = "callback_budget";
+	public static final String FIXED_STEP_PROP = "fixed_step";
+	public static final String PROFILER_PROP = "profiler";
 	public static final String SHOW_DESC_PROP = "show_desc";
 	public static final String MENU_SCREEN_CLASS_PROP = "menu_screen";
 	public static final String HELP_SCREEN_CLASS_PROP = "help_screen";
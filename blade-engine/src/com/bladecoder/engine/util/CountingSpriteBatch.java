@@ -0,0 +1,34 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.util;
+
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+
+/**
+ * SpriteBatch that counts the texture switches in DrawStats. Every switch
+ * flushes the batch.
+ *
+ * @author rgarcia
+ */
+public class CountingSpriteBatch extends SpriteBatch {
+
+	@Override
+	protected void switchTexture(Texture texture) {
+		DrawStats.textureSwitch();
+		super.switchTexture(texture);
+	}
+}
@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.util;
+
+/**
+ * Counters of the scene drawing in the last frame: the scene elements
+ * (background and light map tiles and actors) drawn and culled, and the
+ * SpriteBatch flushes and texture switches.
+ *
+ * @author rgarcia
+ */
+public class DrawStats {
+	private static int drawn, culled, textureSwitches;
+
+	private static int lastDrawn, lastCulled, lastFlushes, lastTextureSwitches;
+
+	public static void drawn() {
+		drawn++;
+	}
+
+	public static void culled() {
+		culled++;
+	}
+
+	public static void textureSwitch() {
+		textureSwitches++;
+	}
+
+	/**
+	 * Clears the counters before drawing the frame.
+	 */
+	public static void begin() {
+		drawn = culled = textureSwitches = 0;
+	}
+
+	/**
+	 * Stores the counters of the frame.
+	 * 
+	 * @param flushes
+	 *            The SpriteBatch renderCalls after end().
+	 */
+	public static void end(int flushes) {
+		lastDrawn = drawn;
+		lastCulled = culled;
+		lastFlushes = flushes;
+		lastTextureSwitches = textureSwitches;
+	}
+
+	public static int getDrawn() {
+		return lastDrawn;
+	}
+
+	public static int getCulled() {
+		return lastCulled;
+	}
+
+	public static int getFlushes() {
+		return lastFlushes;
+	}
+
+	public static int getTextureSwitches() {
+		return lastTextureSwitches;
+	}
+}
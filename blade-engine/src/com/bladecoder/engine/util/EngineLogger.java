@@ -29,7 +29,8 @@ public class EngineLogger {
 	public static int debugLevel = DEBUG0;
 
 	public static void debug(String message) {
-		Gdx.app.debug(TAG, message);
+		if (level == Application.LOG_DEBUG)
+			Gdx.app.debug(TAG, message);
 	}
 
 	public static void error(String message) {
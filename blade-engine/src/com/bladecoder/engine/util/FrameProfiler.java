@@ -0,0 +1,231 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Measures the time spent per frame in every engine section.
+ *
+ * The time of a section is accumulated between begin() and end() calls during
+ * the frame, so a section can be measured in several places. When the frame
+ * ends, the times are stored in a ring buffer with the last FRAMES frames.
+ * Nothing is allocated while measuring.
+ *
+ * The sections are nested: the time of a section includes the time of the
+ * sections with more depth below it.
+ *
+ * When disabled, begin() and end() only check the enabled flag.
+ *
+ * @author rgarcia
+ */
+public class FrameProfiler {
+	public static enum Section {
+		/** Time between the end of two frames */
+		FRAME(0),
+		UPDATE(1), ASSETS(2), CALLBACKS(2), SCENE(2), ACTORS(3), RENDERERS(4), TIMERS(2), TEXT(2),
+		DRAW(1), DRAW_UI(1);
+
+		private final int depth;
+
+		private Section(int depth) {
+			this.depth = depth;
+		}
+
+		public int getDepth() {
+			return depth;
+		}
+	};
+
+	public static final int FRAMES = 300;
+
+	private static final Section[] SECTIONS = Section.values();
+
+	private static boolean enabled = false;
+
+	private static final long[] start = new long[SECTIONS.length];
+	private static final long[] current = new long[SECTIONS.length];
+
+	/** Times in ns by section and frame */
+	private static final long[][] frames = new long[SECTIONS.length][FRAMES];
+
+	/** Ring buffer position of the next frame */
+	private static int pos = 0;
+	private static int count = 0;
+	private static long lastFrame = 0;
+
+	/** Work array to calculate the percentiles without allocating */
+	private static final long[] sorted = new long[FRAMES];
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Starts or stops measuring. The stored frames are kept, call reset() to
+	 * clear them.
+	 */
+	public static void setEnabled(boolean e) {
+		enabled = e;
+
+		// The time while disabled is not measured as a frame
+		Arrays.fill(current, 0);
+		lastFrame = 0;
+	}
+
+	public static void begin(Section s) {
+		if (!enabled)
+			return;
+
+		start[s.ordinal()] = System.nanoTime();
+	}
+
+	public static void end(Section s) {
+		if (!enabled)
+			return;
+
+		int i = s.ordinal();
+		current[i] += System.nanoTime() - start[i];
+	}
+
+	/**
+	 * Stores the times of the frame. Called once per frame, after drawing.
+	 */
+	public static void endFrame() {
+		if (!enabled)
+			return;
+
+		long now = System.nanoTime();
+		long last = lastFrame;
+
+		lastFrame = now;
+
+		// The first frame has no start time, it is discarded
+		if (last == 0) {
+			Arrays.fill(current, 0);
+			return;
+		}
+
+		current[Section.FRAME.ordinal()] = now - last;
+
+		for (int i = 0; i < SECTIONS.length; i++) {
+			frames[i][pos] = current[i];
+			current[i] = 0;
+		}
+
+		pos = (pos + 1) % FRAMES;
+
+		if (count < FRAMES)
+			count++;
+	}
+
+	public static void reset() {
+		Arrays.fill(current, 0);
+		pos = 0;
+		count = 0;
+		lastFrame = 0;
+	}
+
+	/**
+	 * @return The number of frames stored.
+	 */
+	public static int getCount() {
+		return count;
+	}
+
+	/**
+	 * @return The time in ns of the last frame.
+	 */
+	public static long getLast(Section s) {
+		if (count == 0)
+			return 0;
+
+		return frames[s.ordinal()][(pos + FRAMES - 1) % FRAMES];
+	}
+
+	/**
+	 * @param p
+	 *            The percentile, from 0 to 1.
+	 * @return The time in ns.
+	 */
+	public static long getPercentile(Section s, float p) {
+		if (count == 0)
+			return 0;
+
+		System.arraycopy(frames[s.ordinal()], 0, sorted, 0, count);
+		Arrays.sort(sorted, 0, count);
+
+		int i = Math.min(count - 1, (int) (p * count));
+
+		return sorted[i];
+	}
+
+	public static long getMax(Section s) {
+		long max = 0;
+		long[] f = frames[s.ordinal()];
+
+		for (int i = 0; i < count; i++)
+			max = Math.max(max, f[i]);
+
+		return max;
+	}
+
+	public static long getMean(Section s) {
+		if (count == 0)
+			return 0;
+
+		long sum = 0;
+		long[] f = frames[s.ordinal()];
+
+		for (int i = 0; i < count; i++)
+			sum += f[i];
+
+		return sum / count;
+	}
+
+	/**
+	 * Writes the stored frames in CSV format, from the oldest to the newest.
+	 * One row per frame and one column per section, times in ns.
+	 */
+	public static void writeCSV(Writer w) throws IOException {
+		StringBuilder sb = new StringBuilder("frame");
+
+		for (Section s : SECTIONS)
+			sb.append(',').append(s.name());
+
+		sb.append('\n');
+		w.write(sb.toString());
+
+		int first = (pos + FRAMES - count) % FRAMES;
+
+		for (int f = 0; f < count; f++) {
+			int p = (first + f) % FRAMES;
+
+			sb.setLength(0);
+			sb.append(f);
+
+			for (int i = 0; i < SECTIONS.length; i++)
+				sb.append(',').append(frames[i][p]);
+
+			sb.append('\n');
+			w.write(sb.toString());
+		}
+
+		w.flush();
+	}
+}
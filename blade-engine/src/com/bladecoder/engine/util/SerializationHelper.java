@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.util;
+
+import java.util.Collection;
+import java.util.HashMap;
+
+import com.bladecoder.engine.model.BaseActor;
+import com.bladecoder.engine.model.Scene;
+
+/**
+ * Selects what the model objects write and read when serialized.
+ *
+ * MODEL: The full object. Used by the legacy JSON saved games.
+ *
+ * STATE: Only the runtime state. The static definition (verb actions,
+ * animations, sounds, walk zones...) is taken from the chapter, which is
+ * loaded before reading the state. The state is applied to the objects of the
+ * chapter so the saved game is a delta against the chapter.
+ *
+ * @author rgarcia
+ */
+public class SerializationHelper {
+	public static enum Mode {
+		MODEL, STATE
+	};
+
+	private static final SerializationHelper instance = new SerializationHelper();
+
+	private Mode mode = Mode.MODEL;
+
+	/**
+	 * The actors of the chapter by init scene and id. The scenes take their
+	 * actors from here when reading the state.
+	 */
+	private final HashMap<String, BaseActor> baselineActors = new HashMap<String, BaseActor>();
+
+	public static SerializationHelper getInstance() {
+		return instance;
+	}
+
+	public Mode getMode() {
+		return mode;
+	}
+
+	public void setMode(Mode mode) {
+		this.mode = mode;
+	}
+
+	/**
+	 * Registers the actors of the just loaded chapter before reading the state.
+	 */
+	public void setBaseline(Collection<Scene> scenes) {
+		baselineActors.clear();
+
+		for (Scene s : scenes) {
+			for (BaseActor a : s.getActors().values())
+				baselineActors.put(key(a.getInitScene(), a.getId()), a);
+		}
+	}
+
+	/**
+	 * Returns the chapter actor. Every actor can only be taken once.
+	 *
+	 * @param initScene
+	 *            The scene where the actor is defined in the chapter. If the
+	 *            actor is not found there, it is searched by id in all the
+	 *            scenes.
+	 */
+	public BaseActor takeBaselineActor(String initScene, String id) {
+		BaseActor a = baselineActors.remove(key(initScene, id));
+
+		if (a == null) {
+			for (BaseActor b : baselineActors.values()) {
+				if (b.getId().equals(id)) {
+					a = b;
+					baselineActors.remove(key(b.getInitScene(), id));
+					break;
+				}
+			}
+		}
+
+		return a;
+	}
+
+	public void clearBaseline() {
+		baselineActors.clear();
+	}
+
+	private static String key(String scene, String id) {
+		return scene + ActionCallbackSerialization.SEPARATION_SYMBOL + id;
+	}
+}
@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.actions;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the deferred callback queue, including a callback that clears the
+ * queue when leaving the scene.
+ *
+ * @author rgarcia
+ */
+public class ActionCallbackQueueTest {
+	private final ArrayList<String> resumed = new ArrayList<String>();
+
+	@Before
+	public void setUp() {
+		// No time budget, like the fixed step mode
+		ActionCallbackQueue.setBudget(0, 0);
+		ActionCallbackQueue.clear();
+	}
+
+	@After
+	public void tearDown() {
+		ActionCallbackQueue.clear();
+		ActionCallbackQueue.setBudget(ActionCallbackQueue.DEFAULT_BUDGET, 0);
+	}
+
+	@Test
+	public void clearFromCallbackStopsRun() {
+		ActionCallbackQueue.add(new ActionCallback() {
+			@Override
+			public void resume() {
+				resumed.add("leave");
+
+				// Like a LeaveAction changing the current scene
+				ActionCallbackQueue.clear();
+			}
+		});
+		ActionCallbackQueue.add(callback("other"));
+
+		ActionCallbackQueue.run();
+
+		assertEquals(1, resumed.size());
+		assertEquals(0, ActionCallbackQueue.getSize());
+		assertEquals(0, ActionCallbackQueue.getFrameDeferred());
+	}
+
+	@Test
+	public void callbacksAddedAfterClearRunNextFrame() {
+		ActionCallbackQueue.add(new ActionCallback() {
+			@Override
+			public void resume() {
+				resumed.add("leave");
+				ActionCallbackQueue.clear();
+
+				// The init verb of the new scene
+				ActionCallbackQueue.add(callback("init"));
+			}
+		});
+		ActionCallbackQueue.add(callback("other"));
+
+		ActionCallbackQueue.run();
+		assertEquals(1, ActionCallbackQueue.getSize());
+
+		ActionCallbackQueue.run();
+		assertEquals(0, ActionCallbackQueue.getSize());
+		assertEquals("init", resumed.get(1));
+		assertEquals(2, resumed.size());
+	}
+
+	@Test
+	public void runsInOrder() {
+		ActionCallbackQueue.add(callback("a"));
+		ActionCallbackQueue.add(callback("b"));
+		ActionCallbackQueue.add(callback("c"));
+
+		ActionCallbackQueue.run();
+
+		assertEquals("[a, b, c]", resumed.toString());
+		assertEquals(0, ActionCallbackQueue.getSize());
+	}
+
+	private ActionCallback callback(final String id) {
+		return new ActionCallback() {
+			@Override
+			public void resume() {
+				resumed.add(id);
+			}
+		};
+	}
+}
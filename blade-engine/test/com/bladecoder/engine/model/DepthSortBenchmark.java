@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import com.badlogic.gdx.math.Polygon;
+import com.bladecoder.engine.model.BaseActor.ActorLayer;
+
+/**
+ * Compares the incremental depth sorting of the scene dynamic actors against
+ * sorting the full list every frame. In every frame a few actors move a few
+ * pixels, like walking characters. Run from the command line:
+ *
+ * DepthSortBenchmark [frames]
+ *
+ * @author rgarcia
+ */
+public class DepthSortBenchmark {
+	private static final int[] NUM_ACTORS = { 50, 500, 5000 };
+
+	/** Fraction of actors moving every frame */
+	private static final float MOVING = 0.05f;
+
+	public static void main(String[] args) {
+		int frames = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+
+		// warm up
+		for (int n : NUM_ACTORS) {
+			run(n, frames / 10, false);
+			run(n, frames / 10, true);
+		}
+
+		for (int n : NUM_ACTORS) {
+			long full = run(n, frames, false);
+			long incremental = run(n, frames, true);
+
+			System.out.println(n + " actors. Collections.sort: " + (full / frames) + " ns/frame, incremental: "
+					+ (incremental / frames) + " ns/frame");
+		}
+	}
+
+	private static long run(int n, int frames, boolean incremental) {
+		Random rnd = new Random(42);
+		Scene scene = new Scene();
+		List<BaseActor> list = new ArrayList<BaseActor>();
+
+		for (int i = 0; i < n; i++) {
+			BaseActor a = new BaseActor();
+			a.setId("actor" + i);
+			a.setLayer(ActorLayer.DYNAMIC);
+
+			Polygon bbox = new Polygon(new float[] { 0, 0, 0, 100, 50, 100, 50, 0 });
+			bbox.setPosition(rnd.nextFloat() * 1920, rnd.nextFloat() * 1080);
+			a.setBbox(bbox);
+
+			scene.addActor(a);
+			list.add(a);
+		}
+
+		// Initial order, not measured
+		scene.sortDynamicActors();
+		Collections.sort(list);
+
+		int moving = Math.max(1, (int) (n * MOVING));
+		long time = 0;
+
+		for (int f = 0; f < frames; f++) {
+			for (int i = 0; i < moving; i++) {
+				BaseActor a = list.get(rnd.nextInt(n));
+				a.setPosition(a.getX(), a.getY() + rnd.nextFloat() * 4 - 2);
+			}
+
+			long start = System.nanoTime();
+
+			if (incremental)
+				scene.sortDynamicActors();
+			else
+				Collections.sort(list);
+
+			time += System.nanoTime() - start;
+		}
+
+		return time;
+	}
+}
@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.model;
+
+import java.util.Random;
+
+import com.badlogic.gdx.math.Polygon;
+import com.bladecoder.engine.model.BaseActor.ActorLayer;
+
+/**
+ * Compares Scene.getActorAt() against the linear scan in a scene with many
+ * hotspots. Run from the command line:
+ *
+ * HitTestBenchmark [actors] [queries]
+ *
+ * @author rgarcia
+ */
+public class HitTestBenchmark {
+	private static final float WIDTH = 1920;
+	private static final float HEIGHT = 1080;
+
+	public static void main(String[] args) {
+		int numActors = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+		int numQueries = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+
+		Random rnd = new Random(42);
+		Scene scene = createScene(rnd, numActors);
+
+		float[] points = new float[numQueries * 2];
+
+		for (int i = 0; i < points.length; i += 2) {
+			points[i] = rnd.nextFloat() * WIDTH;
+			points[i + 1] = rnd.nextFloat() * HEIGHT;
+		}
+
+		// Both methods must return the same actors, also after moving some
+		if (!check(scene, points))
+			return;
+
+		for (BaseActor a : scene.getActors().values()) {
+			if (rnd.nextInt(4) == 0)
+				a.setPosition(rnd.nextFloat() * WIDTH, rnd.nextFloat() * HEIGHT);
+		}
+
+		if (!check(scene, points))
+			return;
+
+		// warm up
+		time(scene, points, true);
+		time(scene, points, false);
+
+		long linear = time(scene, points, false);
+		long grid = time(scene, points, true);
+
+		System.out.println(numActors + " actors, " + numQueries + " queries");
+		System.out.println("Linear: " + (linear / numQueries) + " ns/query");
+		System.out.println("Grid:   " + (grid / numQueries) + " ns/query");
+	}
+
+	private static boolean check(Scene scene, float[] points) {
+		for (int i = 0; i < points.length; i += 2) {
+			if (scene.getActorAt(points[i], points[i + 1]) != scene.getActorAtLinear(points[i], points[i + 1])) {
+				System.out.println("ERROR: different result at " + points[i] + "," + points[i + 1]);
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static long time(Scene scene, float[] points, boolean grid) {
+		int hits = 0;
+		long start = System.nanoTime();
+
+		for (int i = 0; i < points.length; i += 2) {
+			BaseActor a = grid ? scene.getActorAt(points[i], points[i + 1]) : scene.getActorAtLinear(points[i],
+					points[i + 1]);
+
+			if (a != null)
+				hits++;
+		}
+
+		long t = System.nanoTime() - start;
+
+		if (hits < 0)
+			System.out.println(hits);
+
+		return t;
+	}
+
+	private static Scene createScene(Random rnd, int numActors) {
+		Scene scene = new Scene();
+		ActorLayer[] layers = ActorLayer.values();
+
+		for (int i = 0; i < numActors; i++) {
+			BaseActor a = new BaseActor();
+			a.setId("actor" + i);
+			a.setLayer(layers[rnd.nextInt(layers.length)]);
+			a.setInteraction(rnd.nextInt(10) != 0);
+
+			float w = 20 + rnd.nextFloat() * 150;
+			float h = 20 + rnd.nextFloat() * 150;
+
+			Polygon bbox = new Polygon(new float[] { 0, 0, 0, h, w, h, w, 0 });
+			bbox.setPosition(rnd.nextFloat() * WIDTH, rnd.nextFloat() * HEIGHT);
+			a.setBbox(bbox);
+
+			scene.addActor(a);
+		}
+
+		return scene;
+	}
+}
@@ -0,0 +1,372 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.model;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
+import com.badlogic.gdx.math.Polygon;
+import com.badlogic.gdx.utils.GdxNativesLoader;
+import com.badlogic.gdx.utils.Json;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.JsonWriter.OutputType;
+import com.bladecoder.engine.actions.ActionFactory;
+import com.bladecoder.engine.anim.AtlasAnimationDesc;
+import com.bladecoder.engine.anim.Tween;
+import com.bladecoder.engine.model.BaseActor.ActorLayer;
+import com.bladecoder.engine.model.SpriteActor.DepthType;
+import com.bladecoder.engine.util.BinaryJsonReader;
+import com.bladecoder.engine.util.BinaryJsonWriter;
+import com.bladecoder.engine.util.SerializationHelper;
+import com.bladecoder.engine.util.SerializationHelper.Mode;
+
+/**
+ * Compares the full JSON saved games with the binary state saved games: save
+ * and load time, allocations and file size. A synthetic chapter is played
+ * (actors moved to the inventory, states, verbs run...) before saving. The
+ * chapter is also used by SaveGameTest.
+ *
+ * The binary load doesn't include the chapter loading, measured with the
+ * ChapterLoadBenchmark of the editor.
+ *
+ * SaveGameBenchmark [scenes] [actors per scene] [runs]
+ *
+ * @author rgarcia
+ */
+public class SaveGameBenchmark {
+	private static final float WIDTH = 1920;
+	private static final float HEIGHT = 1080;
+
+	private static final String[] VERBS = { "lookat", "pickup", "talkto", "use.key", "use.door" };
+
+	public static void main(String[] args) throws IOException {
+		int numScenes = args.length > 0 ? Integer.parseInt(args[0]) : 40;
+		int numActors = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+		int runs = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+		// The scene cameras use the native matrix operations
+		GdxNativesLoader.load();
+
+		HashMap<String, Scene> scenes = createChapter(numScenes, numActors);
+		Inventory inventory = new Inventory();
+		play(new Random(42), scenes, inventory);
+
+		File jsonFile = File.createTempFile("savegame", ".json");
+		File binFile = File.createTempFile("savegame", ".bin");
+		jsonFile.deleteOnExit();
+		binFile.deleteOnExit();
+
+		// warm up
+		for (int i = 0; i < 3; i++) {
+			run(scenes, inventory, jsonFile, binFile, numScenes, numActors, runs, false);
+			run(scenes, inventory, jsonFile, binFile, numScenes, numActors, runs, true);
+		}
+
+		System.out.println(numScenes + " scenes, " + numActors + " actors per scene");
+		System.out.println("JSON:   " + jsonFile.length() + " bytes");
+		System.out.println("Binary: " + binFile.length() + " bytes");
+
+		run(scenes, inventory, jsonFile, binFile, numScenes, numActors, runs, false);
+		run(scenes, inventory, jsonFile, binFile, numScenes, numActors, runs, true);
+	}
+
+	private static void run(HashMap<String, Scene> scenes, Inventory inventory, File jsonFile, File binFile,
+			int numScenes, int numActors, int runs, boolean binary) throws IOException {
+		ArrayList<HashMap<String, Scene>> chapters = new ArrayList<HashMap<String, Scene>>();
+
+		if (binary) {
+			for (int i = 0; i < runs; i++)
+				chapters.add(createChapter(numScenes, numActors));
+		}
+
+		long bytes = allocatedBytes();
+		long start = System.nanoTime();
+
+		for (int i = 0; i < runs; i++) {
+			if (binary)
+				saveBinary(scenes, inventory, binFile);
+			else
+				saveJson(scenes, inventory, jsonFile);
+		}
+
+		long saveTime = System.nanoTime() - start;
+		long saveBytes = allocatedBytes() - bytes;
+
+		bytes = allocatedBytes();
+		start = System.nanoTime();
+
+		for (int i = 0; i < runs; i++) {
+			if (binary)
+				loadBinary(chapters.get(i), new Inventory(), binFile);
+			else
+				loadJson(jsonFile);
+		}
+
+		long loadTime = System.nanoTime() - start;
+		long loadBytes = allocatedBytes() - bytes;
+
+		System.out.println((binary ? "Binary" : "JSON  ") + " save: " + (saveTime / runs / 1000) + " us, "
+				+ (saveBytes / runs) + " bytes allocated. Load: " + (loadTime / runs / 1000) + " us, "
+				+ (loadBytes / runs) + " bytes allocated");
+	}
+
+	/**
+	 * Like the previous saved games: the full model in a String.
+	 */
+	static void saveJson(HashMap<String, Scene> scenes, Inventory inventory, File f) throws IOException {
+		String s = toJson(scenes, inventory);
+
+		Writer w = new FileWriter(f);
+
+		try {
+			w.write(s);
+		} finally {
+			w.close();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void loadJson(File f) throws IOException {
+		Json json = new Json();
+		FileReader r = new FileReader(f);
+
+		try {
+			JsonValue root = new JsonReader().parse(r);
+			json.readValue("scenes", HashMap.class, Scene.class, root);
+			json.readValue("inventory", Inventory.class, root);
+		} finally {
+			r.close();
+		}
+	}
+
+	static void saveBinary(HashMap<String, Scene> scenes, Inventory inventory, File f) throws IOException {
+		SerializationHelper.getInstance().setMode(Mode.STATE);
+
+		BinaryJsonWriter w = new BinaryJsonWriter(new FileOutputStream(f));
+
+		try {
+			Json json = new Json();
+			json.setWriter(w);
+			write(json, scenes, inventory);
+		} finally {
+			w.close();
+			SerializationHelper.getInstance().setMode(Mode.MODEL);
+		}
+	}
+
+	static void loadBinary(HashMap<String, Scene> chapter, Inventory inventory, File f) throws IOException {
+		SerializationHelper helper = SerializationHelper.getInstance();
+		helper.setMode(Mode.STATE);
+		helper.setBaseline(chapter.values());
+
+		try {
+			Json json = new Json();
+			JsonValue root = new BinaryJsonReader().parse(new FileInputStream(f));
+
+			for (JsonValue v = root.get("scenes").child; v != null; v = v.next)
+				chapter.get(v.name).read(json, v);
+
+			inventory.read(json, root.get("inventory"));
+		} finally {
+			helper.setMode(Mode.MODEL);
+			helper.clearBaseline();
+		}
+	}
+
+	static String toJson(HashMap<String, Scene> scenes, Inventory inventory) {
+		Json json = new Json();
+		json.setOutputType(OutputType.javascript);
+
+		StringWriter sw = new StringWriter();
+		json.setWriter(sw);
+		write(json, scenes, inventory);
+
+		return sw.toString();
+	}
+
+	private static void write(Json json, HashMap<String, Scene> scenes, Inventory inventory) {
+		json.writeObjectStart();
+		json.writeValue("scenes", scenes, HashMap.class, Scene.class);
+		json.writeValue("inventory", inventory);
+		json.writeObjectEnd();
+	}
+
+	/**
+	 * Changes the runtime state like a player would do.
+	 */
+	static void play(Random rnd, HashMap<String, Scene> scenes, Inventory inventory) {
+		ArrayList<Scene> list = new ArrayList<Scene>(scenes.values());
+
+		for (Scene s : list) {
+			s.setState("visited");
+
+			ArrayList<BaseActor> actors = new ArrayList<BaseActor>(s.getActors().values());
+
+			for (BaseActor a : actors) {
+				int r = rnd.nextInt(10);
+
+				a.setPosition(rnd.nextFloat() * WIDTH, rnd.nextFloat() * HEIGHT);
+
+				if (r == 0) {
+					a.setVisible(false);
+				} else if (r == 1) {
+					a.setState("open");
+					a.setCustomProperty("times", String.valueOf(rnd.nextInt(5)));
+				} else if (r == 2) {
+					// moved to other scene
+					Scene to = list.get(rnd.nextInt(list.size()));
+
+					if (to.getActor(a.getId(), false) == null) {
+						s.removeActor(a);
+						to.addActor(a);
+					}
+				} else if (r == 3 && a instanceof SpriteActor) {
+					s.removeActor(a);
+					inventory.addItem((SpriteActor) a);
+				} else if (r == 4) {
+					// finished verb
+					a.getVerbManager().getVerb("lookat", null, null).cancel();
+				}
+
+				if (Integer.parseInt(a.getId().substring(5)) % 5 == 0) {
+					ArrayList<DialogOption> options = a.getDialog("dialog").getVisibleOptions();
+					options.get(rnd.nextInt(options.size())).setVisible(false);
+				}
+			}
+		}
+	}
+
+	static HashMap<String, Scene> createChapter(int numScenes, int numActors) {
+		HashMap<String, Scene> scenes = new HashMap<String, Scene>();
+		Random rnd = new Random(1);
+
+		for (int s = 0; s < numScenes; s++) {
+			Scene scene = new Scene();
+			scene.setId("scene" + s);
+			scene.resetCamera(WIDTH, HEIGHT);
+			scene.getVerbManager().addVerb("init", createVerb(rnd, "init", "player"));
+
+			for (int a = 0; a < numActors; a++) {
+				SpriteActor actor = new SpriteActor();
+				AtlasRenderer r = new AtlasRenderer();
+				actor.setRenderer(r);
+
+				String id = "actor" + a;
+
+				for (String anim : new String[] { "idle", "talk", "walk.left", "walk.right", "stand.left",
+						"stand.right", "inventory", "use" }) {
+					AtlasAnimationDesc d = new AtlasAnimationDesc();
+					d.set(anim, "atlas" + s, 0.5f, 0, -1, Tween.REPEAT, null, null, null, false, false);
+					r.addAnimation(d);
+				}
+
+				r.setInitAnimation("idle");
+
+				actor.setId(id);
+				actor.setDesc("The actor number " + a);
+				actor.setDepthType(DepthType.NONE);
+				actor.setLayer(ActorLayer.DYNAMIC);
+				actor.setBbox(new Polygon(new float[] { 0, 0, 100, 0, 100, 200, 0, 200 }));
+				actor.setPosition(rnd.nextFloat() * WIDTH, rnd.nextFloat() * HEIGHT);
+
+				for (String v : VERBS)
+					actor.getVerbManager().addVerb(v, createVerb(rnd, v, id));
+
+				if (a % 5 == 0)
+					actor.addDialog("dialog", createDialog(id));
+
+				scene.addActor(actor);
+			}
+
+			scenes.put(scene.getId(), scene);
+		}
+
+		return scenes;
+	}
+
+	private static Verb createVerb(Random rnd, String id, String actor) {
+		Verb v = new Verb(id);
+		int numActions = 4 + rnd.nextInt(8);
+
+		for (int i = 0; i < numActions; i++) {
+			HashMap<String, String> params = new HashMap<String, String>();
+			params.put("actor", actor);
+
+			switch (i % 4) {
+			case 0:
+				params.put("text", "This is the text number " + i + " of the verb " + id);
+				v.add(ActionFactory.create("Say", params));
+				break;
+			case 1:
+				params.put("animation", "use");
+				v.add(ActionFactory.create("Animation", params));
+				break;
+			case 2:
+				params.put("state", "state" + i);
+				v.add(ActionFactory.create("SetState", params));
+				break;
+			default:
+				params.put("time", "1.5");
+				v.add(ActionFactory.create("Wait", params));
+				break;
+			}
+		}
+
+		return v;
+	}
+
+	private static Dialog createDialog(String actor) {
+		Dialog d = new Dialog();
+		d.setId("dialog");
+		d.setActor(actor);
+
+		for (int i = 0; i < 4; i++) {
+			DialogOption o = new DialogOption();
+			o.setText("Option " + i);
+			o.setResponseText("Response " + i);
+
+			for (int j = 0; j < 3; j++) {
+				DialogOption o2 = new DialogOption();
+				o2.setText("Option " + i + "." + j);
+				o.addOption(o2);
+			}
+
+			d.addOption(o);
+		}
+
+		return d;
+	}
+
+	private static long allocatedBytes() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+		if (bean instanceof com.sun.management.ThreadMXBean)
+			return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+
+		return 0;
+	}
+}
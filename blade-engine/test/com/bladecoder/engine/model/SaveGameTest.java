@@ -0,0 +1,254 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxNativesLoader;
+import com.badlogic.gdx.utils.Json;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.bladecoder.engine.actions.Action;
+import com.bladecoder.engine.actions.ActionCallback;
+import com.bladecoder.engine.actions.Param;
+import com.bladecoder.engine.util.BinaryJsonReader;
+
+/**
+ * Saves the state of a played chapter and reads it over a new chapter, which
+ * must give the played model. The legacy JSON saved games, with the full
+ * model, must still be read.
+ *
+ * @author rgarcia
+ */
+public class SaveGameTest {
+	private static final int NUM_SCENES = 6;
+	private static final int NUM_ACTORS = 10;
+
+	private HashMap<String, Scene> chapter;
+	private Inventory inventory;
+
+	private HashMap<String, Scene> restored;
+	private Inventory restoredInventory;
+
+	private File saveFile;
+
+	@Before
+	public void setUp() throws IOException {
+		// The scene cameras use the native matrix operations
+		GdxNativesLoader.load();
+
+		chapter = createChapter();
+		inventory = new Inventory();
+
+		saveFile = File.createTempFile("savegame", ".bin");
+	}
+
+	@After
+	public void tearDown() {
+		saveFile.delete();
+	}
+
+	@Test
+	public void playedChapter() throws IOException {
+		SaveGameBenchmark.play(new Random(42), chapter, inventory);
+
+		restore();
+
+		assertEquals(SaveGameBenchmark.toJson(chapter, inventory),
+				SaveGameBenchmark.toJson(restored, restoredInventory));
+	}
+
+	@Test
+	public void movedActors() throws IOException {
+		Scene scene0 = chapter.get("scene0");
+		Scene scene1 = chapter.get("scene1");
+
+		// The actor1 of scene1 is picked up and replaced by the one of scene0
+		SpriteActor picked = (SpriteActor) scene1.getActor("actor1", false);
+		scene1.removeActor(picked);
+		inventory.addItem(picked);
+		picked.setState("picked");
+
+		BaseActor moved = scene0.getActor("actor1", false);
+		scene0.removeActor(moved);
+		scene1.addActor(moved);
+		moved.setPosition(10, 20);
+
+		restore();
+
+		assertNull(restored.get("scene0").getActor("actor1", false));
+
+		BaseActor a = restored.get("scene1").getActor("actor1", false);
+		assertNotNull(a);
+		assertEquals("scene0", a.getInitScene());
+		assertEquals(10, a.getX(), 0);
+		assertEquals(20, a.getY(), 0);
+
+		assertEquals(1, restoredInventory.getNumItems());
+
+		SpriteActor item = restoredInventory.getItem("actor1");
+		assertNotNull(item);
+		assertEquals("scene1", item.getInitScene());
+		assertEquals("picked", item.getState());
+
+		assertEquals(SaveGameBenchmark.toJson(chapter, inventory),
+				SaveGameBenchmark.toJson(restored, restoredInventory));
+	}
+
+	@Test
+	public void dialogOptions() throws IOException {
+		Dialog d = chapter.get("scene2").getActor("actor0", false).getDialog("dialog");
+
+		d.getVisibleOptions().get(1).setVisible(false);
+		d.getVisibleOptions().get(1).getOptions().get(2).setVisible(false);
+
+		restore();
+
+		Dialog r = restored.get("scene2").getActor("actor0", false).getDialog("dialog");
+		ArrayList<DialogOption> visible = r.getVisibleOptions();
+
+		assertEquals(3, r.getNumVisibleOptions());
+		assertEquals("Option 0", visible.get(0).getText());
+		assertEquals("Option 2", visible.get(1).getText());
+
+		ArrayList<DialogOption> options = visible.get(1).getOptions();
+		assertTrue(options.get(1).isVisible());
+		assertFalse(options.get(2).isVisible());
+	}
+
+	@Test
+	public void runningVerb() throws IOException {
+		Verb verb = chapter.get("scene0").getActor("actor0", false).getVerb("wait");
+
+		// Waiting in the second action
+		verb.run();
+		verb.resume();
+
+		restore();
+
+		Verb r = restored.get("scene0").getActor("actor0", false).getVerb("wait");
+		assertTrue(r.hasRun());
+		assertTrue(((WaitForResumeAction) r.getActions().get(1)).waiting);
+		assertFalse(((WaitForResumeAction) r.getActions().get(2)).waiting);
+
+		// Continues with the third action
+		r.resume();
+
+		assertTrue(((WaitForResumeAction) r.getActions().get(2)).waiting);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void legacyJson() throws IOException {
+		SaveGameBenchmark.play(new Random(42), chapter, inventory);
+		chapter.get("scene0").getActor("actor0", false).getVerb("wait").run();
+
+		File jsonFile = File.createTempFile("savegame", ".json");
+
+		try {
+			SaveGameBenchmark.saveJson(chapter, inventory, jsonFile);
+
+			FileHandle f = new FileHandle(jsonFile);
+			assertFalse(BinaryJsonReader.isBinary(f));
+
+			// The full model is read without a chapter
+			Json json = new Json();
+			JsonValue root = new JsonReader().parse(f);
+			HashMap<String, Scene> scenes = json.readValue("scenes", HashMap.class, Scene.class, root);
+			Inventory inv = json.readValue("inventory", Inventory.class, root);
+
+			assertEquals(SaveGameBenchmark.toJson(chapter, inventory), SaveGameBenchmark.toJson(scenes, inv));
+		} finally {
+			jsonFile.delete();
+		}
+	}
+
+	private void restore() throws IOException {
+		SaveGameBenchmark.saveBinary(chapter, inventory, saveFile);
+
+		assertTrue(BinaryJsonReader.isBinary(new FileHandle(saveFile)));
+
+		restored = createChapter();
+		restoredInventory = new Inventory();
+		SaveGameBenchmark.loadBinary(restored, restoredInventory, saveFile);
+	}
+
+	private static HashMap<String, Scene> createChapter() {
+		HashMap<String, Scene> scenes = SaveGameBenchmark.createChapter(NUM_SCENES, NUM_ACTORS);
+
+		Verb v = new Verb("wait");
+
+		for (int i = 0; i < 3; i++)
+			v.add(new WaitForResumeAction());
+
+		scenes.get("scene0").getActor("actor0", false).getVerbManager().addVerb("wait", v);
+
+		return scenes;
+	}
+
+	/**
+	 * Waits until the verb is resumed, without using the world timers.
+	 */
+	public static class WaitForResumeAction implements Action, Json.Serializable {
+		boolean waiting;
+
+		@Override
+		public boolean run(ActionCallback cb) {
+			waiting = true;
+
+			return true;
+		}
+
+		@Override
+		public void setParams(HashMap<String, String> params) {
+		}
+
+		@Override
+		public String getInfo() {
+			return null;
+		}
+
+		@Override
+		public Param[] getParams() {
+			return null;
+		}
+
+		@Override
+		public void write(Json json) {
+			json.writeValue("waiting", waiting);
+		}
+
+		@Override
+		public void read(Json json, JsonValue jsonData) {
+			waiting = json.readValue("waiting", Boolean.class, false, jsonData);
+		}
+	}
+}
@@ -0,0 +1,238 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.polygonalpathfinder;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.badlogic.gdx.math.Polygon;
+import com.bladecoder.engine.util.PolygonUtils;
+
+/**
+ * Checks that the line of sight queries using the LineOfSightGrid return the
+ * same results than testing every polygon edge. Random concave walk zones and
+ * obstacles are tested with random segments and with segments between polygon
+ * vertices, which are the queries made to create the graph.
+ *
+ * @author rgarcia
+ */
+public class LineOfSightRegressionTest {
+	private static final float WIDTH = 2000;
+	private static final float HEIGHT = 1200;
+
+	private static final int NUM_SCENES = 30;
+	private static final int NUM_SEGMENTS = 5000;
+
+	private int errors = 0;
+	private int tests = 0;
+
+	@Test
+	public void randomScenes() {
+		Random rnd = new Random(42);
+
+		for (int s = 0; s < NUM_SCENES; s++) {
+			PolygonalNavGraph graph = createScene(rnd, s);
+			graph.createInitialGraph();
+
+			testScene(rnd, graph, NUM_SEGMENTS);
+		}
+
+		assertEquals(0, errors);
+	}
+
+	@Test
+	public void gridScene() {
+		// The grid scene used for the benchmarks
+		PolygonalNavGraph graph = NavGraphBenchmark.createGraph(60);
+		graph.createInitialGraph();
+
+		testScene(new Random(42), graph, NUM_SEGMENTS);
+
+		assertEquals(0, errors);
+	}
+
+	@Test
+	public void removedObstacle() {
+		PolygonalNavGraph graph = new PolygonalNavGraph();
+		graph.setWalkZone(new Polygon(new float[] { 0, 0, 1000, 0, 1000, 1000, 0, 1000 }));
+		graph.addObstacle(new Polygon(new float[] { 400, 400, 400, 600, 600, 600, 600, 400 }));
+		graph.createInitialGraph();
+
+		assertEquals(4, graph.findPath(100, 500, 900, 500).size());
+
+		graph.removeObstacle(0);
+
+		assertEquals(2, graph.findPath(100, 500, 900, 500).size());
+	}
+
+	@Test
+	public void movedObstacle() {
+		PolygonalNavGraph graph = new PolygonalNavGraph();
+		graph.setWalkZone(new Polygon(new float[] { 0, 0, 1000, 0, 1000, 1000, 0, 1000 }));
+		graph.addObstacle(new Polygon(new float[] { 400, 400, 400, 600, 600, 600, 600, 400 }));
+		graph.createInitialGraph();
+
+		assertEquals(4, graph.findPath(100, 500, 900, 500).size());
+
+		// Moved in place like the editor does
+		graph.getObstacles().get(0).translate(0, 300);
+		graph.invalidateStaticGraph();
+
+		assertEquals(2, graph.findPath(100, 500, 900, 500).size());
+
+		graph.createInitialGraph();
+
+		assertEquals(2, graph.findPath(100, 500, 900, 500).size());
+	}
+
+	private void testScene(Random rnd, PolygonalNavGraph graph, int numSegments) {
+		ArrayList<float[]> vertices = new ArrayList<float[]>();
+		vertices.add(graph.getWalkZone().getTransformedVertices());
+
+		for (Polygon o : graph.getObstacles())
+			vertices.add(o.getTransformedVertices());
+
+		for (int i = 0; i < numSegments; i++) {
+			float x1, y1, x2, y2;
+
+			switch (i % 4) {
+			case 0:
+				// random points, also outside of the walk zone
+				x1 = rnd.nextFloat() * WIDTH * 1.2f - WIDTH * 0.1f;
+				y1 = rnd.nextFloat() * HEIGHT * 1.2f - HEIGHT * 0.1f;
+				x2 = rnd.nextFloat() * WIDTH * 1.2f - WIDTH * 0.1f;
+				y2 = rnd.nextFloat() * HEIGHT * 1.2f - HEIGHT * 0.1f;
+				break;
+			case 1:
+				// between polygon vertices
+				float[] v1 = randomVertex(rnd, vertices);
+				float[] v2 = randomVertex(rnd, vertices);
+				x1 = v1[0];
+				y1 = v1[1];
+				x2 = v2[0];
+				y2 = v2[1];
+				break;
+			case 2:
+				// horizontal and vertical
+				x1 = rnd.nextFloat() * WIDTH;
+				y1 = rnd.nextFloat() * HEIGHT;
+				x2 = rnd.nextBoolean() ? x1 : rnd.nextFloat() * WIDTH;
+				y2 = x2 == x1 ? rnd.nextFloat() * HEIGHT : y1;
+				break;
+			default:
+				// from a vertex to a random point
+				float[] v = randomVertex(rnd, vertices);
+				x1 = v[0];
+				y1 = v[1];
+				x2 = rnd.nextFloat() * WIDTH;
+				y2 = rnd.nextFloat() * HEIGHT;
+				break;
+			}
+
+			expect(graph.inStaticLineOfSightBruteForce(x1, y1, x2, y2),
+					graph.inStaticLineOfSight(x1, y1, x2, y2), x1, y1, x2, y2);
+		}
+
+		// Points discarded by the obstacle bounds must be outside
+		LineOfSightGrid grid = new LineOfSightGrid(graph.getWalkZone(), graph.getObstacles());
+
+		for (int i = 0; i < numSegments; i++) {
+			float x, y;
+
+			if (i % 2 == 0) {
+				x = rnd.nextFloat() * WIDTH;
+				y = rnd.nextFloat() * HEIGHT;
+			} else {
+				// near a vertex
+				float[] v = randomVertex(rnd, vertices);
+				x = v[0] + rnd.nextFloat() * 6 - 3;
+				y = v[1] + rnd.nextFloat() * 6 - 3;
+			}
+
+			for (int o = 0; o < graph.getObstacles().size(); o++) {
+				boolean inside = PolygonUtils.isPointInside(graph.getObstacles().get(o), x, y, false);
+
+				expect(inside, inside && grid.mayContain(o, x, y), x, y, x, y);
+			}
+		}
+	}
+
+	private void expect(boolean expected, boolean result, float x1, float y1, float x2, float y2) {
+		tests++;
+
+		if (expected != result) {
+			errors++;
+
+			if (errors <= 10)
+				System.out.println("ERROR: " + x1 + "," + y1 + " - " + x2 + "," + y2 + " expected " + expected
+						+ " got " + result + " (" + tests + " tests)");
+		}
+	}
+
+	private static float[] randomVertex(Random rnd, ArrayList<float[]> vertices) {
+		float[] verts = vertices.get(rnd.nextInt(vertices.size()));
+		int i = rnd.nextInt(verts.length / 2) * 2;
+
+		return new float[] { verts[i], verts[i + 1] };
+	}
+
+	/**
+	 * Concave walk zone with star shaped obstacles. Odd scenes use the
+	 * opposite vertex order.
+	 */
+	private static PolygonalNavGraph createScene(Random rnd, int n) {
+		PolygonalNavGraph graph = new PolygonalNavGraph();
+		boolean reverse = n % 2 == 1;
+
+		graph.setWalkZone(star(rnd, WIDTH / 2, HEIGHT / 2, WIDTH / 2, HEIGHT / 2, 8 + rnd.nextInt(40), 0.5f,
+				reverse));
+
+		int numObstacles = rnd.nextInt(40);
+
+		for (int i = 0; i < numObstacles; i++) {
+			float r = 20 + rnd.nextFloat() * 80;
+
+			graph.addObstacle(star(rnd, WIDTH * 0.2f + rnd.nextFloat() * WIDTH * 0.6f,
+					HEIGHT * 0.2f + rnd.nextFloat() * HEIGHT * 0.6f, r, r, 3 + rnd.nextInt(8), 0.3f, !reverse));
+		}
+
+		return graph;
+	}
+
+	private static Polygon star(Random rnd, float x, float y, float rx, float ry, int numVertices,
+			float irregularity, boolean reverse) {
+		float[] verts = new float[numVertices * 2];
+
+		for (int i = 0; i < numVertices; i++) {
+			double a = 2 * Math.PI * i / numVertices;
+			float r = 1 - rnd.nextFloat() * irregularity;
+			int j = reverse ? (numVertices - 1 - i) * 2 : i * 2;
+
+			// rounded to integers like the polygons edited in the composer
+			verts[j] = Math.round((float) Math.cos(a) * rx * r);
+			verts[j + 1] = Math.round((float) Math.sin(a) * ry * r);
+		}
+
+		Polygon p = new Polygon(verts);
+		p.setPosition(x, y);
+
+		return p;
+	}
+}
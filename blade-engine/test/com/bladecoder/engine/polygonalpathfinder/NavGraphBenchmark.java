@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.polygonalpathfinder;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+
+import com.badlogic.gdx.math.Polygon;
+
+/**
+ * Measures the time to create the navigation graph when entering a scene and
+ * to move a dynamic obstacle. Also checks that the incrementally patched graph
+ * is the same than a graph created from scratch. Run from the command line:
+ *
+ * NavGraphBenchmark [obstacles]
+ *
+ * @author rgarcia
+ */
+public class NavGraphBenchmark {
+	private static final float WIDTH = 2000;
+	private static final float HEIGHT = 1200;
+
+	public static void main(String[] args) {
+		int numObstacles = args.length > 0 ? Integer.parseInt(args[0]) : 60;
+		Random rnd = new Random(42);
+
+		PolygonalNavGraph graph = createGraph(numObstacles);
+
+		long start = System.nanoTime();
+		graph.createInitialGraph();
+		long first = System.nanoTime() - start;
+
+		int vertices = 0;
+
+		for (Polygon o : graph.getObstacles())
+			vertices += o.getVertices().length / 2;
+
+		System.out.println(numObstacles + " obstacles, " + vertices + " obstacle vertices, "
+				+ graph.getGraphNodes().size() + " nodes");
+		System.out.println("First scene enter: " + (first / 1000) + " us");
+
+		int enters = 50;
+		start = System.nanoTime();
+
+		for (int i = 0; i < enters; i++)
+			graph.createInitialGraph();
+
+		System.out.println("Next scene enters: " + ((System.nanoTime() - start) / enters / 1000) + " us");
+
+		// Dynamic obstacles moving
+		Polygon d1 = square(100, 100, 40);
+		Polygon d2 = square(500, 500, 40);
+		graph.addDinamicObstacle(d1);
+		graph.addDinamicObstacle(d2);
+
+		int moves = 200;
+		start = System.nanoTime();
+
+		for (int i = 0; i < moves; i++) {
+			Polygon d = i % 2 == 0 ? d1 : d2;
+
+			graph.removeDinamicObstacle(d);
+			d.setPosition(rnd.nextFloat() * WIDTH, rnd.nextFloat() * HEIGHT);
+			graph.addDinamicObstacle(d);
+		}
+
+		System.out.println("Dynamic obstacle move: " + ((System.nanoTime() - start) / moves / 1000) + " us");
+
+		// Compare against a graph created from scratch
+		PolygonalNavGraph scratch = createGraph(numObstacles);
+		scratch.addDinamicObstacle(d1);
+		scratch.addDinamicObstacle(d2);
+		scratch.createInitialGraph();
+
+		if (edges(graph).equals(edges(scratch)))
+			System.out.println("OK: incremental graph equals the graph created from scratch");
+		else
+			System.out.println("ERROR: incremental graph differs from the graph created from scratch");
+	}
+
+	static PolygonalNavGraph createGraph(int numObstacles) {
+		PolygonalNavGraph graph = new PolygonalNavGraph();
+		graph.setWalkZone(new Polygon(new float[] { 0, 0, WIDTH, 0, WIDTH, HEIGHT, 0, HEIGHT }));
+
+		int cols = (int) Math.ceil(Math.sqrt(numObstacles * WIDTH / HEIGHT));
+		float cellW = WIDTH / (cols + 1);
+		float cellH = HEIGHT / ((numObstacles + cols - 1) / cols + 1);
+
+		for (int i = 0; i < numObstacles; i++) {
+			float x = cellW * (i % cols + 1);
+			float y = cellH * (i / cols + 1);
+
+			graph.addObstacle(square(x, y, Math.min(cellW, cellH) * 0.4f));
+		}
+
+		return graph;
+	}
+
+	/**
+	 * Clockwise squares so every vertex is a graph node.
+	 */
+	private static Polygon square(float x, float y, float size) {
+		float h = size / 2;
+		Polygon p = new Polygon(new float[] { -h, -h, -h, h, h, h, h, -h });
+		p.setPosition(x, y);
+
+		return p;
+	}
+
+	private static HashSet<String> edges(PolygonalNavGraph graph) {
+		HashSet<String> edges = new HashSet<String>();
+		ArrayList<NavNodePolygonal> nodes = graph.getGraphNodes();
+
+		for (NavNodePolygonal n : nodes) {
+			for (int i = 0; i < n.neighbors.size; i++) {
+				NavNodePolygonal n2 = (NavNodePolygonal) n.neighbors.get(i);
+				edges.add(n.x + "," + n.y + "-" + n2.x + "," + n2.y);
+			}
+		}
+
+		return edges;
+	}
+}
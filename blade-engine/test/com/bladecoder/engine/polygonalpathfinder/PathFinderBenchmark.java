@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.polygonalpathfinder;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import com.badlogic.gdx.math.Vector2;
+
+/**
+ * Compares the path quality (walking distance) and the search time of the
+ * shortest distance A* against the less nodes A*. Run from the command line:
+ *
+ * PathFinderBenchmark [obstacles] [queries]
+ *
+ * @author rgarcia
+ */
+public class PathFinderBenchmark {
+	public static void main(String[] args) {
+		int numObstacles = args.length > 0 ? Integer.parseInt(args[0]) : 60;
+		int numQueries = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+
+		PolygonalNavGraph graph = NavGraphBenchmark.createGraph(numObstacles);
+		graph.createInitialGraph();
+
+		Random rnd = new Random(42);
+		float[] points = new float[numQueries * 4];
+
+		for (int i = 0; i < points.length; i++)
+			points[i] = rnd.nextFloat() * (i % 2 == 0 ? 2000 : 1200);
+
+		ArrayList<Vector2> path = new ArrayList<Vector2>();
+
+		// warm up
+		run(graph, points, path, true);
+		run(graph, points, path, false);
+
+		float[] euclidean = new float[numQueries];
+		float[] hops = new float[numQueries];
+
+		long euclideanTime = run(graph, points, path, true, euclidean);
+		long hopsTime = run(graph, points, path, false, hops);
+
+		float euclideanLength = 0, hopsLength = 0;
+		int worse = 0;
+
+		for (int i = 0; i < numQueries; i++) {
+			euclideanLength += euclidean[i];
+			hopsLength += hops[i];
+
+			if (euclidean[i] > hops[i] + 0.01f)
+				worse++;
+		}
+
+		System.out.println(graph.getGraphNodes().size() + " nodes, " + numQueries + " queries");
+		System.out.println("Less nodes: " + (hopsTime / numQueries) + " ns/query, avg. length: "
+				+ (hopsLength / numQueries));
+		System.out.println("Shortest distance: " + (euclideanTime / numQueries) + " ns/query, avg. length: "
+				+ (euclideanLength / numQueries));
+
+		if (worse > 0)
+			System.out.println("ERROR: " + worse + " paths longer than the less nodes paths");
+	}
+
+	private static long run(PolygonalNavGraph graph, float[] points, ArrayList<Vector2> path, boolean euclidean) {
+		return run(graph, points, path, euclidean, new float[points.length / 4]);
+	}
+
+	private static long run(PolygonalNavGraph graph, float[] points, ArrayList<Vector2> path, boolean euclidean,
+			float[] lengths) {
+		graph.setEuclidean(euclidean);
+
+		long time = 0;
+
+		for (int i = 0; i < points.length; i += 4) {
+			long start = System.nanoTime();
+			graph.findPath(points[i], points[i + 1], points[i + 2], points[i + 3], path);
+			time += System.nanoTime() - start;
+
+			float length = 0;
+
+			for (int j = 1; j < path.size(); j++)
+				length += path.get(j - 1).dst(path.get(j));
+
+			lengths[i / 4] = length;
+		}
+
+		return time;
+	}
+}
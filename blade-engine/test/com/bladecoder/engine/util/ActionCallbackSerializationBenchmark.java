@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright 2014 Rafael Garcia Moreno.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
+import com.badlogic.gdx.math.Polygon;
+import com.bladecoder.engine.actions.Action;
+import com.bladecoder.engine.actions.ActionCallback;
+import com.bladecoder.engine.actions.ActionFactory;
+import com.bladecoder.engine.model.BaseActor.ActorLayer;
+import com.bladecoder.engine.model.Scene;
+import com.bladecoder.engine.model.SpriteActor;
+import com.bladecoder.engine.model.Verb;
+
+/**
+ * Compares the linear search of the ActionCallbacks with the index when
+ * serializing the pending callbacks of a save. The callbacks are taken from
+ * the current scene among thousands of actions and every serialized String
+ * must locate the same callback.
+ *
+ * ActionCallbackSerializationBenchmark [scenes] [actors per scene] [pending
+ * callbacks]
+ *
+ * @author rgarcia
+ */
+public class ActionCallbackSerializationBenchmark {
+	private static final int VERBS = 6;
+	private static final int ACTIONS = 10;
+	private static final int RUNS = 50;
+
+	public static void main(String[] args) {
+		int numScenes = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+		int numActors = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+		int numPending = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+
+		ArrayList<Scene> scenes = new ArrayList<Scene>();
+
+		for (int i = 0; i < numScenes; i++)
+			scenes.add(createScene("scene" + i, numActors));
+
+		Scene current = scenes.get(0);
+
+		long initTime = System.nanoTime();
+		ActionCallbackSerialization.buildIndex(scenes, null);
+		long indexTime = System.nanoTime() - initTime;
+
+		// the pending callbacks of the save (timers, tweens, texts, queue...)
+		ArrayList<ActionCallback> callbacks = new ArrayList<ActionCallback>();
+		ArrayList<Verb> verbs = new ArrayList<Verb>(current.getVerbManager().getVerbs().values());
+
+		for (String id : current.getActors().keySet())
+			verbs.addAll(current.getActor(id, false).getVerbManager().getVerbs().values());
+
+		Random rnd = new Random(42);
+
+		for (int i = 0; i < numPending; i++) {
+			Verb v = verbs.get(rnd.nextInt(verbs.size()));
+			Action a = v.getActions().get(rnd.nextInt(v.getActions().size()));
+
+			callbacks.add(a instanceof ActionCallback ? (ActionCallback) a : v);
+		}
+
+		for (ActionCallback cb : callbacks) {
+			String id = ActionCallbackSerialization.lookup(cb, current);
+
+			if (id == null || !id.equals(ActionCallbackSerialization.search(cb, current))
+					|| ActionCallbackSerialization.find(id, current) != cb) {
+				System.out.println("ERROR: callback not located: " + id);
+				return;
+			}
+		}
+
+		System.out.println("OK: all the callbacks are located");
+		System.out.println(numScenes + " scenes, " + (numScenes * numActors * VERBS * ACTIONS) + " actions, "
+				+ numPending + " pending callbacks");
+		System.out.println("Index built in " + (indexTime / 1000) + " us");
+
+		// warm up
+		for (int i = 0; i < 3; i++) {
+			run(callbacks, current, false);
+			run(callbacks, current, true);
+		}
+
+		System.out.println("Linear search: " + run(callbacks, current, false) / 1000 + " us per save");
+		System.out.println("Index:         " + run(callbacks, current, true) / 1000 + " us per save");
+	}
+
+	private static long run(ArrayList<ActionCallback> callbacks, Scene s, boolean index) {
+		long initTime = System.nanoTime();
+		int found = 0;
+
+		for (int r = 0; r < RUNS; r++) {
+			for (ActionCallback cb : callbacks) {
+				String id = index ? ActionCallbackSerialization.lookup(cb, s) : ActionCallbackSerialization.search(cb,
+						s);
+
+				if (id != null)
+					found++;
+			}
+		}
+
+		if (found != RUNS * callbacks.size())
+			System.out.println("ERROR: callbacks not found");
+
+		return (System.nanoTime() - initTime) / RUNS;
+	}
+
+	private static Scene createScene(String id, int numActors) {
+		Scene s = new Scene();
+		s.setId(id);
+		s.getVerbManager().addVerb("init", createVerb("init", id));
+
+		for (int a = 0; a < numActors; a++) {
+			SpriteActor actor = new SpriteActor();
+			actor.setId("actor" + a);
+			actor.setLayer(ActorLayer.DYNAMIC);
+			actor.setBbox(new Polygon(new float[] { 0, 0, 100, 0, 100, 200, 0, 200 }));
+
+			for (int v = 0; v < VERBS; v++) {
+				String verbId = "verb" + v;
+				actor.getVerbManager().addVerb(verbId, createVerb(verbId, actor.getId()));
+			}
+
+			s.addActor(actor);
+		}
+
+		return s;
+	}
+
+	private static Verb createVerb(String id, String actor) {
+		Verb v = new Verb(id);
+
+		for (int i = 0; i < ACTIONS; i++) {
+			HashMap<String, String> params = new HashMap<String, String>();
+
+			if (i % 2 == 0) {
+				params.put("time", "1.0");
+				v.add(ActionFactory.create("Wait", params));
+			} else {
+				params.put("actor", actor);
+				params.put("state", "state" + i);
+				v.add(ActionFactory.create("SetState", params));
+			}
+		}
+
+		return v;
+	}
+}